@@ -14,12 +14,15 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import addingPoints.LocalizationPoints;
+import addingPoints.WeightedPoints;
 import graphPreparation.GraphPreparation;
 import partitioning.BalancedPartitioning;
 import partitioning.balancing.Balancer;
 import partitioning.entities.Algorithm;
+import partitioning.entities.FlowAlgorithm;
 import readWrite.CoordinateConversion;
 import readWrite.GraphReader;
+import readWrite.GraphSnapshot;
 import readWrite.GraphWriter;
 import readWrite.PartitionWriter;
 import readWrite.PointsReader;
@@ -36,6 +39,7 @@ public class Main implements Runnable {
     private static final String BASE_DIRECTORY = "src" + File.separatorChar + "main" + File.separatorChar;
     private static final String RESOURCES_DIRECTORY = BASE_DIRECTORY + "resources" + File.separatorChar;
     private static final String OUTPUT_DIRECTORY = BASE_DIRECTORY + "output" + File.separatorChar;
+    private static final double PREPARATION_INACCURACY = 1;
 
     @Parameters(index = "0", description = "Algorithm name (IF, BUP, BUS)")
     private Algorithm algorithmName;
@@ -59,52 +63,54 @@ public class Main implements Runnable {
             description = "Partition parameter (default: ${DEFAULT-VALUE})")
     private double partitionParameter;
 
-    @Override
-    public void run() throws RuntimeException {
-        BalancedPartitioning partitioning = Algorithm.getBalancedPartitioningByAlgorithmName(
-                algorithmName,
-                partitionParameter
-        );
+    @Option(names = {"-f", "--flow"}, defaultValue = "REIF",
+            description = "Max flow algorithm for IF: REIF, DINIC, PUSH_RELABEL (default: ${DEFAULT-VALUE})")
+    private FlowAlgorithm flowAlgorithm;
 
-        Graph<Vertex> graph = new Graph<>();
-        Graph<Vertex> geodeticGraph = new Graph<>();
+    @Option(names = {"-t", "--threads"}, defaultValue = "1",
+            description = "Number of threads for recursive bisection in IF (default: ${DEFAULT-VALUE})")
+    private int parallelism;
 
-        try {
-            GraphReader geodeticgr = new GraphReader();
-            geodeticgr.readGraphFromFile(geodeticGraph, RESOURCES_DIRECTORY + pathToFile, false);
-        } catch (Exception e) {
-            throw new RuntimeException("Can't read graph from file: " + e.getMessage());
-        }
+    @Option(names = {"--all-lines"},
+            description = "Run flow for all inertial lines in IF and keep the best cut")
+    private boolean allLines;
 
-        CoordinateConversion cc = new CoordinateConversion(geodeticGraph.getEdges().keySet());
-        try {
-            GraphReader gr = new GraphReader(cc);
-            gr.readGraphFromFile(graph, RESOURCES_DIRECTORY + pathToFile, true);
-        } catch (FileNotFoundException e) {
-            throw new RuntimeException("Can't read graph from file: " + e.getMessage());
-        }
+    @Option(names = {"--split-batch"}, defaultValue = "1",
+            description = "Number of split vertices evaluated concurrently in every round of split search in REIF, "
+                    + "1 - binary search (default: ${DEFAULT-VALUE})")
+    private int splitBatchSize;
 
-        graph = graph.getLargestConnectedComponent();
+    @Option(names = {"--snapshot"},
+            description = "Path to binary snapshot of prepared graphs (from resources/), "
+                    + "loaded instead of graph preparation if exists and was prepared from the same graph file, "
+                    + "written after preparation otherwise")
+    private String pathToSnapshot;
 
-        GraphPreparation preparation = new GraphPreparation(false, false);
+    @Override
+    public void run() throws RuntimeException {
+        BalancedPartitioning partitioning = Algorithm.getBalancedPartitioningByAlgorithmName(
+                algorithmName,
+                partitionParameter,
+                flowAlgorithm,
+                parallelism,
+                allLines,
+                splitBatchSize
+        );
 
-        Graph<VertexOfDualGraph> preparedGraph;
-        try {
-            preparedGraph = preparation.prepareGraph(graph, 1);
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
+        GraphSnapshot prepared = loadOrPrepareGraphs();
+        Graph<Vertex> graph = prepared.graph();
+        Graph<VertexOfDualGraph> preparedGraph = prepared.dualGraph();
+        HashMap<Vertex, VertexOfDualGraph> comparisonForDualGraph = prepared.comparisonForDualGraph();
+        CoordinateConversion cc = prepared.conversion();
 
         for (VertexOfDualGraph v : preparedGraph.verticesArray()) {
             Assertions.assertNotNull(v.getVerticesOfFace());
         }
 
-        List<Vertex> weightedVertices;
-
         PointsReader pr = new PointsReader(cc);
-        weightedVertices = pr.readWeightedPoints(RESOURCES_DIRECTORY + pathToPointsFile, true);
+        WeightedPoints weightedPoints = pr.readPoints(RESOURCES_DIRECTORY + pathToPointsFile, true);
 
-        LocalizationPoints lp = new LocalizationPoints(new HashSet<>(weightedVertices));
+        LocalizationPoints lp = new LocalizationPoints(weightedPoints);
         HashMap<VertexOfDualGraph, ArrayList<Vertex>> faceToVertices = lp.findFacesForPoints(preparedGraph);
 
         for (VertexOfDualGraph v: preparedGraph.verticesArray()) {
@@ -120,7 +126,6 @@ public class Main implements Runnable {
 
         long startTime = System.currentTimeMillis();
 
-        HashMap<Vertex, VertexOfDualGraph> comparisonForDualGraph = preparation.getComparisonForDualGraph();
         List<Set<VertexOfDualGraph>> partitionResultForFaces = partitioning.partition(graph, comparisonForDualGraph, preparedGraph, maxSumVerticesWeight);
         for (Set<VertexOfDualGraph> hs : partitionResultForFaces) {
             for (VertexOfDualGraph v : hs) {
@@ -192,6 +197,73 @@ public class Main implements Runnable {
         pw.printPartCenters(centers, OUTPUT_DIRECTORY + pathToResultDirectory, "centers.txt", true, cc.referencePoint);
     }
 
+    /**
+     * Reads graph from text and prepares it, or loads prepared graphs from snapshot if it exists
+     * and was prepared from the same graph file with the same inaccuracy.
+     * Otherwise the snapshot is overwritten
+     */
+    private GraphSnapshot loadOrPrepareGraphs() {
+        String snapshotFile = pathToSnapshot == null ? null : RESOURCES_DIRECTORY + pathToSnapshot;
+        GraphSnapshot.Source source;
+        try {
+            source = GraphSnapshot.Source.of(RESOURCES_DIRECTORY + pathToFile, PREPARATION_INACCURACY);
+        } catch (IOException e) {
+            throw new RuntimeException("Can't read graph from file: " + e.getMessage());
+        }
+        if (snapshotFile != null && new File(snapshotFile).exists()) {
+            try {
+                GraphSnapshot.Source snapshotSource = GraphSnapshot.readSource(snapshotFile);
+                if (source.equals(snapshotSource)) {
+                    return GraphSnapshot.read(snapshotFile);
+                }
+                logger.info("Snapshot {} doesn't match graph: prepared from {}, current {}. Preparing graph again",
+                        snapshotFile, snapshotSource, source);
+            } catch (IOException e) {
+                throw new RuntimeException("Can't read snapshot: " + e.getMessage());
+            }
+        }
+
+        Graph<Vertex> graph = new Graph<>();
+        Graph<Vertex> geodeticGraph = new Graph<>();
+
+        try {
+            GraphReader geodeticgr = new GraphReader();
+            geodeticgr.readGraphFromFile(geodeticGraph, RESOURCES_DIRECTORY + pathToFile, false);
+        } catch (Exception e) {
+            throw new RuntimeException("Can't read graph from file: " + e.getMessage());
+        }
+
+        CoordinateConversion cc = new CoordinateConversion(geodeticGraph.getEdges().keySet());
+        try {
+            GraphReader gr = new GraphReader(cc);
+            gr.readGraphFromFile(graph, RESOURCES_DIRECTORY + pathToFile, true);
+        } catch (FileNotFoundException e) {
+            throw new RuntimeException("Can't read graph from file: " + e.getMessage());
+        }
+
+        graph = graph.getLargestConnectedComponent();
+
+        GraphPreparation preparation = new GraphPreparation(false, false);
+
+        Graph<VertexOfDualGraph> preparedGraph;
+        try {
+            preparedGraph = preparation.prepareGraph(graph, PREPARATION_INACCURACY);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        GraphSnapshot prepared = new GraphSnapshot(graph, preparedGraph, preparation.getComparisonForDualGraph(), cc,
+                source);
+        if (snapshotFile != null) {
+            try {
+                prepared.write(snapshotFile);
+            } catch (IOException e) {
+                throw new RuntimeException("Can't write snapshot: " + e.getMessage());
+            }
+        }
+        return prepared;
+    }
+
     public static void main(String[] args) {
         int exitCode = new CommandLine(new Main()).execute(args);
         System.exit(exitCode);
@@ -0,0 +1,153 @@
+package addingPoints;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import graph.Point;
+import graph.Vertex;
+import graph.VertexOfDualGraph;
+
+/**
+ * Packed STR R-tree over bounding boxes of faces, for localization of points in faces.
+ * Leaves are faces sorted by Sort-Tile-Recursive order, every upper level groups NODE_CAPACITY
+ * consecutive nodes of the level below, so the tree is stored in flat arrays of boxes.
+ * Candidate faces are checked with exact {@link Point#inFaceGeom}.
+ * Point is in the box of a face if minX < x < maxX and minY <= y <= maxY, same as in the sweep line.
+ * Index is immutable after construction, queries may run in parallel and for any number of point batches.
+ */
+public class FaceIndex {
+    private static final int NODE_CAPACITY = 16;
+    private final List<VertexOfDualGraph> faces;
+    /**
+     * levels[0] - boxes of faces in STR order, levels[i + 1] - boxes of nodes over levels[i],
+     * box j is (minX, minY, maxX, maxY) at [4 * j, 4 * j + 4)
+     */
+    private final double[][] levels;
+    /**
+     * Face number in faces for every leaf
+     */
+    private final int[] leafFaces;
+
+    public FaceIndex(Collection<VertexOfDualGraph> faces) {
+        this.faces = new ArrayList<>(faces);
+        int n = this.faces.size();
+        double[] boxes = new double[4 * n];
+        for (int i = 0; i < n; i++) {
+            CoordinateConstraintsForFace constraints =
+                    new CoordinateConstraintsForFace(this.faces.get(i).getVerticesOfFace());
+            boxes[4 * i] = constraints.getMinX();
+            boxes[4 * i + 1] = constraints.getMinY();
+            boxes[4 * i + 2] = constraints.getMaxX();
+            boxes[4 * i + 3] = constraints.getMaxY();
+        }
+        leafFaces = strOrder(boxes, n);
+        List<double[]> levelList = new ArrayList<>();
+        double[] leaves = new double[4 * n];
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(boxes, 4 * leafFaces[i], leaves, 4 * i, 4);
+        }
+        levelList.add(leaves);
+        while (levelList.get(levelList.size() - 1).length > 4 * NODE_CAPACITY) {
+            levelList.add(parentLevel(levelList.get(levelList.size() - 1)));
+        }
+        levels = levelList.toArray(new double[0][]);
+    }
+
+    public int size() {
+        return faces.size();
+    }
+
+    /**
+     * @return face containing point or null if there is no such face,
+     * if point lies in several faces (on common border) the first one in the order of construction is returned
+     */
+    public VertexOfDualGraph findFace(Point point) {
+        int top = levels.length - 1;
+        int best = Integer.MAX_VALUE;
+        for (int j = 0; j < levels[top].length / 4; j++) {
+            best = Math.min(best, search(top, j, point, best));
+        }
+        return best == Integer.MAX_VALUE ? null : faces.get(best);
+    }
+
+    /**
+     * Localizes points in parallel
+     * @return array of faces, i-th element is face of point i or null
+     */
+    public VertexOfDualGraph[] findFaces(List<? extends Point> points) {
+        VertexOfDualGraph[] result = new VertexOfDualGraph[points.size()];
+        IntStream.range(0, points.size()).parallel().forEach(i -> result[i] = findFace(points.get(i)));
+        return result;
+    }
+
+    /**
+     * @return minimum of best and numbers of faces containing point in subtree of node j of level
+     */
+    private int search(int level, int j, Point point, int best) {
+        double[] boxes = levels[level];
+        if (!inBox(boxes, j, point)) {
+            return best;
+        }
+        if (level == 0) {
+            int face = leafFaces[j];
+            if (face < best && point.inFaceGeom(faces.get(face).getVerticesOfFace())) {
+                return face;
+            }
+            return best;
+        }
+        int childrenNumber = levels[level - 1].length / 4;
+        for (int child = j * NODE_CAPACITY; child < Math.min((j + 1) * NODE_CAPACITY, childrenNumber); child++) {
+            best = search(level - 1, child, point, best);
+        }
+        return best;
+    }
+
+    private static boolean inBox(double[] boxes, int j, Point point) {
+        return boxes[4 * j] < point.x && point.x < boxes[4 * j + 2]
+                && boxes[4 * j + 1] <= point.y && point.y <= boxes[4 * j + 3];
+    }
+
+    /**
+     * Sort-Tile-Recursive: faces are sorted by x of box center and cut into vertical slices,
+     * every slice is sorted by y of box center
+     */
+    private static int[] strOrder(double[] boxes, int n) {
+        Integer[] order = new Integer[n];
+        Arrays.setAll(order, i -> i);
+        Arrays.sort(order, (a, b) -> Double.compare(boxes[4 * a] + boxes[4 * a + 2], boxes[4 * b] + boxes[4 * b + 2]));
+        int leavesNumber = (n + NODE_CAPACITY - 1) / NODE_CAPACITY;
+        int slicesNumber = Math.max(1, (int) Math.ceil(Math.sqrt(leavesNumber)));
+        int sliceSize = slicesNumber * NODE_CAPACITY;
+        for (int begin = 0; begin < n; begin += sliceSize) {
+            Arrays.sort(order, begin, Math.min(begin + sliceSize, n),
+                    (a, b) -> Double.compare(boxes[4 * a + 1] + boxes[4 * a + 3], boxes[4 * b + 1] + boxes[4 * b + 3]));
+        }
+        return Arrays.stream(order).mapToInt(Integer::intValue).toArray();
+    }
+
+    private static double[] parentLevel(double[] children) {
+        int childrenNumber = children.length / 4;
+        int parentsNumber = (childrenNumber + NODE_CAPACITY - 1) / NODE_CAPACITY;
+        double[] parents = new double[4 * parentsNumber];
+        for (int p = 0; p < parentsNumber; p++) {
+            double minX = Double.POSITIVE_INFINITY;
+            double minY = Double.POSITIVE_INFINITY;
+            double maxX = Double.NEGATIVE_INFINITY;
+            double maxY = Double.NEGATIVE_INFINITY;
+            for (int c = p * NODE_CAPACITY; c < Math.min((p + 1) * NODE_CAPACITY, childrenNumber); c++) {
+                minX = Math.min(minX, children[4 * c]);
+                minY = Math.min(minY, children[4 * c + 1]);
+                maxX = Math.max(maxX, children[4 * c + 2]);
+                maxY = Math.max(maxY, children[4 * c + 3]);
+            }
+            parents[4 * p] = minX;
+            parents[4 * p + 1] = minY;
+            parents[4 * p + 2] = maxX;
+            parents[4 * p + 3] = maxY;
+        }
+        return parents;
+    }
+}
@@ -1,38 +1,36 @@
 package addingPoints;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.List;
 
-import graph.EdgeOfGraph;
 import graph.Graph;
 import graph.Vertex;
 import graph.VertexOfDualGraph;
-import graphPreparation.SweepLine;
 
-public record LocalizationPoints(HashSet<Vertex> newVertices) {
+public record LocalizationPoints(WeightedPoints points) {
+
+    public LocalizationPoints(Collection<Vertex> newVertices) {
+        this(WeightedPoints.of(newVertices));
+    }
 
     public HashMap<VertexOfDualGraph, ArrayList<Vertex>> findFacesForPoints(Graph<VertexOfDualGraph> dualGraph) {
-        ArrayList<EdgeOfGraph<Vertex>> diagonalList = new ArrayList<>();
-        HashMap<EdgeOfGraph<Vertex>, VertexOfDualGraph> returnFromSimplification = new HashMap<>();
-        CoordinateConstraintsForFace coordConst;
-        EdgeOfGraph<Vertex> diagonal;
-        for (VertexOfDualGraph ver : dualGraph.getEdges().keySet()) {
-            coordConst = new CoordinateConstraintsForFace(ver.getVerticesOfFace());
-            diagonal = new EdgeOfGraph<>(
-                    new Vertex(0, coordConst.getMinX(), coordConst.getMinY()),
-                    new Vertex(0, coordConst.getMaxX(), coordConst.getMaxY()), 0
-            );
+        return findFacesForPoints(new FaceIndex(dualGraph.getEdges().keySet()));
+    }
 
-            diagonalList.add(diagonal);
-            returnFromSimplification.put(diagonal, ver);
+    /**
+     * Localization with an index built once, for example for several batches of points
+     */
+    public HashMap<VertexOfDualGraph, ArrayList<Vertex>> findFacesForPoints(FaceIndex faceIndex) {
+        List<Vertex> vertices = points.toVertices();
+        VertexOfDualGraph[] faces = faceIndex.findFaces(vertices);
+        HashMap<Vertex, VertexOfDualGraph> ans = new HashMap<>();
+        for (int i = 0; i < faces.length; i++) {
+            if (faces[i] != null) {
+                ans.put(vertices.get(i), faces[i]);
+            }
         }
-        SweepLine sp = new SweepLine();
-        HashMap<Vertex, VertexOfDualGraph> ans = sp.findFacesOfVertices(
-                diagonalList,
-                returnFromSimplification,
-                this.newVertices
-        );
         HashMap<VertexOfDualGraph, ArrayList<Vertex>> ans1 = new HashMap<>();
         for (Vertex v : ans.keySet()) {
             VertexOfDualGraph face = ans.get(v);
@@ -0,0 +1,49 @@
+package addingPoints;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import graph.Vertex;
+
+/**
+ * Weighted points (buildings) in primitive arrays, point i is (ids[i], x[i], y[i]) with weight weights[i]
+ */
+public record WeightedPoints(long[] ids, double[] x, double[] y, double[] weights) {
+
+    public WeightedPoints {
+        if (x.length != ids.length || y.length != ids.length || weights.length != ids.length) {
+            throw new IllegalArgumentException("Arrays of points must have the same length");
+        }
+    }
+
+    public static WeightedPoints of(Collection<? extends Vertex> vertices) {
+        int n = vertices.size();
+        WeightedPoints points = new WeightedPoints(new long[n], new double[n], new double[n], new double[n]);
+        int i = 0;
+        for (Vertex v : vertices) {
+            points.ids[i] = v.getName();
+            points.x[i] = v.x;
+            points.y[i] = v.y;
+            points.weights[i] = v.getWeight();
+            i++;
+        }
+        return points;
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public Vertex vertex(int i) {
+        return new Vertex(ids[i], x[i], y[i], weights[i]);
+    }
+
+    public List<Vertex> toVertices() {
+        List<Vertex> vertices = new ArrayList<>(size());
+        for (int i = 0; i < size(); i++) {
+            vertices.add(vertex(i));
+        }
+        return vertices;
+    }
+}
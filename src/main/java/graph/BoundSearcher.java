@@ -3,8 +3,8 @@ package graph;
 import static java.lang.Double.max;
 import static java.lang.Math.abs;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -82,32 +82,39 @@ public class BoundSearcher {
     public static List<Vertex> findBound(Graph<Vertex> graph,
                                          Set<VertexOfDualGraph> part,
                                          Map<Vertex, VertexOfDualGraph> comparisonForDualGraph) {
+        PlanarTopology topology = graph.getTopology();
+        int[] topologyFaces = topology == null ? null : topology.faceIds(part);
+        if (topologyFaces != null) {
+            return findBound(topology, topologyFaces);
+        }
 
         final int partSize = part.size();
         final int estimatedVertices = partSize * 4;
 
         List<VertexOfDualGraph> orderedFaces = new ArrayList<>(part);
         List<List<Vertex>> verticesByFaces = new ArrayList<>(partSize);
-        List<Map<Vertex, Integer>> vertexPositionInFace = new ArrayList<>(partSize);
-        Map<Vertex, Integer> numberOfFaces = new HashMap<>(estimatedVertices);
+        VertexIndex<Vertex> index = new VertexIndex<>();
+        List<int[]> vertexIdsByFaces = new ArrayList<>(partSize);
+        int[] numberOfFaces = new int[estimatedVertices];
         Map<Long, Integer> edgeToFaceIndex = new HashMap<>(estimatedVertices * 2);
-        Set<Vertex> allVertices = new HashSet<>(estimatedVertices);
 
         for (int i = 0; i < partSize; i++) {
             List<Vertex> faceVertices = comparisonForDualGraph.get(orderedFaces.get(i)).getVerticesOfFace();
             verticesByFaces.add(faceVertices);
 
             final int faceSize = faceVertices.size();
-            HashMap<Vertex, Integer> posMap = new HashMap<>(faceSize + faceSize / 3); // load factor
-
+            int[] faceIds = new int[faceSize];
+            for (int j = 0; j < faceSize; j++) {
+                faceIds[j] = index.intern(faceVertices.get(j));
+                if (faceIds[j] == numberOfFaces.length) {
+                    numberOfFaces = Arrays.copyOf(numberOfFaces, 2 * numberOfFaces.length + 1);
+                }
+                numberOfFaces[faceIds[j]]++;
+            }
             for (int j = 0; j < faceSize; j++) {
-                Vertex current = faceVertices.get(j);
-                numberOfFaces.merge(current, 1, Integer::sum);
-                edgeToFaceIndex.put(computeEdgeKey(current, faceVertices.get((j + 1) % faceSize)), i);
-                allVertices.add(current);
-                posMap.put(current, j);
+                edgeToFaceIndex.put(computeEdgeKey(faceIds[j], faceIds[(j + 1) % faceSize]), i);
             }
-            vertexPositionInFace.add(posMap);
+            vertexIdsByFaces.add(faceIds);
         }
 
         //Assertions.assertTrue(graph.isConnected());
@@ -116,8 +123,8 @@ public class BoundSearcher {
 
         Map<Vertex, TreeSet<EdgeOfGraph<Vertex>>> arrangedEdges = partSubgraph.arrangeByAngle();
 
-        Vertex start = findLeftmostVertex(allVertices);
-        List<Vertex> bound = new ArrayList<>(allVertices.size());
+        Vertex start = findLeftmostVertex(index.vertices());
+        List<Vertex> bound = new ArrayList<>(index.size());
         bound.add(start);
 
         EdgeOfGraph<Vertex> startEdge = findMaxEdgeLessThanPiOver2(arrangedEdges.get(start));
@@ -128,20 +135,21 @@ public class BoundSearcher {
         EdgeOfGraph<Vertex> prevEdge = new EdgeOfGraph<>(startEdge.end, startEdge.begin, 0);
         Vertex current = startEdge.end;
 
-        int faceIndex = findCommonFaceFast(startEdge.begin, startEdge.end, edgeToFaceIndex);
+        int faceIndex = findCommonFaceFast(startEdge.begin, startEdge.end, index, edgeToFaceIndex);
 
         while (!current.equals(start)) {
             bound.add(current);
             Vertex next;
+            int currentId = index.id(current);
 
-            if (numberOfFaces.get(current) > 1) {
+            if (numberOfFaces[currentId] > 1) {
                 EdgeOfGraph<Vertex> edge = findNextEdge(prevEdge, arrangedEdges.get(current));
                 assert edge != null;
-                faceIndex = findCommonFaceFast(edge.begin, edge.end, edgeToFaceIndex);
+                faceIndex = findCommonFaceFast(edge.begin, edge.end, index, edgeToFaceIndex);
                 next = edge.end;
             } else {
                 List<Vertex> face = verticesByFaces.get(faceIndex);
-                int currentPos = vertexPositionInFace.get(faceIndex).get(current);
+                int currentPos = positionInFace(vertexIdsByFaces.get(faceIndex), currentId);
                 next = face.get((currentPos + 1) % face.size());
             }
 
@@ -152,19 +160,149 @@ public class BoundSearcher {
         return bound;
     }
 
-    private static long computeEdgeKey(Vertex v1, Vertex v2) {
-        String s = v1.name + "_" + v2.name;
-        return s.hashCode();
+    /**
+     * Same walk as above on half-edge structure of the whole graph: edges of subgraph of the part
+     * are darts with the face of the dart or of its twin in the part, number of faces of a vertex
+     * is the number of its darts with faces in the part
+     */
+    private static List<Vertex> findBound(PlanarTopology topology, int[] faceIds) {
+        HalfEdgeGraph<Vertex> halfEdges = topology.halfEdges();
+        CompactGraph<Vertex> compactGraph = halfEdges.compactGraph();
+        boolean[] inPart = new boolean[halfEdges.facesNumber()];
+        for (int face : faceIds) {
+            inPart[face] = true;
+        }
+
+        int start = -1;
+        int verticesNumber = 0;
+        for (int face : faceIds) {
+            for (int i = halfEdges.faceBegin(face); i < halfEdges.faceEnd(face); i++) {
+                int v = halfEdges.target(halfEdges.faceDart(i));
+                verticesNumber++;
+                if (start == -1 || isLefter(compactGraph.vertex(v), compactGraph.vertex(start))) {
+                    start = v;
+                }
+            }
+        }
+        List<Vertex> bound = new ArrayList<>(verticesNumber);
+        bound.add(compactGraph.vertex(start));
+
+        int startDart = findMaxDartLessThanPiOver2(halfEdges, inPart, start);
+        double startAngle = halfEdges.angle(startDart);
+        Assertions.assertTrue((0 <= startAngle && startAngle < Math.PI / 2.0) ||
+                (3.0 * Math.PI / 2.0) <= startAngle && startAngle < 2 * Math.PI);
+
+        int prevDart = halfEdges.twin(startDart);
+        int current = halfEdges.target(startDart);
+        int face = commonFace(halfEdges, inPart, startDart);
+
+        while (current != start) {
+            bound.add(compactGraph.vertex(current));
+            int nextDart;
+            if (facesNumber(halfEdges, inPart, current) > 1) {
+                nextDart = halfEdges.prevAroundVertex(prevDart);
+                while (!inSubgraph(halfEdges, inPart, nextDart)) {
+                    nextDart = halfEdges.prevAroundVertex(nextDart);
+                }
+                face = commonFace(halfEdges, inPart, nextDart);
+            } else {
+                nextDart = dartOfFace(halfEdges, current, face);
+            }
+            prevDart = halfEdges.twin(nextDart);
+            current = halfEdges.target(nextDart);
+        }
+
+        return bound;
+    }
+
+    private static boolean isLefter(Vertex v, Vertex leftmost) {
+        return v.x < leftmost.x || (v.x == leftmost.x && v.y > leftmost.y);
+    }
+
+    private static boolean inSubgraph(HalfEdgeGraph<Vertex> halfEdges, boolean[] inPart, int dart) {
+        int twin = halfEdges.twin(dart);
+        return inPart[halfEdges.faceOfDart(dart)] || (twin != -1 && inPart[halfEdges.faceOfDart(twin)]);
+    }
+
+    private static int facesNumber(HalfEdgeGraph<Vertex> halfEdges, boolean[] inPart, int vertex) {
+        CompactGraph<Vertex> compactGraph = halfEdges.compactGraph();
+        int count = 0;
+        for (int dart = compactGraph.begin(vertex); dart < compactGraph.end(vertex); dart++) {
+            if (inPart[halfEdges.faceOfDart(dart)]) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static int commonFace(HalfEdgeGraph<Vertex> halfEdges, boolean[] inPart, int dart) {
+        if (inPart[halfEdges.faceOfDart(dart)]) {
+            return halfEdges.faceOfDart(dart);
+        }
+        int twin = halfEdges.twin(dart);
+        if (twin != -1 && inPart[halfEdges.faceOfDart(twin)]) {
+            return halfEdges.faceOfDart(twin);
+        }
+        CompactGraph<Vertex> compactGraph = halfEdges.compactGraph();
+        throw new RuntimeException("Can't find common face for edge " +
+                compactGraph.vertex(halfEdges.origin(dart)).getName() + " -> " +
+                compactGraph.vertex(halfEdges.target(dart)).getName());
+    }
+
+    private static int dartOfFace(HalfEdgeGraph<Vertex> halfEdges, int vertex, int face) {
+        CompactGraph<Vertex> compactGraph = halfEdges.compactGraph();
+        for (int dart = compactGraph.begin(vertex); dart < compactGraph.end(vertex); dart++) {
+            if (halfEdges.faceOfDart(dart) == face) {
+                return dart;
+            }
+        }
+        throw new RuntimeException("Vertex is not in face");
+    }
+
+    /**
+     * Dart of subgraph with the max angle less than pi / 2, otherwise with the max angle
+     */
+    private static int findMaxDartLessThanPiOver2(HalfEdgeGraph<Vertex> halfEdges, boolean[] inPart, int vertex) {
+        int best = -1;
+        int last = -1;
+        for (int i = 0; i < halfEdges.sortedDegree(vertex); i++) {
+            int dart = halfEdges.sortedDart(vertex, i);
+            if (!inSubgraph(halfEdges, inPart, dart)) {
+                continue;
+            }
+            last = dart;
+            if (halfEdges.angle(dart) < Math.PI / 2) {
+                best = dart;
+            }
+        }
+        return best == -1 ? last : best;
+    }
+
+    private static long computeEdgeKey(int id1, int id2) {
+        return ((long) id1 << 32) | id2;
+    }
+
+    /**
+     * Последнее вхождение вершины в грань
+     */
+    private static int positionInFace(int[] faceIds, int id) {
+        for (int j = faceIds.length - 1; j >= 0; j--) {
+            if (faceIds[j] == id) {
+                return j;
+            }
+        }
+        throw new RuntimeException("Vertex is not in face");
     }
 
     private static int findCommonFaceFast(Vertex v1, Vertex v2,
+                                          VertexIndex<Vertex> index,
                                           Map<Long, Integer> edgeToFaceIndex) {
-        long key = computeEdgeKey(v1, v2);
-        Integer faceIndex = edgeToFaceIndex.get(key);
+        int id1 = index.id(v1);
+        int id2 = index.id(v2);
+        Integer faceIndex = id1 == -1 || id2 == -1 ? null : edgeToFaceIndex.get(computeEdgeKey(id1, id2));
 
-        if (faceIndex == null) {
-            key = computeEdgeKey(v2, v1);
-            faceIndex = edgeToFaceIndex.get(key);
+        if (faceIndex == null && id1 != -1 && id2 != -1) {
+            faceIndex = edgeToFaceIndex.get(computeEdgeKey(id2, id1));
         }
 
         if (faceIndex == null) {
@@ -182,7 +320,7 @@ public class BoundSearcher {
         return result == null ? orderedEdges.last() : result;
     }
 
-    private static Vertex findLeftmostVertex(Set<Vertex> partition) {
+    private static Vertex findLeftmostVertex(List<Vertex> partition) {
         Vertex leftmost = null;
         for (Vertex v : partition) {
             if (leftmost == null || v.x < leftmost.x ||
@@ -0,0 +1,295 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable compressed sparse row (CSR) representation of {@link Graph}.
+ * Vertices get dense int ids in the iteration order of the source graph, arcs of vertex {@code v}
+ * occupy positions {@code [begin(v), end(v))} of the arc arrays in the order of the source adjacency map,
+ * so algorithms visit vertices and edges in the same order as on {@link Graph}.
+ * Only the flow array is mutable - it is the working state of max flow algorithms.
+ */
+public class CompactGraph<T extends Vertex> {
+    private final VertexIndex<T> index;
+    private final int[] offsets;
+    private final int[] targets;
+    private final int[] reverse;
+    /**
+     * Incoming arcs in CSR format, null if every arc has a reverse one
+     * (then incoming arcs are reverses of outgoing ones)
+     */
+    private final Transpose transpose;
+    private final double[] length;
+    private final double[] bandwidth;
+    private final double[] flow;
+
+    /**
+     * Builds CSR in one pass over the adjacency map of {@code graph}
+     */
+    public CompactGraph(Graph<T> graph) {
+        HashMap<T, HashMap<T, Edge>> edges = graph.getEdges();
+        this.index = new VertexIndex<>(edges.keySet());
+        int rows = index.size();
+        int arcsNumber = graph.edgesNumber();
+        int[] rowOffsets = new int[rows + 1];
+        this.targets = new int[arcsNumber];
+        this.length = new double[arcsNumber];
+        this.bandwidth = new double[arcsNumber];
+        this.flow = new double[arcsNumber];
+        int arc = 0;
+        for (int v = 0; v < rows; v++) {
+            rowOffsets[v] = arc;
+            for (Map.Entry<T, Edge> entry : edges.get(index.vertex(v)).entrySet()) {
+                // vertex which is only an end of some edge gets empty adjacency list
+                int target = index.intern(entry.getKey());
+                Edge edge = entry.getValue();
+                targets[arc] = target;
+                length[arc] = edge.length;
+                bandwidth[arc] = edge.getBandwidth();
+                flow[arc] = edge.flow;
+                arc++;
+            }
+        }
+        if (index.size() > rows) {
+            rowOffsets = Arrays.copyOf(rowOffsets, index.size() + 1);
+        }
+        Arrays.fill(rowOffsets, rows, rowOffsets.length, arc);
+        this.offsets = rowOffsets;
+        Transpose incoming = buildTranspose();
+        this.reverse = findReverseArcs(incoming);
+        boolean symmetric = true;
+        for (int reverseArc : reverse) {
+            symmetric &= reverseArc != -1;
+        }
+        this.transpose = symmetric ? null : incoming;
+    }
+
+    /**
+     * Incoming arcs of vertex {@code v} are {@code arcs[offsets[v], offsets[v + 1])}, their origins are in sources
+     */
+    private record Transpose(int[] offsets, int[] arcs, int[] sources) {}
+
+    private Transpose buildTranspose() {
+        int n = index.size();
+        int m = targets.length;
+        int[] inOffsets = new int[n + 1];
+        for (int arc = 0; arc < m; arc++) {
+            inOffsets[targets[arc] + 1]++;
+        }
+        for (int v = 0; v < n; v++) {
+            inOffsets[v + 1] += inOffsets[v];
+        }
+        int[] inArcs = new int[m];
+        int[] inSources = new int[m];
+        int[] position = Arrays.copyOf(inOffsets, n);
+        for (int u = 0; u < n; u++) {
+            for (int arc = offsets[u]; arc < offsets[u + 1]; arc++) {
+                inSources[position[targets[arc]]] = u;
+                inArcs[position[targets[arc]]++] = arc;
+            }
+        }
+        return new Transpose(inOffsets, inArcs, inSources);
+    }
+
+    /**
+     * For every arc u->v finds arc v->u (or -1) in O(V + E) using incoming arcs lists
+     */
+    private int[] findReverseArcs(Transpose incoming) {
+        int n = index.size();
+        int m = targets.length;
+        int[] inOffsets = incoming.offsets();
+        int[] inArcs = incoming.arcs();
+        int[] inSources = incoming.sources();
+        int[] result = new int[m];
+        Arrays.fill(result, -1);
+        int[] arcTo = new int[n];
+        Arrays.fill(arcTo, -1);
+        for (int v = 0; v < n; v++) {
+            for (int arc = offsets[v]; arc < offsets[v + 1]; arc++) {
+                arcTo[targets[arc]] = arc;
+            }
+            for (int i = inOffsets[v]; i < inOffsets[v + 1]; i++) {
+                result[inArcs[i]] = arcTo[inSources[i]];
+            }
+            for (int arc = offsets[v]; arc < offsets[v + 1]; arc++) {
+                arcTo[targets[arc]] = -1;
+            }
+        }
+        return result;
+    }
+
+    public int verticesNumber() {
+        return index.size();
+    }
+
+    public int edgesNumber() {
+        return targets.length;
+    }
+
+    /**
+     * @return id of vertex or -1 if graph does not contain it
+     */
+    public int id(T vertex) {
+        return index.id(vertex);
+    }
+
+    public T vertex(int id) {
+        return index.vertex(id);
+    }
+
+    public List<T> verticesArray() {
+        return index.vertices();
+    }
+
+    public VertexIndex<T> index() {
+        return index;
+    }
+
+    /**
+     * @return index of the first outgoing arc of vertex
+     */
+    public int begin(int vertex) {
+        return offsets[vertex];
+    }
+
+    /**
+     * @return index after the last outgoing arc of vertex
+     */
+    public int end(int vertex) {
+        return offsets[vertex + 1];
+    }
+
+    public int degree(int vertex) {
+        return offsets[vertex + 1] - offsets[vertex];
+    }
+
+    public int target(int arc) {
+        return targets[arc];
+    }
+
+    /**
+     * @return index of arc in opposite direction or -1
+     */
+    public int reverse(int arc) {
+        return reverse[arc];
+    }
+
+    /**
+     * Incoming arcs of {@code vertex} occupy positions {@code [incomingBegin(vertex), incomingEnd(vertex))}.
+     * If every arc has a reverse one, these are the positions of outgoing arcs and no extra arrays are kept,
+     * otherwise the transpose built together with reverse arcs is used
+     */
+    public int incomingBegin(int vertex) {
+        return transpose == null ? offsets[vertex] : transpose.offsets()[vertex];
+    }
+
+    public int incomingEnd(int vertex) {
+        return transpose == null ? offsets[vertex + 1] : transpose.offsets()[vertex + 1];
+    }
+
+    /**
+     * @return arc entering the vertex at position of incoming arcs
+     */
+    public int incomingArc(int position) {
+        return transpose == null ? reverse[position] : transpose.arcs()[position];
+    }
+
+    /**
+     * @return origin of the arc at position of incoming arcs
+     */
+    public int incomingSource(int position) {
+        return transpose == null ? targets[position] : transpose.sources()[position];
+    }
+
+    public double length(int arc) {
+        return length[arc];
+    }
+
+    public double bandwidth(int arc) {
+        return bandwidth[arc];
+    }
+
+    public double flow(int arc) {
+        return flow[arc];
+    }
+
+    public void addFlow(int arc, double value) {
+        flow[arc] += value;
+    }
+
+    public void setFlow(int arc, double value) {
+        flow[arc] = value;
+    }
+
+    /**
+     * Copies flows of arcs to the corresponding edges of {@code graph}
+     */
+    public void writeFlow(Graph<T> graph) {
+        for (int v = 0; v < index.size(); v++) {
+            HashMap<T, Edge> row = graph.getEdges().get(index.vertex(v));
+            for (int arc = offsets[v]; arc < offsets[v + 1]; arc++) {
+                row.get(index.vertex(targets[arc])).flow = flow[arc];
+            }
+        }
+    }
+
+    public Graph<T> toGraph() {
+        Graph<T> graph = new Graph<>();
+        for (T vertex : index.vertices()) {
+            graph.addVertex(vertex);
+        }
+        for (int v = 0; v < index.size(); v++) {
+            HashMap<T, Edge> row = graph.getEdges().get(index.vertex(v));
+            for (int arc = offsets[v]; arc < offsets[v + 1]; arc++) {
+                row.put(index.vertex(targets[arc]), new Edge(length[arc], flow[arc], bandwidth[arc]));
+            }
+        }
+        return graph;
+    }
+
+    /**
+     * Connected components of the graph without edge directions,
+     * in the order of their first vertex
+     */
+    public List<Set<T>> splitForConnectedComponents() {
+        int n = index.size();
+        int[] parent = new int[n];
+        for (int v = 0; v < n; v++) {
+            parent[v] = v;
+        }
+        for (int v = 0; v < n; v++) {
+            for (int arc = offsets[v]; arc < offsets[v + 1]; arc++) {
+                int a = findRoot(parent, v);
+                int b = findRoot(parent, targets[arc]);
+                if (a != b) {
+                    parent[Math.max(a, b)] = Math.min(a, b);
+                }
+            }
+        }
+        List<Set<T>> components = new ArrayList<>();
+        int[] componentOfRoot = new int[n];
+        for (int v = 0; v < n; v++) {
+            int root = findRoot(parent, v);
+            if (root == v) {
+                componentOfRoot[v] = components.size();
+                components.add(new HashSet<>());
+            }
+            components.get(componentOfRoot[root]).add(index.vertex(v));
+        }
+        return components;
+    }
+
+    private static int findRoot(int[] parent, int v) {
+        while (parent[v] != v) {
+            parent[v] = parent[parent[v]];
+            v = parent[v];
+        }
+        return v;
+    }
+}
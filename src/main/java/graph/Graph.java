@@ -9,6 +9,10 @@ public class Graph<T extends Vertex> {
     private final HashMap<T, HashMap<T, Edge>> edges;
     private HashMap<Vertex, HashMap<Vertex, VertexOfDualGraph>> edgeToDualVertex;
     private HashMap<T, TreeSet<EdgeOfGraph<T>>> vertexToSortedEdges;
+    /*
+     * topology of prepared planar graph, dropped on any change of edges
+     */
+    private PlanarTopology topology;
 
     public Graph() {
         this.edges = new HashMap<>();
@@ -58,6 +62,7 @@ public class Graph<T extends Vertex> {
     }
 
     public void deleteVertex(T v) {
+        topology = null;
         edges.remove(v);
         for (T begin : edges.keySet()) {
             edges.get(begin).remove(v);
@@ -65,12 +70,31 @@ public class Graph<T extends Vertex> {
 
     }
 
+    /*
+     * same as deleteVertex for graphs where every edge has a reverse edge,
+     * but visits only neighbors of v instead of all vertices
+     */
+    public void deleteVertexWithReverseEdges(T v) {
+        topology = null;
+        HashMap<T, Edge> neighbors = edges.remove(v);
+        if (neighbors == null) {
+            return;
+        }
+        for (T neighbor : neighbors.keySet()) {
+            HashMap<T, Edge> neighborEdges = edges.get(neighbor);
+            if (neighborEdges != null) {
+                neighborEdges.remove(v);
+            }
+        }
+    }
+
     public Double verticesWeight() {
         return verticesArray().stream().mapToDouble(T::getWeight).sum();
     }
 
     public void addEdge(T begin, T end, double length, double bandwidth) {
         if (begin.equals(end)) return;
+        topology = null;
         addVertex(begin);
         addVertex(end);
         edges.get(begin).put(end, new Edge(length, bandwidth));
@@ -79,6 +103,7 @@ public class Graph<T extends Vertex> {
 
     public void addEdge(T begin, T end, double length) {
         if (begin.equals(end)) return;
+        topology = null;
         addVertex(begin);
         addVertex(end);
         edges.get(begin).put(end, new Edge(length));
@@ -101,6 +126,7 @@ public class Graph<T extends Vertex> {
     }
 
     public void deleteEdge(T begin, T end) {
+        topology = null;
         if (edges.get(begin) != null) {
             edges.get(begin).remove(end);
         }
@@ -194,41 +220,7 @@ public class Graph<T extends Vertex> {
     }
 
     public List<Set<T>> splitForConnectedComponents() {
-        // make undirected
-        Graph<T> undirGraph = makeUndirectedGraph();
-        List<Set<T>> component = new ArrayList<>();
-        Set<T> visited = new HashSet<>();
-        Set<T> actualComp = new HashSet<>();
-        for (T begin : edges.keySet()) {
-            if (!visited.contains(begin)) {
-                actualComp.add(begin);
-                visited.add(begin);
-                undirGraph.dfsComponents(begin, actualComp, visited);
-                component.add(actualComp);
-                actualComp = new HashSet<>();
-            }
-        }
-        return component;
-    }
-
-    private void dfsComponents(T begin, Set<T> actualComp, Set<T> visited) {
-        Stack<T> stack = new Stack<>();
-        stack.push(begin);
-        visited.add(begin);
-
-        while (!stack.isEmpty()) {
-            T current = stack.pop();
-            actualComp.add(current);
-
-            if (edges.get(current) != null) {
-                for (T neighbor : edges.get(current).keySet()) {
-                    if (!visited.contains(neighbor)) {
-                        stack.push(neighbor);
-                        visited.add(neighbor);
-                    }
-                }
-            }
-        }
+        return new CompactGraph<>(this).splitForConnectedComponents();
     }
 
     public Graph<T> makeUndirectedGraph() {
@@ -421,6 +413,7 @@ public class Graph<T extends Vertex> {
     }
 
     public void replaceWith(Graph<T> other) {
+        this.topology = null;
         this.edges.clear();
         for (T v : other.getEdges().keySet()) {
             this.addVertex(v);
@@ -432,6 +425,17 @@ public class Graph<T extends Vertex> {
         }
     }
 
+    /**
+     * @return topology of prepared planar graph or null if it was not set or graph was changed after that
+     */
+    public PlanarTopology getTopology() {
+        return topology;
+    }
+
+    public void setTopology(PlanarTopology topology) {
+        this.topology = topology;
+    }
+
     public void resetSortedEdgesCache() {
         this.vertexToSortedEdges = null;
     }
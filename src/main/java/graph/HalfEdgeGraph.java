@@ -0,0 +1,235 @@
+package graph;
+
+import java.util.Arrays;
+
+/**
+ * Immutable half-edge (DCEL) representation of an undirected planar graph over {@link CompactGraph}.
+ * Dart ids are arc ids of the compact graph, twin of a dart is its reverse arc.
+ * Darts of every vertex are sorted by angle, the next dart of a face is the dart after the twin
+ * in this order, so {@link #next}, {@link #twin}, {@link #nextAroundVertex} and {@link #faceOfDart}
+ * are array lookups. Faces are numbered in the order of their first dart, darts of face {@code f}
+ * occupy positions {@code [faceBegin(f), faceEnd(f))} starting with this first dart.
+ * Darts with the same angle from one vertex are kept once in the order around vertex,
+ * such darts share position with the kept one (as edges in TreeSet of {@link Graph#arrangeByAngle}).
+ */
+public class HalfEdgeGraph<T extends Vertex> {
+    private final CompactGraph<T> graph;
+    private final int[] origin;
+    private final double[] angle;
+    /**
+     * Darts of vertex v sorted by angle are sortedDarts[begin(v), sortedEnd[v])
+     */
+    private final int[] sortedDarts;
+    private final int[] sortedEnd;
+    /**
+     * Index of dart in sortedDarts
+     */
+    private final int[] position;
+    private final int[] next;
+    private final int[] faceOfDart;
+    private final int[] faceOffsets;
+    private final int[] faceDarts;
+    private final int facesNumber;
+
+    public HalfEdgeGraph(CompactGraph<T> graph) {
+        this.graph = graph;
+        int n = graph.verticesNumber();
+        int m = graph.edgesNumber();
+        this.origin = new int[m];
+        this.angle = new double[m];
+        for (int v = 0; v < n; v++) {
+            for (int dart = graph.begin(v); dart < graph.end(v); dart++) {
+                origin[dart] = v;
+                angle[dart] = angle(graph.vertex(v), graph.vertex(graph.target(dart)));
+            }
+        }
+        this.sortedDarts = new int[m];
+        this.sortedEnd = new int[n];
+        this.position = new int[m];
+        for (int v = 0; v < n; v++) {
+            sortAroundVertex(v);
+        }
+
+        this.next = new int[m];
+        for (int dart = 0; dart < m; dart++) {
+            int v = graph.target(dart);
+            int begin = graph.begin(v);
+            int size = sortedEnd[v] - begin;
+            if (size == 0) {
+                next[dart] = -1;
+                continue;
+            }
+            int twin = graph.reverse(dart);
+            int last = twin != -1 ? position[twin] : lastNotGreater(begin, sortedEnd[v], angle(graph.vertex(v),
+                    graph.vertex(origin[dart])));
+            next[dart] = sortedDarts[last + 1 == sortedEnd[v] ? begin : last + 1];
+        }
+
+        this.faceOfDart = new int[m];
+        Arrays.fill(faceOfDart, -1);
+        int[] offsets = new int[m + 1];
+        int[] darts = new int[m];
+        int faces = 0;
+        int size = 0;
+        for (int first = 0; first < m; first++) {
+            if (faceOfDart[first] != -1) {
+                continue;
+            }
+            offsets[faces] = size;
+            int dart = first;
+            do {
+                faceOfDart[dart] = faces;
+                darts[size++] = dart;
+                dart = next[dart];
+            } while (dart != -1 && dart != first && faceOfDart[dart] == -1);
+            faces++;
+        }
+        offsets[faces] = size;
+        this.facesNumber = faces;
+        this.faceOffsets = Arrays.copyOf(offsets, faces + 1);
+        this.faceDarts = darts;
+    }
+
+    /**
+     * Stable insertion sort of darts of v by angle, degrees of planar graphs are small
+     */
+    private void sortAroundVertex(int v) {
+        int begin = graph.begin(v);
+        int end = graph.end(v);
+        for (int dart = begin; dart < end; dart++) {
+            int i = dart;
+            while (i > begin && angle[sortedDarts[i - 1]] > angle[dart]) {
+                sortedDarts[i] = sortedDarts[i - 1];
+                i--;
+            }
+            sortedDarts[i] = dart;
+        }
+        int size = 0;
+        for (int i = begin; i < end; i++) {
+            int dart = sortedDarts[i];
+            if (size == 0 || angle[sortedDarts[begin + size - 1]] != angle[dart]) {
+                sortedDarts[begin + size++] = dart;
+            }
+            position[dart] = begin + size - 1;
+        }
+        sortedEnd[v] = begin + size;
+    }
+
+    /**
+     * @return last position in [begin, end) of sortedDarts with angle not greater than value, otherwise end - 1
+     */
+    private int lastNotGreater(int begin, int end, double value) {
+        int lo = begin;
+        int hi = end;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (angle[sortedDarts[mid]] <= value) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo == begin ? end - 1 : lo - 1;
+    }
+
+    static double angle(Vertex begin, Vertex end) {
+        double angle = Math.atan2(end.y - begin.y, end.x - begin.x);
+        return angle < 0 ? angle + 2 * Math.PI : angle;
+    }
+
+    public CompactGraph<T> compactGraph() {
+        return graph;
+    }
+
+    public int verticesNumber() {
+        return graph.verticesNumber();
+    }
+
+    public int dartsNumber() {
+        return origin.length;
+    }
+
+    public int origin(int dart) {
+        return origin[dart];
+    }
+
+    public int target(int dart) {
+        return graph.target(dart);
+    }
+
+    /**
+     * @return dart in opposite direction or -1
+     */
+    public int twin(int dart) {
+        return graph.reverse(dart);
+    }
+
+    /**
+     * @return next dart of the face of dart or -1 if target of dart has no outgoing darts
+     */
+    public int next(int dart) {
+        return next[dart];
+    }
+
+    /**
+     * @return dart from the same origin next by angle counterclockwise
+     */
+    public int nextAroundVertex(int dart) {
+        int v = origin[dart];
+        int following = position[dart] + 1;
+        return sortedDarts[following == sortedEnd[v] ? graph.begin(v) : following];
+    }
+
+    /**
+     * @return dart from the same origin previous by angle (next clockwise)
+     */
+    public int prevAroundVertex(int dart) {
+        int v = origin[dart];
+        int previous = position[dart] == graph.begin(v) ? sortedEnd[v] - 1 : position[dart] - 1;
+        return sortedDarts[previous];
+    }
+
+    /**
+     * @return angle of dart in [0, 2 * pi)
+     */
+    public double angle(int dart) {
+        return angle[dart];
+    }
+
+    /**
+     * @return number of darts of vertex in the order by angle (without darts with repeated angle)
+     */
+    public int sortedDegree(int vertex) {
+        return sortedEnd[vertex] - graph.begin(vertex);
+    }
+
+    /**
+     * @return i-th dart of vertex in the order by angle
+     */
+    public int sortedDart(int vertex, int i) {
+        return sortedDarts[graph.begin(vertex) + i];
+    }
+
+    public int faceOfDart(int dart) {
+        return faceOfDart[dart];
+    }
+
+    public int facesNumber() {
+        return facesNumber;
+    }
+
+    public int faceBegin(int face) {
+        return faceOffsets[face];
+    }
+
+    public int faceEnd(int face) {
+        return faceOffsets[face + 1];
+    }
+
+    /**
+     * @return dart at position of faceDarts, positions of face are [faceBegin(face), faceEnd(face))
+     */
+    public int faceDart(int position) {
+        return faceDarts[position];
+    }
+}
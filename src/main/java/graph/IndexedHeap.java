@@ -0,0 +1,155 @@
+package graph;
+
+import java.util.Arrays;
+
+/**
+ * Indexed 4-ary min-heap of dense int ids with double keys.
+ * Every id is stored at most once, so {@link #push} either inserts the id or decreases its key,
+ * and the heap never grows beyond the number of ids. Equal keys are polled in the order of
+ * their last push (insertion or decrease), the earliest first.
+ * This order differs from java.util.PriorityQueue, which Dijkstra used before and which gives no order
+ * for equal keys: when several targets are at the same distance, as when source and sink boundaries
+ * share corner vertices, the chosen target and with it the partition changed.
+ */
+public class IndexedHeap {
+    private static final int ARITY = 4;
+    private final int[] heap;
+    /**
+     * position of id in heap or -1
+     */
+    private final int[] position;
+    private final double[] keys;
+    /**
+     * number of the last push of id, breaks ties between equal keys
+     */
+    private final long[] order;
+    private long pushes;
+    private int size;
+
+    /**
+     * @param capacity ids must be in {@code [0, capacity)}
+     */
+    public IndexedHeap(int capacity) {
+        this.heap = new int[capacity];
+        this.position = new int[capacity];
+        this.keys = new double[capacity];
+        this.order = new long[capacity];
+        Arrays.fill(position, -1);
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(int id) {
+        return position[id] != -1;
+    }
+
+    /**
+     * @return key of id which is in the heap now or was polled last time
+     */
+    public double key(int id) {
+        return keys[id];
+    }
+
+    public double minKey() {
+        return keys[heap[0]];
+    }
+
+    /**
+     * Inserts id or decreases its key. Larger key for id in the heap is ignored
+     * @return true if heap changed
+     */
+    public boolean push(int id, double key) {
+        int pos = position[id];
+        if (pos == -1) {
+            keys[id] = key;
+            order[id] = pushes++;
+            heap[size] = id;
+            position[id] = size;
+            siftUp(size++);
+            return true;
+        }
+        if (key < keys[id]) {
+            keys[id] = key;
+            order[id] = pushes++;
+            siftUp(pos);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Removes id with minimal key
+     */
+    public int poll() {
+        int top = heap[0];
+        position[top] = -1;
+        size--;
+        if (size > 0) {
+            heap[0] = heap[size];
+            position[heap[0]] = 0;
+            siftDown(0);
+        }
+        return top;
+    }
+
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            position[heap[i]] = -1;
+        }
+        size = 0;
+    }
+
+    private boolean less(double key1, int id1, double key2, int id2) {
+        return key1 < key2 || (key1 == key2 && order[id1] < order[id2]);
+    }
+
+    private void siftUp(int pos) {
+        int id = heap[pos];
+        double key = keys[id];
+        while (pos > 0) {
+            int parent = (pos - 1) / ARITY;
+            int parentId = heap[parent];
+            if (!less(key, id, keys[parentId], parentId)) {
+                break;
+            }
+            heap[pos] = parentId;
+            position[parentId] = pos;
+            pos = parent;
+        }
+        heap[pos] = id;
+        position[id] = pos;
+    }
+
+    private void siftDown(int pos) {
+        int id = heap[pos];
+        double key = keys[id];
+        while (true) {
+            int first = pos * ARITY + 1;
+            if (first >= size) {
+                break;
+            }
+            int best = first;
+            int last = Math.min(first + ARITY, size);
+            for (int child = first + 1; child < last; child++) {
+                if (less(keys[heap[child]], heap[child], keys[heap[best]], heap[best])) {
+                    best = child;
+                }
+            }
+            int bestId = heap[best];
+            if (!less(keys[bestId], bestId, key, id)) {
+                break;
+            }
+            heap[pos] = bestId;
+            position[bestId] = pos;
+            pos = best;
+        }
+        heap[pos] = id;
+        position[id] = pos;
+    }
+}
@@ -0,0 +1,106 @@
+package graph;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Immutable topology of the prepared planar graph: half-edge structure and faces of the dual graph.
+ * Built once by graph preparation and attached to the primal graph with {@link Graph#setTopology},
+ * so boundaries of regions and faces of edges are found by array lookups instead of
+ * rebuilding sorted edges and edge to face maps for every query.
+ * Face of dart u->v is the face where v follows u in {@link VertexOfDualGraph#getVerticesOfFace}.
+ */
+public class PlanarTopology {
+    private final HalfEdgeGraph<Vertex> halfEdges;
+    /**
+     * Dual vertex for every face of halfEdges, null for faces without dual vertex
+     */
+    private final VertexOfDualGraph[] faces;
+    private final HashMap<Vertex, Integer> faceIds;
+
+    /**
+     * @param faces faces of the dual graph (including the external one if it is needed),
+     *              every face is matched with half-edge face by its last and first vertices
+     */
+    public PlanarTopology(HalfEdgeGraph<Vertex> halfEdges, Collection<VertexOfDualGraph> faces) {
+        this.halfEdges = halfEdges;
+        this.faces = new VertexOfDualGraph[halfEdges.facesNumber()];
+        this.faceIds = new HashMap<>(2 * faces.size());
+        for (VertexOfDualGraph face : faces) {
+            List<Vertex> vertices = face.getVerticesOfFace();
+            if (vertices.isEmpty()) {
+                continue;
+            }
+            int dart = dart(vertices.get(vertices.size() - 1), vertices.get(0));
+            if (dart == -1) {
+                continue;
+            }
+            int id = halfEdges.faceOfDart(dart);
+            this.faces[id] = face;
+            faceIds.put(face, id);
+        }
+    }
+
+    public HalfEdgeGraph<Vertex> halfEdges() {
+        return halfEdges;
+    }
+
+    /**
+     * @return dart begin->end or -1 if there is no such edge
+     */
+    public int dart(Vertex begin, Vertex end) {
+        CompactGraph<Vertex> graph = halfEdges.compactGraph();
+        int from = graph.id(begin);
+        int to = graph.id(end);
+        if (from == -1 || to == -1) {
+            return -1;
+        }
+        for (int dart = graph.begin(from); dart < graph.end(from); dart++) {
+            if (graph.target(dart) == to) {
+                return dart;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return id of half-edge face of dual vertex or -1
+     */
+    public int faceId(VertexOfDualGraph face) {
+        Integer id = faceIds.get(face);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * @return ids of faces or null if some of them are unknown
+     */
+    public int[] faceIds(Set<VertexOfDualGraph> part) {
+        int[] ids = new int[part.size()];
+        int i = 0;
+        for (VertexOfDualGraph face : part) {
+            ids[i] = faceId(face);
+            if (ids[i++] == -1) {
+                return null;
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * @return dual vertex of half-edge face or null
+     */
+    public VertexOfDualGraph face(int id) {
+        return faces[id];
+    }
+
+    /**
+     * Same as {@code dualGraph.edgeToDualVertexMap().get(begin).get(end)} for the whole dual graph
+     * @return face of dart begin->end or null
+     */
+    public VertexOfDualGraph faceOfEdge(Vertex begin, Vertex end) {
+        int dart = dart(begin, end);
+        return dart == -1 ? null : faces[halfEdges.faceOfDart(dart)];
+    }
+}
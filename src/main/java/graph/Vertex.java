@@ -7,7 +7,6 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Random;
 
 import jakarta.validation.constraints.Size;
@@ -98,9 +97,14 @@ public class Vertex extends Point {
 	}
 	
 	
+	/**
+	 * Same value as Objects.hash(x, y, name), but without boxing and varargs array
+	 */
 	@Override
 	public int hashCode() { 
-		return Objects.hash(this.x, this.y, this.getName());
+		int result = 31 + Double.hashCode(this.x);
+		result = 31 * result + Double.hashCode(this.y);
+		return 31 * result + Long.hashCode(this.getName());
 	}
 
 	
@@ -0,0 +1,73 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Interning of vertices: every vertex gets dense int id in the order of interning.
+ * Hot paths hash a vertex once and then work with arrays indexed by id
+ * (weights, distances, previous vertices) instead of maps keyed by vertex.
+ */
+public class VertexIndex<T extends Vertex> {
+    private final HashMap<T, Integer> ids;
+    private final ArrayList<T> vertices;
+
+    public VertexIndex() {
+        this.ids = new HashMap<>();
+        this.vertices = new ArrayList<>();
+    }
+
+    public VertexIndex(Collection<? extends T> vertices) {
+        this.ids = new HashMap<>(2 * vertices.size());
+        this.vertices = new ArrayList<>(vertices.size());
+        for (T vertex : vertices) {
+            intern(vertex);
+        }
+    }
+
+    /**
+     * @return id of vertex, new id is given if vertex is met for the first time
+     */
+    public int intern(T vertex) {
+        Integer id = ids.putIfAbsent(vertex, vertices.size());
+        if (id != null) {
+            return id;
+        }
+        vertices.add(vertex);
+        return vertices.size() - 1;
+    }
+
+    /**
+     * @return id of vertex or -1 if vertex was not interned
+     */
+    public int id(T vertex) {
+        Integer id = ids.get(vertex);
+        return id == null ? -1 : id;
+    }
+
+    public T vertex(int id) {
+        return vertices.get(id);
+    }
+
+    public int size() {
+        return vertices.size();
+    }
+
+    public List<T> vertices() {
+        return Collections.unmodifiableList(vertices);
+    }
+
+    /**
+     * @return weights of vertices indexed by id
+     */
+    public double[] weights() {
+        double[] weights = new double[vertices.size()];
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = vertices.get(i).getWeight();
+        }
+        return weights;
+    }
+}
@@ -8,7 +8,9 @@ import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.HashMap;
 
+import graph.CompactGraph;
 import graph.Graph;
+import graph.PlanarTopology;
 import graph.Vertex;
 import graph.VertexOfDualGraph;
 import readWrite.CoordinateConversion;
@@ -23,6 +25,7 @@ public class GraphPreparation {
 	private final boolean isPlanar;
 	private final boolean isDual;
 	private final HashMap<Vertex, VertexOfDualGraph> comparisonForDualGraph;
+	private PlanarTopology topology;
 	public GraphPreparation() {
 		this.isPlanar = false;
 		this.isDual = false;
@@ -38,6 +41,13 @@ public class GraphPreparation {
 		return this.comparisonForDualGraph;
 	}
 	
+	/**
+	 * Топология подготовленного графа, она же сохраняется в графе, переданном в prepareGraph
+	 */
+	public PlanarTopology getTopology() {
+		return this.topology;
+	}
+	
 	public Graph<VertexOfDualGraph> prepareGraph(Graph<Vertex> gph, double inaccuracy) throws IOException {
         long startTime = System.currentTimeMillis();
 		logger.info("Number of 0 weight vertex, before correction: {}", gph.countZeroWeightVertices());
@@ -72,7 +82,9 @@ public class GraphPreparation {
 		logger.info("After sweepline graph weight: {}", gph.verticesSumWeight());
 
 		MakingDualGraph dg = new MakingDualGraph();
-		Graph<VertexOfDualGraph> dualGraph = dg.buildDualGraph(graph);
+		// после sweepLine граф уже неориентированный
+		CompactGraph<Vertex> undirGraph = new CompactGraph<>(isPlanar ? graph.makeUndirectedGraph() : graph);
+		Graph<VertexOfDualGraph> dualGraph = dg.buildDualGraph(undirGraph);
         Assertions.assertTrue(graph.isConnected());
 		for (VertexOfDualGraph v : dualGraph.verticesArray()) {
 			Assertions.assertNotNull(v.getVerticesOfFace());
@@ -82,6 +94,8 @@ public class GraphPreparation {
 		Assertions.assertTrue(dualGraph.isConnected());
 		comparisonForDualGraph.clear();
 		comparisonForDualGraph.putAll(dg.getComparison());
+		topology = dg.getTopology();
+		gph.setTopology(topology);
 		logger.info("Dual graph weight: {}", dualGraph.verticesSumWeight());
 		return dualGraph;
 	}
@@ -1,350 +1,382 @@
 package graphPreparation;
 
-import java.util.HashSet;
+import java.util.Arrays;
 
 /**
  * Interval Tree (Augmented BST) для эффективного поиска пересекающихся интервалов.
- * Реализация на основе красно-чёрного дерева.
- * 
+ * Реализация на основе красно-чёрного дерева по ключу (lo, edgeIndex).
+ * Узлы хранятся в массивах примитивов, узел 0 - общий черный лист NIL,
+ * удаленные узлы переиспользуются.
+ *
  * Операции:
  * - insert: O(log n)
  * - delete: O(log n)
  * - queryOverlapping: O(log n + k), где k — число результатов
  */
 public class IntervalTree {
-	private Node root;
-
-	private static class Node {
-		double lo, hi;
-		double maxHi;
-		int edgeIndex;
-		Node left, right, parent;
-		boolean isRed;
+	private static final int NIL = 0;
+	private static final int INITIAL_CAPACITY = 16;
+	private static final int LO = 0;
+	private static final int HI = 1;
+	private static final int MAX_HI = 2;
+	private static final int BOUNDS_FIELDS = 3;
+	private static final int EDGE = 0;
+	private static final int LEFT = 1;
+	private static final int RIGHT = 2;
+	private static final int PARENT = 3;
+	private static final int RED = 4;
+	private static final int LINKS_FIELDS = 5;
+
+	/**
+	 * Поля узла лежат рядом: bounds[3 * node + LO / HI / MAX_HI],
+	 * links[5 * node + EDGE / LEFT / RIGHT / PARENT / RED]
+	 */
+	private double[] bounds = new double[BOUNDS_FIELDS * INITIAL_CAPACITY];
+	private int[] links = new int[LINKS_FIELDS * INITIAL_CAPACITY];
+	private int capacity = INITIAL_CAPACITY;
+	private int root = NIL;
+	private int allocated = 1;
+	private int freeList = NIL;
+	private int size;
+
+	private int[] result = new int[INITIAL_CAPACITY];
+	private int resultSize;
+
+	public IntervalTree() {
+		bounds[BOUNDS_FIELDS * NIL + MAX_HI] = Double.NEGATIVE_INFINITY;
+	}
 
-		Node(double lo, double hi, int edgeIndex) {
-			this.lo = lo;
-			this.hi = hi;
-			this.maxHi = hi;
-			this.edgeIndex = edgeIndex;
-			this.isRed = true;
-		}
+	public int size() {
+		return size;
 	}
 
 	public void insert(double lo, double hi, int edgeIndex) {
-		Node newNode = new Node(lo, hi, edgeIndex);
-
-		if (root == null) {
-			root = newNode;
-			root.isRed = false;
-			return;
-		}
-
-		Node current = root;
-		Node parent = null;
-
-		while (current != null) {
+		int node = allocate(lo, hi, edgeIndex);
+		int parent = NIL;
+		int current = root;
+		while (current != NIL) {
 			parent = current;
-			current.maxHi = Math.max(current.maxHi, hi);
-			if (lo < current.lo || (lo == current.lo && edgeIndex < current.edgeIndex)) {
-				current = current.left;
-			} else {
-				current = current.right;
+			if (maxHi(current) < hi) {
+				setMaxHi(current, hi);
 			}
+			current = less(lo, edgeIndex, current) ? link(current, LEFT) : link(current, RIGHT);
 		}
-
-		newNode.parent = parent;
-		if (lo < parent.lo || (lo == parent.lo && edgeIndex < parent.edgeIndex)) {
-			parent.left = newNode;
+		setLink(node, PARENT, parent);
+		if (parent == NIL) {
+			root = node;
+		} else if (less(lo, edgeIndex, parent)) {
+			setLink(parent, LEFT, node);
 		} else {
-			parent.right = newNode;
+			setLink(parent, RIGHT, node);
 		}
-
-		fixInsert(newNode);
+		fixInsert(node);
+		size++;
 	}
 
+	/**
+	 * Удаляет интервал с началом lo для ребра edgeIndex, если он есть
+	 */
 	public void delete(double lo, int edgeIndex) {
-		Node node = findNode(root, lo, edgeIndex);
-		if (node == null) return;
-		deleteNode(node);
-	}
-
-	private Node findNode(Node node, double lo, int edgeIndex) {
-		while (node != null) {
-			if (node.edgeIndex == edgeIndex) {
-				return node;
-			}
-			if (lo < node.lo || (lo == node.lo && edgeIndex < node.edgeIndex)) {
-				node = node.left;
-			} else {
-				node = node.right;
-			}
+		int node = root;
+		while (node != NIL && link(node, EDGE) != edgeIndex) {
+			node = less(lo, edgeIndex, node) ? link(node, LEFT) : link(node, RIGHT);
+		}
+		if (node != NIL) {
+			deleteNode(node);
+			size--;
 		}
-		return null;
 	}
 
-	public void queryOverlapping(double lo, double hi, HashSet<Integer> result) {
-		queryOverlapping(root, lo, hi, result);
+	/**
+	 * Находит все интервалы, пересекающие [lo, hi]
+	 * @return число найденных интервалов, номера их ребер лежат в {@link #getResult()} до следующего запроса
+	 */
+	public int queryOverlapping(double lo, double hi) {
+		resultSize = 0;
+		queryOverlapping(root, lo, hi);
+		return resultSize;
 	}
 
-	private void queryOverlapping(Node node, double lo, double hi, HashSet<Integer> result) {
-		if (node == null) return;
-		if (node.maxHi < lo) return;
-
-		if (node.left != null) {
-			queryOverlapping(node.left, lo, hi, result);
-		}
-
-		if (node.lo <= hi && node.hi >= lo) {
-			result.add(node.edgeIndex);
-		}
+	/**
+	 * Буфер результатов последнего запроса, переиспользуется между запросами
+	 */
+	public int[] getResult() {
+		return result;
+	}
 
-		if (node.lo <= hi && node.right != null) {
-			queryOverlapping(node.right, lo, hi, result);
+	private void queryOverlapping(int node, double lo, double hi) {
+		while (node != NIL && maxHi(node) >= lo) {
+			queryOverlapping(link(node, LEFT), lo, hi);
+			if (bounds[BOUNDS_FIELDS * node + LO] > hi) {
+				return;
+			}
+			if (bounds[BOUNDS_FIELDS * node + HI] >= lo) {
+				addResult(link(node, EDGE));
+			}
+			node = link(node, RIGHT);
 		}
 	}
 
-	private void fixInsert(Node node) {
-		while (node != root && node.parent != null && node.parent.isRed) {
-			Node parent = node.parent;
-			Node grandparent = parent.parent;
-			if (grandparent == null) break;
-
-			if (parent == grandparent.left) {
-				Node uncle = grandparent.right;
-				if (uncle != null && uncle.isRed) {
-					parent.isRed = false;
-					uncle.isRed = false;
-					grandparent.isRed = true;
+	private void fixInsert(int node) {
+		while (isRed(link(node, PARENT))) {
+			int parent = link(node, PARENT);
+			int grandparent = link(parent, PARENT);
+			if (parent == link(grandparent, LEFT)) {
+				int uncle = link(grandparent, RIGHT);
+				if (isRed(uncle)) {
+					setRed(parent, false);
+					setRed(uncle, false);
+					setRed(grandparent, true);
 					node = grandparent;
 				} else {
-					if (node == parent.right) {
+					if (node == link(parent, RIGHT)) {
 						node = parent;
 						rotateLeft(node);
-						parent = node.parent;
-						if (parent == null) break;
-						grandparent = parent.parent;
-						if (grandparent == null) break;
+						parent = link(node, PARENT);
 					}
-					parent.isRed = false;
-					grandparent.isRed = true;
+					setRed(parent, false);
+					setRed(grandparent, true);
 					rotateRight(grandparent);
 				}
 			} else {
-				Node uncle = grandparent.left;
-				if (uncle != null && uncle.isRed) {
-					parent.isRed = false;
-					uncle.isRed = false;
-					grandparent.isRed = true;
+				int uncle = link(grandparent, LEFT);
+				if (isRed(uncle)) {
+					setRed(parent, false);
+					setRed(uncle, false);
+					setRed(grandparent, true);
 					node = grandparent;
 				} else {
-					if (node == parent.left) {
+					if (node == link(parent, LEFT)) {
 						node = parent;
 						rotateRight(node);
-						parent = node.parent;
-						if (parent == null) break;
-						grandparent = parent.parent;
-						if (grandparent == null) break;
+						parent = link(node, PARENT);
 					}
-					parent.isRed = false;
-					grandparent.isRed = true;
+					setRed(parent, false);
+					setRed(grandparent, true);
 					rotateLeft(grandparent);
 				}
 			}
 		}
-		root.isRed = false;
+		setRed(root, false);
 	}
 
-	private void rotateLeft(Node node) {
-		Node right = node.right;
-		if (right == null) return;
-		
-		node.right = right.left;
-		if (right.left != null) {
-			right.left.parent = node;
+	private void deleteNode(int node) {
+		int removed = node;
+		boolean removedRed = isRed(removed);
+		int replacement;
+		if (link(node, LEFT) == NIL) {
+			replacement = link(node, RIGHT);
+			transplant(node, replacement);
+		} else if (link(node, RIGHT) == NIL) {
+			replacement = link(node, LEFT);
+			transplant(node, replacement);
+		} else {
+			removed = minimum(link(node, RIGHT));
+			removedRed = isRed(removed);
+			replacement = link(removed, RIGHT);
+			if (link(removed, PARENT) == node) {
+				setLink(replacement, PARENT, removed);
+			} else {
+				transplant(removed, replacement);
+				setLink(removed, RIGHT, link(node, RIGHT));
+				setLink(link(removed, RIGHT), PARENT, removed);
+			}
+			transplant(node, removed);
+			setLink(removed, LEFT, link(node, LEFT));
+			setLink(link(removed, LEFT), PARENT, removed);
+			setRed(removed, isRed(node));
+		}
+		// maxHi меняется только на пути от места удаления до корня,
+		// выше нового места removed подъем останавливается, если maxHi не изменился
+		boolean passedRemoved = removed == node;
+		for (int v = link(replacement, PARENT); v != NIL; v = link(v, PARENT)) {
+			double oldMaxHi = maxHi(v);
+			updateMaxHi(v);
+			passedRemoved |= v == removed;
+			if (passedRemoved && maxHi(v) == oldMaxHi) {
+				break;
+			}
+		}
+		if (!removedRed) {
+			fixDelete(replacement);
+		}
+		free(node);
+	}
+
+	private void fixDelete(int node) {
+		while (node != root && !isRed(node)) {
+			int parent = link(node, PARENT);
+			if (node == link(parent, LEFT)) {
+				int sibling = link(parent, RIGHT);
+				if (isRed(sibling)) {
+					setRed(sibling, false);
+					setRed(parent, true);
+					rotateLeft(parent);
+					sibling = link(parent, RIGHT);
+				}
+				if (!isRed(link(sibling, LEFT)) && !isRed(link(sibling, RIGHT))) {
+					setRed(sibling, true);
+					node = parent;
+				} else {
+					if (!isRed(link(sibling, RIGHT))) {
+						setRed(link(sibling, LEFT), false);
+						setRed(sibling, true);
+						rotateRight(sibling);
+						sibling = link(parent, RIGHT);
+					}
+					setRed(sibling, isRed(parent));
+					setRed(parent, false);
+					setRed(link(sibling, RIGHT), false);
+					rotateLeft(parent);
+					node = root;
+				}
+			} else {
+				int sibling = link(parent, LEFT);
+				if (isRed(sibling)) {
+					setRed(sibling, false);
+					setRed(parent, true);
+					rotateRight(parent);
+					sibling = link(parent, LEFT);
+				}
+				if (!isRed(link(sibling, LEFT)) && !isRed(link(sibling, RIGHT))) {
+					setRed(sibling, true);
+					node = parent;
+				} else {
+					if (!isRed(link(sibling, LEFT))) {
+						setRed(link(sibling, RIGHT), false);
+						setRed(sibling, true);
+						rotateLeft(sibling);
+						sibling = link(parent, LEFT);
+					}
+					setRed(sibling, isRed(parent));
+					setRed(parent, false);
+					setRed(link(sibling, LEFT), false);
+					rotateRight(parent);
+					node = root;
+				}
+			}
 		}
-		right.parent = node.parent;
-		if (node.parent == null) {
-			root = right;
-		} else if (node == node.parent.left) {
-			node.parent.left = right;
+		setRed(node, false);
+	}
+
+	/**
+	 * Ставит поддерево to на место поддерева from
+	 */
+	private void transplant(int from, int to) {
+		int parent = link(from, PARENT);
+		if (parent == NIL) {
+			root = to;
+		} else if (from == link(parent, LEFT)) {
+			setLink(parent, LEFT, to);
 		} else {
-			node.parent.right = right;
+			setLink(parent, RIGHT, to);
 		}
-		right.left = node;
-		node.parent = right;
+		setLink(to, PARENT, parent);
+	}
 
+	private void rotateLeft(int node) {
+		int right = link(node, RIGHT);
+		setLink(node, RIGHT, link(right, LEFT));
+		if (link(right, LEFT) != NIL) {
+			setLink(link(right, LEFT), PARENT, node);
+		}
+		transplant(node, right);
+		setLink(right, LEFT, node);
+		setLink(node, PARENT, right);
 		updateMaxHi(node);
 		updateMaxHi(right);
 	}
 
-	private void rotateRight(Node node) {
-		Node left = node.left;
-		if (left == null) return;
-		
-		node.left = left.right;
-		if (left.right != null) {
-			left.right.parent = node;
+	private void rotateRight(int node) {
+		int left = link(node, LEFT);
+		setLink(node, LEFT, link(left, RIGHT));
+		if (link(left, RIGHT) != NIL) {
+			setLink(link(left, RIGHT), PARENT, node);
 		}
-		left.parent = node.parent;
-		if (node.parent == null) {
-			root = left;
-		} else if (node == node.parent.right) {
-			node.parent.right = left;
-		} else {
-			node.parent.left = left;
-		}
-		left.right = node;
-		node.parent = left;
-
+		transplant(node, left);
+		setLink(left, RIGHT, node);
+		setLink(node, PARENT, left);
 		updateMaxHi(node);
 		updateMaxHi(left);
 	}
 
-	private void updateMaxHi(Node node) {
-		if (node == null) return;
-		node.maxHi = node.hi;
-		if (node.left != null) {
-			node.maxHi = Math.max(node.maxHi, node.left.maxHi);
-		}
-		if (node.right != null) {
-			node.maxHi = Math.max(node.maxHi, node.right.maxHi);
+	private int minimum(int node) {
+		while (link(node, LEFT) != NIL) {
+			node = link(node, LEFT);
 		}
+		return node;
 	}
 
-	private void deleteNode(Node node) {
-		Node replacement;
-		Node nodeToFix;
-		boolean needFix;
+	private boolean less(double lo, int edgeIndex, int node) {
+		double nodeLo = bounds[BOUNDS_FIELDS * node + LO];
+		return lo < nodeLo || (lo == nodeLo && edgeIndex < link(node, EDGE));
+	}
 
-		if (node.left != null && node.right != null) {
-			Node successor = minimum(node.right);
-			node.lo = successor.lo;
-			node.hi = successor.hi;
-			node.edgeIndex = successor.edgeIndex;
-			node = successor;
-		}
+	private void updateMaxHi(int node) {
+		setMaxHi(node, Math.max(bounds[BOUNDS_FIELDS * node + HI],
+				Math.max(maxHi(link(node, LEFT)), maxHi(link(node, RIGHT)))));
+	}
 
-		replacement = (node.left != null) ? node.left : node.right;
-		needFix = !node.isRed;
+	private double maxHi(int node) {
+		return bounds[BOUNDS_FIELDS * node + MAX_HI];
+	}
 
-		if (replacement != null) {
-			replacement.parent = node.parent;
-			if (node.parent == null) {
-				root = replacement;
-			} else if (node == node.parent.left) {
-				node.parent.left = replacement;
-			} else {
-				node.parent.right = replacement;
-			}
-			nodeToFix = replacement;
-		} else if (node.parent == null) {
-			root = null;
-			return;
-		} else {
-			if (needFix) {
-				fixDelete(node);
-			}
-			if (node.parent != null) {
-				if (node == node.parent.left) {
-					node.parent.left = null;
-				} else {
-					node.parent.right = null;
-				}
-			}
-			nodeToFix = null;
-		}
+	private void setMaxHi(int node, double value) {
+		bounds[BOUNDS_FIELDS * node + MAX_HI] = value;
+	}
 
-		if (nodeToFix != null && needFix) {
-			fixDelete(nodeToFix);
-		}
+	private boolean isRed(int node) {
+		return links[LINKS_FIELDS * node + RED] != 0;
+	}
 
-		updateMaxHiToRoot(node.parent);
+	private void setRed(int node, boolean red) {
+		links[LINKS_FIELDS * node + RED] = red ? 1 : 0;
 	}
 
-	private void updateMaxHiToRoot(Node node) {
-		while (node != null) {
-			double oldMax = node.maxHi;
-			updateMaxHi(node);
-			if (node.maxHi == oldMax) break;
-			node = node.parent;
-		}
+	private int link(int node, int field) {
+		return links[LINKS_FIELDS * node + field];
 	}
 
-	private Node minimum(Node node) {
-		while (node.left != null) {
-			node = node.left;
+	private void setLink(int node, int field, int value) {
+		links[LINKS_FIELDS * node + field] = value;
+	}
+
+	private void addResult(int edge) {
+		if (resultSize == result.length) {
+			result = Arrays.copyOf(result, result.length * 2);
 		}
-		return node;
+		result[resultSize++] = edge;
 	}
 
-	private void fixDelete(Node node) {
-		while (node != root && (node == null || !node.isRed)) {
-			if (node == null || node.parent == null) break;
-			
-			if (node == node.parent.left) {
-				Node sibling = node.parent.right;
-				if (sibling != null && sibling.isRed) {
-					sibling.isRed = false;
-					node.parent.isRed = true;
-					rotateLeft(node.parent);
-					sibling = node.parent.right;
-				}
-				if (sibling == null) {
-					node = node.parent;
-					continue;
-				}
-				if ((sibling.left == null || !sibling.left.isRed) &&
-					(sibling.right == null || !sibling.right.isRed)) {
-					sibling.isRed = true;
-					node = node.parent;
-				} else {
-					if (sibling.right == null || !sibling.right.isRed) {
-                        sibling.left.isRed = false;
-						sibling.isRed = true;
-						rotateRight(sibling);
-						sibling = node.parent.right;
-					}
-					if (sibling != null) {
-						sibling.isRed = node.parent.isRed;
-						if (sibling.right != null) sibling.right.isRed = false;
-					}
-					node.parent.isRed = false;
-					rotateLeft(node.parent);
-					node = root;
-				}
-			} else {
-				Node sibling = node.parent.left;
-				if (sibling != null && sibling.isRed) {
-					sibling.isRed = false;
-					node.parent.isRed = true;
-					rotateRight(node.parent);
-					sibling = node.parent.left;
-				}
-				if (sibling == null) {
-					node = node.parent;
-					continue;
-				}
-				if ((sibling.right == null || !sibling.right.isRed) &&
-					(sibling.left == null || !sibling.left.isRed)) {
-					sibling.isRed = true;
-					node = node.parent;
-				} else {
-					if (sibling.left == null || !sibling.left.isRed) {
-                        sibling.right.isRed = false;
-						sibling.isRed = true;
-						rotateLeft(sibling);
-						sibling = node.parent.left;
-					}
-					if (sibling != null) {
-						sibling.isRed = node.parent.isRed;
-						if (sibling.left != null) sibling.left.isRed = false;
-					}
-					node.parent.isRed = false;
-					rotateRight(node.parent);
-					node = root;
-				}
+	private int allocate(double lo, double hi, int edgeIndex) {
+		int node;
+		if (freeList != NIL) {
+			node = freeList;
+			freeList = link(node, LEFT);
+		} else {
+			if (allocated == capacity) {
+				capacity *= 2;
+				bounds = Arrays.copyOf(bounds, BOUNDS_FIELDS * capacity);
+				links = Arrays.copyOf(links, LINKS_FIELDS * capacity);
 			}
+			node = allocated++;
 		}
-		if (node != null) node.isRed = false;
+		bounds[BOUNDS_FIELDS * node + LO] = lo;
+		bounds[BOUNDS_FIELDS * node + HI] = hi;
+		bounds[BOUNDS_FIELDS * node + MAX_HI] = hi;
+		setLink(node, EDGE, edgeIndex);
+		setLink(node, LEFT, NIL);
+		setLink(node, RIGHT, NIL);
+		setLink(node, PARENT, NIL);
+		setRed(node, true);
+		return node;
+	}
+
+	/**
+	 * Узел добавляется в список свободных, связанный через LEFT
+	 */
+	private void free(int node) {
+		setLink(node, LEFT, freeList);
+		freeList = node;
 	}
 }
@@ -12,6 +12,7 @@ import org.junit.jupiter.api.Assertions;
 public class MakingDualGraph {
   private static final Logger logger = LoggerFactory.getLogger(MakingDualGraph.class);
   private final HashMap<Vertex, VertexOfDualGraph> comparison;
+  private PlanarTopology topology;
   public MakingDualGraph() {
     this.comparison = new HashMap<Vertex, VertexOfDualGraph>();
   }
@@ -20,6 +21,13 @@ public class MakingDualGraph {
     return this.comparison;
   }
 
+  /**
+   * @return topology of the last graph passed to buildDualGraph on half-edge structure, with all faces
+   */
+  public PlanarTopology getTopology() {
+    return this.topology;
+  }
+
   public Graph<VertexOfDualGraph> buildDualGraph(Graph<Vertex> gph) {
     Graph<VertexOfDualGraph> res = new Graph<>();
     Graph<Vertex> undir = gph.makeUndirectedGraph();
@@ -32,6 +40,73 @@ public class MakingDualGraph {
     return res;
   }
 
+  /**
+   * Builds dual graph on CSR representation of undirected planar graph:
+   * every arc belongs to exactly one face, next arc of the face is the next one by angle
+   * after the reverse arc, same as in {@link #findFace}
+   */
+  public Graph<VertexOfDualGraph> buildDualGraph(CompactGraph<Vertex> undir) {
+    return buildDualGraph(new HalfEdgeGraph<>(undir));
+  }
+
+  /**
+   * Faces of dual graph are faces of half-edge structure with the same numbers (starting with 1),
+   * vertices of face are targets of its darts starting with the second dart
+   */
+  public Graph<VertexOfDualGraph> buildDualGraph(HalfEdgeGraph<Vertex> halfEdges) {
+    Graph<VertexOfDualGraph> res = new Graph<>();
+    CompactGraph<Vertex> undir = halfEdges.compactGraph();
+    int faceNumber = halfEdges.facesNumber();
+    int[] vertexInFaceNumber = new int[undir.verticesNumber()];
+    VertexOfDualGraph[] faces = new VertexOfDualGraph[faceNumber];
+    for (int f = 0; f < faceNumber; f++) {
+      int begin = halfEdges.faceBegin(f);
+      int end = halfEdges.faceEnd(f);
+      int first = halfEdges.faceDart(begin);
+      vertexInFaceNumber[halfEdges.origin(first)]++;
+      ArrayList<Vertex> verticesOfFace = new ArrayList<>(end - begin);
+      for (int i = begin + 1; i <= end; i++) {
+        int target = halfEdges.target(halfEdges.faceDart(i == end ? begin : i));
+        verticesOfFace.add(undir.vertex(target));
+        vertexInFaceNumber[target]++;
+      }
+      // вершина конца первого ребра учитывается дважды, как в findFace
+      vertexInFaceNumber[halfEdges.target(first)]++;
+      Assertions.assertTrue(verticesOfFace.size() >= 3);
+      VertexOfDualGraph vert = new VertexOfDualGraph(f + 1,
+                                                    Vertex.findCenter(verticesOfFace),
+                                                    VertexOfDualGraph.sumVertexWeight(verticesOfFace),
+                                                    verticesOfFace);
+      res.addVertex(vert);
+      comparison.put(vert, vert);
+      faces[f] = vert;
+    }
+
+    for (int f = 0; f < faceNumber; f++) {
+      double weight = 0;
+      for (int i = halfEdges.faceBegin(f) + 1; i <= halfEdges.faceEnd(f); i++) {
+        int v = halfEdges.target(halfEdges.faceDart(i == halfEdges.faceEnd(f) ? halfEdges.faceBegin(f) : i));
+        weight = weight + undir.vertex(v).getWeight() / vertexInFaceNumber[v];
+      }
+      faces[f].setWeight(weight);
+    }
+
+    for (int dart = 0; dart < halfEdges.dartsNumber(); dart++) {
+      int twin = halfEdges.twin(dart);
+      if (twin == -1 || halfEdges.faceOfDart(dart) == halfEdges.faceOfDart(twin)) {
+        continue;
+      }
+      VertexOfDualGraph left = faces[halfEdges.faceOfDart(dart)];
+      VertexOfDualGraph right = faces[halfEdges.faceOfDart(twin)];
+      Edge old = res.getEdges().get(left).get(right);
+      double length = (old == null ? 0 : old.length) + undir.length(dart) / 2;
+      res.getEdges().get(left).put(right, new Edge(length));
+      res.getEdges().get(right).put(left, new Edge(length));
+    }
+    topology = new PlanarTopology(halfEdges, Arrays.asList(faces));
+    return res;
+  }
+
   private void addDualEdges(Graph<VertexOfDualGraph> res, 
                             HashMap<EdgeOfGraph<Vertex>, 
                             VertexOfDualGraph> inFace) {
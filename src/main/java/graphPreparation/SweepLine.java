@@ -5,12 +5,17 @@ import graph.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.SortedMap;
 import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
 
 enum ActionType {
 	ADD, DELETE, POINT
@@ -21,6 +26,7 @@ record Action(double x, int edgeNum, Vertex vertex, ActionType type) {
 
 public class SweepLine {
 	private static final Logger logger = LoggerFactory.getLogger(SweepLine.class);
+	private static final int MIN_EDGES_IN_STRIP = 1 << 14;
 	double inaccuracy;
 
 	Comparator<Vertex> backXComp = (o1, o2) -> Double.compare(o2.x, o1.x);
@@ -102,47 +108,102 @@ public class SweepLine {
 				}
 			}
 		}
-        HashSet<Vertex> toDelete = new HashSet<>();
+        mergeCloseZeroWeightVertices(graph);
+        long t4 = System.currentTimeMillis();
+        logger.info("vertex merging + graph rebuild: {} ms", t4 - t3);
+        logger.info("makePlanar total: {} ms", t4 - t0);
+	
+	
+		logger.info("small edges num after sweepline: {}", smallEdgesNum);
+		return graph;
+	}
+
+    /**
+     * Каждая оставшаяся вершина нулевого веса в порядке возрастания x забирает ребра
+     * еще не удаленных вершин нулевого веса правее нее на расстоянии не больше inaccuracy,
+     * такие вершины удаляются. Близкие вершины ищутся в соседних ячейках равномерной сетки
+     * с шагом inaccuracy, поэтому на прямых с множеством точек пересечения нет квадратичного перебора
+     */
+    void mergeCloseZeroWeightVertices(Graph<Vertex> graph) {
         ArrayList<Vertex> zeroWeightVertices = new ArrayList<>();
         for (Vertex v : graph.getEdges().keySet()) {
             if (v.getWeight() == 0) {
                 zeroWeightVertices.add(v);
             }
         }
-
-        // Сортируем по X для эффективного поиска близких вершин
+        // порядок по x определяет, какая вершина из близких остается
         zeroWeightVertices.sort(Comparator.comparingDouble(v -> v.x));
 
+        double cellSize = inaccuracy > 0 ? inaccuracy : 1;
+        HashMap<Long, ArrayList<Integer>> cells = new HashMap<>();
         for (int i = 0; i < zeroWeightVertices.size(); i++) {
-            Vertex v1 = zeroWeightVertices.get(i);
-            if (toDelete.contains(v1)) continue;
+            Vertex v = zeroWeightVertices.get(i);
+            cells.computeIfAbsent(cellKey(cell(v.x, cellSize), cell(v.y, cellSize)), key -> new ArrayList<>()).add(i);
+        }
 
-            // Проверяем только вершины, близкие по X
-            for (int j = i + 1; j < zeroWeightVertices.size(); j++) {
+        boolean[] deleted = new boolean[zeroWeightVertices.size()];
+        ArrayList<Vertex> toDelete = new ArrayList<>();
+        ArrayList<Integer> candidates = new ArrayList<>();
+        long checkedPairs = 0;
+        for (int i = 0; i < zeroWeightVertices.size(); i++) {
+            if (deleted[i]) {
+                continue;
+            }
+            Vertex v1 = zeroWeightVertices.get(i);
+            long cellX = cell(v1.x, cellSize);
+            long cellY = cell(v1.y, cellSize);
+            candidates.clear();
+            for (long dx = -1; dx <= 1; dx++) {
+                for (long dy = -1; dy <= 1; dy++) {
+                    ArrayList<Integer> cell = cells.get(cellKey(cellX + dx, cellY + dy));
+                    if (cell == null) {
+                        continue;
+                    }
+                    for (int j : cell) {
+                        if (j > i && !deleted[j]) {
+                            candidates.add(j);
+                        }
+                    }
+                }
+            }
+            if (candidates.isEmpty()) {
+                continue;
+            }
+            // ключи разных ячеек могут совпасть, поэтому повторы пропускаются
+            candidates.sort(null);
+            int previous = -1;
+            for (int j : candidates) {
+                if (j == previous) {
+                    continue;
+                }
+                previous = j;
+                checkedPairs++;
                 Vertex v2 = zeroWeightVertices.get(j);
-                if (v2.x - v1.x > inaccuracy) break;
-                
-                if (toDelete.contains(v2)) continue;
-                if (v1.getLength(v2) <= inaccuracy) {
+                if (v2.x - v1.x <= inaccuracy && v1.getLength(v2) <= inaccuracy) {
                     HashMap<Vertex, Edge> tmp = graph.getEdges().get(v2);
                     for (Vertex v : tmp.keySet()) {
                         graph.addEdge(v1, v, tmp.get(v).length);
                     }
+                    deleted[j] = true;
                     toDelete.add(v2);
                 }
             }
         }
+        // все ребра графа после sweep line двусторонние
         for (Vertex v : toDelete) {
-            graph.deleteVertex(v);
+            graph.deleteVertexWithReverseEdges(v);
         }
-        long t4 = System.currentTimeMillis();
-        logger.info("vertex merging + graph rebuild: {} ms", t4 - t3);
-        logger.info("makePlanar total: {} ms", t4 - t0);
-	
-	
-		logger.info("small edges num after sweepline: {}", smallEdgesNum);
-		return graph;
-	}
+        logger.info("zero weight vertices: {}, cells: {}, checked pairs: {}, merged vertices: {}",
+                zeroWeightVertices.size(), cells.size(), checkedPairs, toDelete.size());
+    }
+
+    private static long cell(double coordinate, double cellSize) {
+        return (long) Math.floor(coordinate / cellSize);
+    }
+
+    private static long cellKey(long cellX, long cellY) {
+        return cellX * 0x9E3779B97F4A7C15L + cellY;
+    }
 
     private HashMap<Vertex, Vertex> checkCopyPoints(Graph<Vertex> gph, ArrayList<ArrayList<Vertex>> intersectionPoints) {
         HashMap<Vertex, Vertex> ans = new HashMap<>();
@@ -249,8 +310,22 @@ public class SweepLine {
 	 * - Вставка интервала: O(log n)
 	 * - Удаление интервала: O(log n)  
 	 * - Поиск всех пересекающихся интервалов: O(log n + k)
+	 *
+	 * Плоскость делится на вертикальные полосы, которые обрабатываются параллельно
 	 */
 	public ArrayList<ArrayList<Vertex>> findPointsOfIntersection(ArrayList<EdgeOfGraph<Vertex>> edgesList) {
+		int stripsNumber = Math.max(1, Math.min(ForkJoinPool.getCommonPoolParallelism(),
+				edgesList.size() / MIN_EDGES_IN_STRIP));
+		return findPointsOfIntersection(edgesList, stripsNumber);
+	}
+
+	/**
+	 * Каждая полоса [bounds[s], bounds[s + 1]) получает все ребра, которые ее пересекают,
+	 * а пересечение пары ребер записывает только та полоса, в которой лежит начало второго по x ребра,
+	 * поэтому пары не повторяются на границах полос.
+	 * Точки пересечения для ребра идут в том же порядке, что и при одной полосе
+	 */
+	ArrayList<ArrayList<Vertex>> findPointsOfIntersection(ArrayList<EdgeOfGraph<Vertex>> edgesList, int stripsNumber) {
 		ArrayList<ArrayList<Vertex>> intersectionPoints = new ArrayList<>();
 		for (int i = 0; i < edgesList.size(); i++) {
 			intersectionPoints.add(new ArrayList<>());
@@ -260,10 +335,45 @@ public class SweepLine {
 			return intersectionPoints;
 		}
 
+		double[] bounds = stripBounds(edgesList, stripsNumber);
+		List<FoundPoints> strips = IntStream.range(0, bounds.length - 1).parallel()
+				.mapToObj(s -> findPointsOfIntersectionInStrip(edgesList, bounds[s], bounds[s + 1]))
+				.toList();
+		for (FoundPoints found : strips) {
+			for (int i = 0; i < found.edges.size(); i++) {
+				intersectionPoints.get(found.edges.get(i)).add(found.points.get(i));
+			}
+		}
+		return intersectionPoints;
+	}
+
+	/**
+	 * Границы полос по квантилям левых концов ребер, крайние границы - бесконечности
+	 */
+	private static double[] stripBounds(ArrayList<EdgeOfGraph<Vertex>> edgesList, int stripsNumber) {
+		double[] minX = new double[edgesList.size()];
+		for (int i = 0; i < edgesList.size(); i++) {
+			minX[i] = Math.min(edgesList.get(i).begin.x, edgesList.get(i).end.x);
+		}
+		Arrays.sort(minX);
+		ArrayList<Double> bounds = new ArrayList<>();
+		bounds.add(Double.NEGATIVE_INFINITY);
+		for (int s = 1; s < stripsNumber; s++) {
+			double bound = minX[(int) ((long) s * minX.length / stripsNumber)];
+			if (bound > bounds.get(bounds.size() - 1)) {
+				bounds.add(bound);
+			}
+		}
+		bounds.add(Double.POSITIVE_INFINITY);
+		return bounds.stream().mapToDouble(Double::doubleValue).toArray();
+	}
+
+	private FoundPoints findPointsOfIntersectionInStrip(ArrayList<EdgeOfGraph<Vertex>> edgesList,
+														 double stripBegin, double stripEnd) {
+		FoundPoints found = new FoundPoints();
 		IntervalTree yIntervalTree = new IntervalTree();
-		HashMap<Integer, double[]> edgeYIntervals = new HashMap<>();
 
-		ArrayList<Action> actions = initActions(edgesList);
+		ArrayList<Action> actions = initActions(edgesList, stripBegin, stripEnd);
 		actions.sort((a1, a2) -> a1.x() < a2.x() ? -1
 				: a1.x() > a2.x() ? 1
 				: a1.type() == ActionType.ADD ? 1
@@ -275,77 +385,88 @@ public class SweepLine {
 			int currEdgeInd = currAct.edgeNum();
 			EdgeOfGraph<Vertex> currEdge = edgesList.get(currEdgeInd);
 
+			double edgeMinY = Math.min(currEdge.begin.y, currEdge.end.y);
+			double edgeMaxY = Math.max(currEdge.begin.y, currEdge.end.y);
+
 			if (currAct.type() != ActionType.ADD) {
 				actualEdge.remove(currEdgeInd);
-				double[] interval = edgeYIntervals.remove(currEdgeInd);
-				if (interval != null) {
-					yIntervalTree.delete(interval[0], currEdgeInd);
-				}
+				yIntervalTree.delete(edgeMinY, currEdgeInd);
 				continue;
 			}
 
-			double edgeMinY = Math.min(currEdge.begin.y, currEdge.end.y);
-			double edgeMaxY = Math.max(currEdge.begin.y, currEdge.end.y);
-
-			HashSet<Integer> candidateEdges = new HashSet<>();
-			yIntervalTree.queryOverlapping(edgeMinY, edgeMaxY, candidateEdges);
+			// пересечения ребер, начавшихся левее полосы, записаны в предыдущих полосах
+			if (currAct.x() >= stripBegin) {
+				int candidatesNumber = yIntervalTree.queryOverlapping(edgeMinY, edgeMaxY);
+				int[] candidateEdges = yIntervalTree.getResult();
 
-			for (int edgeNum : candidateEdges) {
-				EdgeOfGraph<Vertex> actEdge = actualEdge.get(edgeNum);
-				if (actEdge == null || currEdge.equals(actEdge)) {
-					continue;
-				}
-				if (!currEdge.intersect(actEdge)) {
-					continue;
-				}
+				for (int c = 0; c < candidatesNumber; c++) {
+					int edgeNum = candidateEdges[c];
+					EdgeOfGraph<Vertex> actEdge = actualEdge.get(edgeNum);
+					if (actEdge == null || currEdge.equals(actEdge)) {
+						continue;
+					}
+					if (!currEdge.intersect(actEdge)) {
+						continue;
+					}
 
-				if (currEdge.vertical() && actEdge.vertical()) {
-					checkVerticalEdges(currEdgeInd, edgeNum, edgesList, intersectionPoints);
-				} else if (currEdge.horizontal() && actEdge.horizontal()) {
-					checkHorizontalEdges(currEdgeInd, edgeNum, edgesList, intersectionPoints);
-				} else {
-					Vertex intersecPoint = currEdge.intersectionPoint(actEdge);
-					if (intersecPoint != null) {
-						if ((actEdge.begin.x == intersecPoint.x && actEdge.begin.y == intersecPoint.y) ||
-								(actEdge.end.x == intersecPoint.x && actEdge.end.y == intersecPoint.y) ||
-								(currEdge.begin.x == intersecPoint.x && currEdge.begin.y == intersecPoint.y) ||
-								(currEdge.end.x == intersecPoint.x && currEdge.end.y == intersecPoint.y)) {
-							continue;
+					if (currEdge.vertical() && actEdge.vertical()) {
+						checkVerticalEdges(currEdgeInd, edgeNum, edgesList, found);
+					} else if (currEdge.horizontal() && actEdge.horizontal()) {
+						checkHorizontalEdges(currEdgeInd, edgeNum, edgesList, found);
+					} else {
+						Vertex intersecPoint = currEdge.intersectionPoint(actEdge);
+						if (intersecPoint != null) {
+							if ((actEdge.begin.x == intersecPoint.x && actEdge.begin.y == intersecPoint.y) ||
+									(actEdge.end.x == intersecPoint.x && actEdge.end.y == intersecPoint.y) ||
+									(currEdge.begin.x == intersecPoint.x && currEdge.begin.y == intersecPoint.y) ||
+									(currEdge.end.x == intersecPoint.x && currEdge.end.y == intersecPoint.y)) {
+								continue;
+							}
+							found.add(currEdgeInd, intersecPoint);
+							found.add(edgeNum, intersecPoint);
 						}
-						intersectionPoints.get(currEdgeInd).add(intersecPoint);
-						intersectionPoints.get(edgeNum).add(intersecPoint);
 					}
 				}
 			}
 
 			actualEdge.put(currEdgeInd, currEdge);
 			yIntervalTree.insert(edgeMinY, edgeMaxY, currEdgeInd);
-			edgeYIntervals.put(currEdgeInd, new double[]{edgeMinY, edgeMaxY});
 		}
 
-		return intersectionPoints;
+		return found;
+	}
+
+	/**
+	 * Точки пересечения, найденные в одной полосе, в порядке нахождения
+	 */
+	private static class FoundPoints {
+		private final ArrayList<Integer> edges = new ArrayList<>();
+		private final ArrayList<Vertex> points = new ArrayList<>();
+
+		private void add(int edgeNum, Vertex point) {
+			edges.add(edgeNum);
+			points.add(point);
+		}
 	}
 
 	//добавить пояснения
 	private <T extends Vertex> void checkHorizontalEdges(int edgeNum1,
 									  					int edgeNum2,
 									  					ArrayList<EdgeOfGraph<T>> edgesList,
-														ArrayList<ArrayList<Vertex>> intersectionPoints) {
+														FoundPoints found) {
 		EdgeOfGraph<T> edge1 = edgesList.get(edgeNum2);
 		EdgeOfGraph<T> edge2 = edgesList.get(edgeNum2);
-		ArrayList<Vertex> intersectPointsEdge1 = intersectionPoints.get(edgeNum1);
-		ArrayList<Vertex> intersectPointsEdge2 = intersectionPoints.get(edgeNum2);
 		if (edge1.includeForX(edge2.begin)) {
-			intersectPointsEdge1.add(edge2.begin);
+			found.add(edgeNum1, edge2.begin);
 		}
 		if (edge1.includeForX(edge2.end)) {
-			intersectPointsEdge1.add(edge2.end);
+			found.add(edgeNum1, edge2.end);
 		}
 		if (edge2.includeForX(edge1.begin)) {
-			intersectPointsEdge2.add(edge1.begin);
+			found.add(edgeNum2, edge1.begin);
 		}
 		if (edge2.includeForX(edge1.end)) {
-			intersectPointsEdge2.add(edge1.end);
+			found.add(edgeNum2, edge1.end);
 		}
 
 	}
@@ -354,42 +475,46 @@ public class SweepLine {
 	private <T extends Vertex> void checkVerticalEdges(int edgeNum1,
 													   int edgeNum2,
 													   ArrayList<EdgeOfGraph<T>> edgesList,
-													   ArrayList<ArrayList<Vertex>> intersectionPoints) {
+													   FoundPoints found) {
 		EdgeOfGraph<T> edge1 = edgesList.get(edgeNum1);
 		EdgeOfGraph<T> edge2 = edgesList.get(edgeNum2);
-		ArrayList<Vertex> intersectPointsEdge1 = intersectionPoints.get(edgeNum1);
-		ArrayList<Vertex> intersectPointsEdge2 = intersectionPoints.get(edgeNum2);
 		if (edge1.includeForY(edge2.begin)) {
-			intersectPointsEdge1.add(edge2.begin);
+			found.add(edgeNum1, edge2.begin);
 		}
 		if (edge1.includeForY(edge2.end)) {
-			intersectPointsEdge1.add(edge2.end);
+			found.add(edgeNum1, edge2.end);
 		}
 		if (edge2.includeForY(edge1.begin)) {
-			intersectPointsEdge2.add(edge1.begin);
+			found.add(edgeNum2, edge1.begin);
 		}
 		if (edge2.includeForY(edge1.end)) {
-			intersectPointsEdge2.add(edge1.end);
+			found.add(edgeNum2, edge1.end);
 		}
 
 	}
 
-
-	private <T extends Vertex> ArrayList<Action> initActions(ArrayList<EdgeOfGraph<T>> edgesList) {
-			ArrayList<Action> result = new ArrayList<>();
-			for (int i = 0; i < edgesList.size(); i++) {
-				result.add(new Action(Math.min(edgesList.get(i).begin.x, edgesList.get(i).end.x),
-								   i,
-							null, 
-								   ActionType.ADD));
-				result.add(new Action(Math.max(edgesList.get(i).begin.x, edgesList.get(i).end.x), 
-								i, 
-								null,
-								ActionType.DELETE));
+	/**
+	 * Действия для ребер, пересекающих полосу [stripBegin, stripEnd)
+	 */
+	private <T extends Vertex> ArrayList<Action> initActions(ArrayList<EdgeOfGraph<T>> edgesList,
+															 double stripBegin, double stripEnd) {
+		ArrayList<Action> result = new ArrayList<>();
+		for (int i = 0; i < edgesList.size(); i++) {
+			double minX = Math.min(edgesList.get(i).begin.x, edgesList.get(i).end.x);
+			double maxX = Math.max(edgesList.get(i).begin.x, edgesList.get(i).end.x);
+			if (minX >= stripEnd || maxX < stripBegin) {
+				continue;
+			}
+			result.add(new Action(minX, i, null, ActionType.ADD));
+			result.add(new Action(maxX, i, null, ActionType.DELETE));
 		}
 		return result;
 	}
 
+	private <T extends Vertex> ArrayList<Action> initActions(ArrayList<EdgeOfGraph<T>> edgesList) {
+		return initActions(edgesList, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+	}
+
 	/**
 	 * @param diagList                 - array diagonals of rectangles containing
 	 *                                 faces
@@ -401,7 +526,7 @@ public class SweepLine {
 	public HashMap<Vertex, VertexOfDualGraph> findFacesOfVertices(ArrayList<EdgeOfGraph<Vertex>> diagList,
 																  HashMap<EdgeOfGraph<Vertex>,
 																  VertexOfDualGraph> returnFromSimplification,
-																  HashSet<Vertex> newVertices) {
+																  Collection<Vertex> newVertices) {
 		HashMap<Vertex, VertexOfDualGraph> res = new HashMap<>();
 		ArrayList<Action> actions = initActions(diagList);
 		addPointToActions(actions, newVertices);
@@ -489,7 +614,7 @@ public class SweepLine {
 		return res;
 	}
 
-	private void addPointToActions(ArrayList<Action> actions, HashSet<Vertex> newVertices) {
+	private void addPointToActions(ArrayList<Action> actions, Collection<Vertex> newVertices) {
 		for (Vertex ver : newVertices) {
 			actions.add(new Action(ver.x, -1, ver, ActionType.POINT));
 		}
@@ -2,6 +2,8 @@ package partitioning.algorithms;
 
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -10,27 +12,65 @@ import org.slf4j.LoggerFactory;
 
 import graph.*;
 import org.junit.jupiter.api.Assertions;
+import partitioning.entities.FlowAlgorithm;
 import partitioning.entities.FlowResult;
 import partitioning.maxflow.MaxFlow;
 import partitioning.maxflow.MaxFlowDinic;
+import partitioning.maxflow.MaxFlowPushRelabel;
 import partitioning.maxflow.MaxFlowReif;
 
 public class InertialFlowPartitioning extends BalancedPartitioningOfPlanarGraphs {
     private static final Logger logger = LoggerFactory.getLogger(InertialFlowPartitioning.class);
 
     private final double PARAMETER_SOURCE, PARAMETER_SINK;
-    private final boolean USE_REIF;
+    private final FlowAlgorithm FLOW_ALGORITHM;
+    /**
+     * Число потоков для рекурсивного деления, 1 - последовательный режим
+     */
+    private final int PARALLELISM;
+    /**
+     * Считать поток по всем линиям и брать лучший разрез вместо линии с наибольшим разбросом проекций
+     */
+    private final boolean ALL_LINES;
+    /**
+     * Число split-вершин, оцениваемых параллельно за раунд поиска в MaxFlowReif
+     */
+    private final int SPLIT_BATCH_SIZE;
 
     public InertialFlowPartitioning() {
-        this.PARAMETER_SOURCE = 0.25;
-        this.PARAMETER_SINK = 0.25;
-        this.USE_REIF = true;
+        this(0.25, true);
     }
 
     public InertialFlowPartitioning(double parameter, boolean useReif) {
+        this(parameter, useReif, 1);
+    }
+
+    public InertialFlowPartitioning(double parameter, boolean useReif, int parallelism) {
+        this(parameter, useReif, parallelism, false);
+    }
+
+    public InertialFlowPartitioning(double parameter, boolean useReif, int parallelism, boolean allLines) {
+        this(parameter, useReif ? FlowAlgorithm.REIF : FlowAlgorithm.DINIC, parallelism, allLines);
+    }
+
+    public InertialFlowPartitioning(double parameter, FlowAlgorithm flowAlgorithm, int parallelism, boolean allLines) {
+        this(parameter, flowAlgorithm, parallelism, allLines, 1);
+    }
+
+    public InertialFlowPartitioning(double parameter, FlowAlgorithm flowAlgorithm, int parallelism, boolean allLines,
+                                    int splitBatchSize) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive");
+        }
+        if (splitBatchSize < 1) {
+            throw new IllegalArgumentException("Split batch size must be positive");
+        }
         this.PARAMETER_SOURCE = parameter;
         this.PARAMETER_SINK = parameter;
-        this.USE_REIF = useReif;
+        this.FLOW_ALGORITHM = flowAlgorithm;
+        this.PARALLELISM = parallelism;
+        this.ALL_LINES = allLines;
+        this.SPLIT_BATCH_SIZE = splitBatchSize;
     }
 
     private static class Vector2D {
@@ -78,202 +118,327 @@ public class InertialFlowPartitioning extends BalancedPartitioningOfPlanarGraphs
 										   Graph<VertexOfDualGraph> graph, 
 										   int maxSumVerticesWeight) {
 
-        Stack<Graph<VertexOfDualGraph>> stack = new Stack<>();
         graph = graph.getLargestConnectedComponent();
         this.graph = graph;
         long startTime = System.currentTimeMillis();
 
-        stack.push(graph);
+        if (PARALLELISM == 1) {
+            Stack<Graph<VertexOfDualGraph>> stack = new Stack<>();
+            stack.push(graph);
 
-        while (!stack.isEmpty()) {
-            Graph<VertexOfDualGraph> currentGraph = stack.pop().makeUndirectedGraph();
+            while (!stack.isEmpty()) {
+                Graph<VertexOfDualGraph> currentGraph = stack.pop().makeUndirectedGraph();
+                if (currentGraph.verticesWeight() < maxSumVerticesWeight) {
+                    partition.add(new HashSet<>(currentGraph.verticesArray()));
+                    continue;
+                }
+                for (Graph<VertexOfDualGraph> subgraph : bisect(simpleGraph, comparisonForDualGraph, currentGraph)) {
+                    stack.push(subgraph);
+                }
+            }
+        } else {
+            ForkJoinPool pool = new ForkJoinPool(PARALLELISM);
+            try {
+                partition.addAll(pool.invoke(
+                        new BisectionTask(simpleGraph, comparisonForDualGraph, graph, maxSumVerticesWeight)));
+            } finally {
+                pool.shutdown();
+            }
+        }
+        long endTime = System.currentTimeMillis();
+        logger.info("Total time in Inertial Flow: {} seconds", (endTime - startTime) / 1000.0);
+    }
 
-            List<VertexOfDualGraph> vertices = new ArrayList<>(currentGraph.verticesArray());
+    /**
+     * Рекурсивное деление подграфа в ForkJoinPool.
+     * Части возвращаются в том же порядке, что и в последовательном режиме
+     * (подграфы обходятся с конца, как при снятии со стека), поэтому результат не зависит от планирования задач.
+     */
+    private class BisectionTask extends RecursiveTask<List<Set<VertexOfDualGraph>>> {
+        private static final long serialVersionUID = 1L;
+        private final Graph<Vertex> simpleGraph;
+        private final Map<Vertex, VertexOfDualGraph> comparisonForDualGraph;
+        private final Graph<VertexOfDualGraph> graph;
+        private final int maxSumVerticesWeight;
+
+        BisectionTask(Graph<Vertex> simpleGraph,
+                      Map<Vertex, VertexOfDualGraph> comparisonForDualGraph,
+                      Graph<VertexOfDualGraph> graph,
+                      int maxSumVerticesWeight) {
+            this.simpleGraph = simpleGraph;
+            this.comparisonForDualGraph = comparisonForDualGraph;
+            this.graph = graph;
+            this.maxSumVerticesWeight = maxSumVerticesWeight;
+        }
+
+        @Override
+        protected List<Set<VertexOfDualGraph>> compute() {
+            Graph<VertexOfDualGraph> currentGraph = graph.makeUndirectedGraph();
+            List<Set<VertexOfDualGraph>> result = new ArrayList<>();
             if (currentGraph.verticesWeight() < maxSumVerticesWeight) {
-                partition.add(new HashSet<>(currentGraph.verticesArray()));
-                continue;
+                result.add(new HashSet<>(currentGraph.verticesArray()));
+                return result;
             }
+            List<Graph<VertexOfDualGraph>> subpartition = bisect(simpleGraph, comparisonForDualGraph, currentGraph);
+            List<BisectionTask> tasks = new ArrayList<>();
+            for (int i = subpartition.size() - 1; i >= 0; i--) {
+                tasks.add(new BisectionTask(simpleGraph, comparisonForDualGraph, subpartition.get(i), maxSumVerticesWeight));
+            }
+            for (int i = 1; i < tasks.size(); i++) {
+                tasks.get(i).fork();
+            }
+            result.addAll(tasks.get(0).compute());
+            for (int i = 1; i < tasks.size(); i++) {
+                result.addAll(tasks.get(i).join());
+            }
+            return result;
+        }
+    }
 
-            Vector2D bestLine = lines.get(0);
-            double maxStretch = -1;
-
-            for (Vector2D line : lines) {
-                vertices.sort(Comparator.comparing(v -> {
-                    Point projected = line.projectPoint(v);
-                    return line.isVertical ? projected.y : projected.x;
-                }));
+    /**
+     * Делит подграф разрезом по инерциальной линии с наибольшим разбросом проекций,
+     * а в режиме ALL_LINES - лучшим из разрезов по всем линиям
+     */
+    private List<Graph<VertexOfDualGraph>> bisect(Graph<Vertex> simpleGraph,
+                                                  Map<Vertex, VertexOfDualGraph> comparisonForDualGraph,
+                                                  Graph<VertexOfDualGraph> currentGraph) {
+        if (!ALL_LINES) {
+            List<VertexOfDualGraph> vertices = new ArrayList<>(currentGraph.verticesArray());
+            Vector2D bestLine = selectLineWithMaxStretch(vertices);
+            return cutAlongLine(simpleGraph, comparisonForDualGraph, currentGraph, vertices, bestLine).subpartition();
+        }
 
-                double minProjection = line.isVertical
-                        ? line.projectPoint(vertices.get(0)).y
-                        : line.projectPoint(vertices.get(0)).x;
+        // внутри BisectionTask параллельный стрим выполняется в том же ForkJoinPool
+        List<Cut> cuts = lines.parallelStream()
+                .map(line -> tryCutAlongLine(simpleGraph, comparisonForDualGraph, currentGraph, line))
+                .toList();
+        Cut bestCut = null;
+        for (Cut cut : cuts) {
+            if (cut != null && (bestCut == null || cut.score() < bestCut.score())) {
+                bestCut = cut;
+            }
+        }
+        if (bestCut == null) {
+            throw new IllegalStateException("No cut found for any of inertial lines");
+        }
+        logger.info("Best cut: line ({}, {}), cut weight {}, score {}",
+                bestCut.line().secondPoint.x, bestCut.line().secondPoint.y, bestCut.cutWeight(), bestCut.score());
+        return bestCut.subpartition();
+    }
 
-                double maxProjection = line.isVertical
-                        ? line.projectPoint(vertices.get(vertices.size() - 1)).y
-                        : line.projectPoint(vertices.get(vertices.size() - 1)).x;
+    /**
+     * Разрез подграфа по одной из линий и его вес
+     */
+    private record Cut(Vector2D line, List<Graph<VertexOfDualGraph>> subpartition, double cutWeight) {
+        /**
+         * Вес разреза, отнесенный к весу меньшей части, чем меньше - тем лучше
+         */
+        double score() {
+            double smallerPartWeight = Math.min(subpartition.get(0).verticesWeight(), subpartition.get(1).verticesWeight());
+            return smallerPartWeight > 0 ? cutWeight / smallerPartWeight : Double.POSITIVE_INFINITY;
+        }
+    }
 
-                double stretch = maxProjection - minProjection;
-                if (stretch > maxStretch) {
-                    maxStretch = stretch;
-                    bestLine = line;
-                }
-            }
+    /**
+     * Выбирает линию с наибольшим разбросом проекций, vertices остаются отсортированными по последней линии
+     */
+    private Vector2D selectLineWithMaxStretch(List<VertexOfDualGraph> vertices) {
+        Vector2D bestLine = lines.get(0);
+        double maxStretch = -1;
 
-            Vector2D finalBestLine = bestLine;
+        for (Vector2D line : lines) {
             vertices.sort(Comparator.comparing(v -> {
-                Point projected = finalBestLine.projectPoint(v);
-                return finalBestLine.isVertical ? projected.y : projected.x;
+                Point projected = line.projectPoint(v);
+                return line.isVertical ? projected.y : projected.x;
             }));
 
+            double minProjection = line.isVertical
+                    ? line.projectPoint(vertices.get(0)).y
+                    : line.projectPoint(vertices.get(0)).x;
 
-            double totalWeight = vertices.stream().mapToDouble(VertexOfDualGraph::getWeight).sum();
-            double targetWeightSource = PARAMETER_SOURCE * totalWeight;
-            double targetWeightSink = PARAMETER_SINK * totalWeight;
-
-            long maxIndex = vertices.stream().max(Comparator.comparingLong(VertexOfDualGraph::getName)).get().getName();
+            double maxProjection = line.isVertical
+                    ? line.projectPoint(vertices.get(vertices.size() - 1)).y
+                    : line.projectPoint(vertices.get(vertices.size() - 1)).x;
 
-            long time1 = System.currentTimeMillis();
+            double stretch = maxProjection - minProjection;
+            if (stretch > maxStretch) {
+                maxStretch = stretch;
+                bestLine = line;
+            }
+        }
+        return bestLine;
+    }
 
-            VertexOfDualGraph source = new VertexOfDualGraph(maxIndex + 1);
-            VertexOfDualGraph sink = new VertexOfDualGraph(maxIndex + 2);
-            List<VertexOfDualGraph> startVertices = selectSourceSink(bestLine, currentGraph);
+    private Cut tryCutAlongLine(Graph<Vertex> simpleGraph,
+                                Map<Vertex, VertexOfDualGraph> comparisonForDualGraph,
+                                Graph<VertexOfDualGraph> currentGraph,
+                                Vector2D line) {
+        try {
+            return cutAlongLine(simpleGraph, comparisonForDualGraph, currentGraph,
+                    new ArrayList<>(currentGraph.verticesArray()), line);
+        } catch (RuntimeException e) {
+            logger.warn("Cut along line ({}, {}) failed: {}", line.secondPoint.x, line.secondPoint.y, e.getMessage());
+            return null;
+        }
+    }
 
-            HashSet<VertexOfDualGraph> sourceSet = new HashSet<>();
-            HashSet<VertexOfDualGraph> maxSourceSet = new HashSet<>();
-            int index = 0;
-            while (index < vertices.size() && sourceSet.stream().mapToDouble(VertexOfDualGraph::getWeight).sum() < targetWeightSource) {
-                sourceSet = selectVerticesForSet(vertices, index, targetWeightSource, new HashSet<>(), currentGraph, startVertices.get(0));
-                if (sourceSet.stream().mapToDouble(VertexOfDualGraph::getWeight).sum()
-                        > maxSourceSet.stream().mapToDouble(VertexOfDualGraph::getWeight).sum()) {
-                    maxSourceSet = new HashSet<>(sourceSet);
-                }
-                index++;
-            }
-            if (!maxSourceSet.isEmpty()) {
-                sourceSet = new HashSet<>(maxSourceSet);
+    private Cut cutAlongLine(Graph<Vertex> simpleGraph,
+                             Map<Vertex, VertexOfDualGraph> comparisonForDualGraph,
+                             Graph<VertexOfDualGraph> currentGraph,
+                             List<VertexOfDualGraph> vertices,
+                             Vector2D line) {
+        vertices.sort(Comparator.comparing(v -> {
+            Point projected = line.projectPoint(v);
+            return line.isVertical ? projected.y : projected.x;
+        }));
+
+        double totalWeight = vertices.stream().mapToDouble(VertexOfDualGraph::getWeight).sum();
+        double targetWeightSource = PARAMETER_SOURCE * totalWeight;
+        double targetWeightSink = PARAMETER_SINK * totalWeight;
+
+        long maxIndex = vertices.stream().max(Comparator.comparingLong(VertexOfDualGraph::getName)).get().getName();
+
+        long time1 = System.currentTimeMillis();
+
+        // веса задаются явно, чтобы результат не зависел от порядка обработки подграфов
+        VertexOfDualGraph source = new VertexOfDualGraph(maxIndex + 1, 0, 0, 0);
+        VertexOfDualGraph sink = new VertexOfDualGraph(maxIndex + 2, 0, 0, 0);
+        List<VertexOfDualGraph> startVertices = selectSourceSink(line, currentGraph);
+
+        HashSet<VertexOfDualGraph> sourceSet = new HashSet<>();
+        HashSet<VertexOfDualGraph> maxSourceSet = new HashSet<>();
+        int index = 0;
+        while (index < vertices.size() && sourceSet.stream().mapToDouble(VertexOfDualGraph::getWeight).sum() < targetWeightSource) {
+            sourceSet = selectVerticesForSet(vertices, index, targetWeightSource, new HashSet<>(), currentGraph, startVertices.get(0));
+            if (sourceSet.stream().mapToDouble(VertexOfDualGraph::getWeight).sum()
+                    > maxSourceSet.stream().mapToDouble(VertexOfDualGraph::getWeight).sum()) {
+                maxSourceSet = new HashSet<>(sourceSet);
             }
+            index++;
+        }
+        if (!maxSourceSet.isEmpty()) {
+            sourceSet = new HashSet<>(maxSourceSet);
+        }
 
-            HashSet<VertexOfDualGraph> sinkSet = new HashSet<>();
-            HashSet<VertexOfDualGraph> maxSinkSet = new HashSet<>();
-            index = 1;
-            while (index <= vertices.size() && sinkSet.stream().mapToDouble(Vertex::getWeight).sum() < targetWeightSink) {
-                int currentIndex = vertices.size() - index;
-                VertexOfDualGraph candidate = vertices.get(currentIndex);
+        HashSet<VertexOfDualGraph> sinkSet = new HashSet<>();
+        HashSet<VertexOfDualGraph> maxSinkSet = new HashSet<>();
+        index = 1;
+        while (index <= vertices.size() && sinkSet.stream().mapToDouble(Vertex::getWeight).sum() < targetWeightSink) {
+            int currentIndex = vertices.size() - index;
+            VertexOfDualGraph candidate = vertices.get(currentIndex);
 
-                if (sourceSet.contains(candidate)) {
-                    index++;
-                    continue;
-                }
+            if (sourceSet.contains(candidate)) {
+                index++;
+                continue;
+            }
 
-                VertexOfDualGraph startVertex = null;
-                if (startVertices.size() > 1) {
-                    startVertex = startVertices.get(1);
-                }
-                logger.debug("graph size = {}, startVertices size = {}", currentGraph.verticesArray().size(), startVertices.size());
-                sinkSet = selectVerticesForSet(vertices, currentIndex, targetWeightSink, sourceSet, currentGraph, startVertex);
+            VertexOfDualGraph startVertex = null;
+            if (startVertices.size() > 1) {
+                startVertex = startVertices.get(1);
+            }
+            logger.debug("graph size = {}, startVertices size = {}", currentGraph.verticesArray().size(), startVertices.size());
+            sinkSet = selectVerticesForSet(vertices, currentIndex, targetWeightSink, sourceSet, currentGraph, startVertex);
 
-                boolean isDisjoint = Collections.disjoint(sinkSet, sourceSet);
-                if (isDisjoint && sinkSet.stream().mapToDouble(Vertex::getWeight).sum()
-                        > maxSinkSet.stream().mapToDouble(Vertex::getWeight).sum()) {
-                    maxSinkSet = new HashSet<>(sinkSet);
-                }
-                index++;
+            boolean isDisjoint = Collections.disjoint(sinkSet, sourceSet);
+            if (isDisjoint && sinkSet.stream().mapToDouble(Vertex::getWeight).sum()
+                    > maxSinkSet.stream().mapToDouble(Vertex::getWeight).sum()) {
+                maxSinkSet = new HashSet<>(sinkSet);
             }
+            index++;
+        }
 
-            if (!maxSinkSet.isEmpty()) {
-                sinkSet = new HashSet<>(maxSinkSet);
+        if (!maxSinkSet.isEmpty()) {
+            sinkSet = new HashSet<>(maxSinkSet);
+        } else {
+            sourceSet = new HashSet<>();
+            sinkSet = new HashSet<>();
+
+            List<VertexOfDualGraph> nonLeafVertices = vertices.stream()
+                    .filter(v -> currentGraph.getEdges().get(v).size() >= 2)
+                    .toList();
+
+            if (nonLeafVertices.size() >= 2) {
+                sourceSet.add(nonLeafVertices.get(0));
+                sinkSet.add(nonLeafVertices.get(1));
+            } else if (nonLeafVertices.size() == 1) {
+                sourceSet.add(nonLeafVertices.get(0));
+                vertices.stream()
+                        .filter(v -> !v.equals(nonLeafVertices.get(0)))
+                        .findFirst()
+                        .ifPresent(sinkSet::add);
             } else {
-                sourceSet = new HashSet<>();
-                sinkSet = new HashSet<>();
-
-                List<VertexOfDualGraph> nonLeafVertices = vertices.stream()
-                        .filter(v -> currentGraph.getEdges().get(v).size() >= 2)
-                        .toList();
-
-                if (nonLeafVertices.size() >= 2) {
-                    sourceSet.add(nonLeafVertices.get(0));
-                    sinkSet.add(nonLeafVertices.get(1));
-                } else if (nonLeafVertices.size() == 1) {
-                    sourceSet.add(nonLeafVertices.get(0));
-                    vertices.stream()
-                            .filter(v -> !v.equals(nonLeafVertices.get(0)))
-                            .findFirst()
-                            .ifPresent(sinkSet::add);
+                if (vertices.size() >= 2) {
+                    sourceSet.add(vertices.get(0));
+                    sinkSet.add(vertices.get(1));
                 } else {
-                    if (vertices.size() >= 2) {
-                        sourceSet.add(vertices.get(0));
-                        sinkSet.add(vertices.get(1));
-                    } else {
-                        throw new IllegalStateException("Graph contains less than 2 vertices");
-                    }
+                    throw new IllegalStateException("Graph contains less than 2 vertices");
                 }
             }
+        }
 
-            // Если sourceSet пустой, выбираем самую левую вершину (минимальная проекция)
-            if (sourceSet.isEmpty()) {
-                logger.warn("Source set is empty, selecting extremum vertex");
-                selectExtremumVertex(vertices, sinkSet, bestLine, true)
-                        .ifPresent(sourceSet::add);
-                logger.warn("Found source extremum vertex {}", sourceSet.iterator().next().name);
-            }
-            
-            // Если sinkSet пустой, выбираем самую правую вершину (максимальная проекция)
-            if (sinkSet.isEmpty()) {
-                logger.warn("Sink set is empty, selecting extremum vertex");
-                selectExtremumVertex(vertices, sourceSet, bestLine, false)
-                        .ifPresent(sinkSet::add);
-                logger.warn("Found sink extremum vertex {}", sinkSet.iterator().next().name);
-            }
+        // Если sourceSet пустой, выбираем самую левую вершину (минимальная проекция)
+        if (sourceSet.isEmpty()) {
+            logger.warn("Source set is empty, selecting extremum vertex");
+            selectExtremumVertex(vertices, sinkSet, line, true)
+                    .ifPresent(sourceSet::add);
+            logger.warn("Found source extremum vertex {}", sourceSet.iterator().next().name);
+        }
+        
+        // Если sinkSet пустой, выбираем самую правую вершину (максимальная проекция)
+        if (sinkSet.isEmpty()) {
+            logger.warn("Sink set is empty, selecting extremum vertex");
+            selectExtremumVertex(vertices, sourceSet, line, false)
+                    .ifPresent(sinkSet::add);
+            logger.warn("Found sink extremum vertex {}", sinkSet.iterator().next().name);
+        }
 
-            // Добираем вершины, достижимые только из одного множества
-            expandSetsWithUnreachableRegions(currentGraph, sourceSet, sinkSet);
+        // Добираем вершины, достижимые только из одного множества
+        expandSetsWithUnreachableRegions(currentGraph, sourceSet, sinkSet);
 
-            long time2 = System.currentTimeMillis();
-            logger.info("Time for selecting source and sink: {} seconds", (time2 - time1) / 1000.0);
+        long time2 = System.currentTimeMillis();
+        logger.info("Time for selecting source and sink: {} seconds", (time2 - time1) / 1000.0);
 
-            logger.debug("sourceSet size = {}, sinkSet size = {}", sourceSet.size(), sinkSet.size());
-            Graph<VertexOfDualGraph> copyGraph = createGraphWithSourceSink(currentGraph, sourceSet, source, sinkSet, sink);
+        logger.debug("sourceSet size = {}, sinkSet size = {}", sourceSet.size(), sinkSet.size());
+        Graph<VertexOfDualGraph> copyGraph = createGraphWithSourceSink(currentGraph, sourceSet, source, sinkSet, sink);
 
-            long time3 = System.currentTimeMillis();
-            logger.info("Time for creating graph with source and sink: {} seconds", (time3 - time2) / 1000.0);
+        long time3 = System.currentTimeMillis();
+        logger.info("Time for creating graph with source and sink: {} seconds", (time3 - time2) / 1000.0);
 
-            Assertions.assertEquals(currentGraph.verticesNumber() + 2, copyGraph.verticesNumber());
+        Assertions.assertEquals(currentGraph.verticesNumber() + 2, copyGraph.verticesNumber());
 
-            MaxFlow maxFlow;
-            if (USE_REIF) {
-                maxFlow = new MaxFlowReif(simpleGraph, copyGraph, source, sink, comparisonForDualGraph);
-            } else {
-                maxFlow = new MaxFlowDinic(copyGraph, source, sink);
-            }
-            FlowResult flowResult = maxFlow.findFlow();
-            logger.debug("Flow size: {}", flowResult.flowSize());
-            long time4 = System.currentTimeMillis();
-            logger.info("Time for finding flow: {} seconds", (time4 - time3) / 1000.0);
-
-            List<Graph<VertexOfDualGraph>> subpartition;
-            if (USE_REIF) {
-                subpartition = partitionGraphReif(flowResult);
-            } else {
-                subpartition = partitionGraph(flowResult);
-            }
-            for (Graph<VertexOfDualGraph> subgraph : subpartition) {
-                if (!subgraph.isConnected()) {
-                    logger.warn("Subgraph is not connected");
-                    // TODO - странный путь, когда станет понятно почему, пролемы быть не должно
-                }
-            }
-            long time5 = System.currentTimeMillis();
-            logger.info("Time for partitioning graph: {} seconds", (time5 - time4) / 1000.0);
-            logger.debug("SUBPARTITION SIZE: {}", subpartition.size());
-            logger.debug("Subgraph 0 vertices: {}, weight: {}", subpartition.get(0).verticesNumber(), subpartition.get(0).verticesWeight());
-            logger.debug("Subgraph 1 vertices: {}, weight: {}", subpartition.get(1).verticesNumber(), subpartition.get(1).verticesWeight());
-            logger.debug("Original graph vertices: {}, weight: {}\n\n", currentGraph.verticesNumber(), currentGraph.verticesWeight());
-
-            for (Graph<VertexOfDualGraph> subgraph : subpartition) {
-                stack.push(subgraph);
+        MaxFlow maxFlow = switch (FLOW_ALGORITHM) {
+            // в ForkJoinPool разные части, а в режиме ALL_LINES разные линии одной части
+            // пишут отладочные данные в одни и те же каталоги
+            case REIF -> new MaxFlowReif(simpleGraph, copyGraph, source, sink, comparisonForDualGraph, SPLIT_BATCH_SIZE,
+                    PARALLELISM == 1 && !ALL_LINES);
+            case DINIC -> new MaxFlowDinic(copyGraph, source, sink);
+            case PUSH_RELABEL -> new MaxFlowPushRelabel(copyGraph, source, sink);
+        };
+        FlowResult flowResult = maxFlow.findFlow();
+        logger.debug("Flow size: {}", flowResult.flowSize());
+        long time4 = System.currentTimeMillis();
+        logger.info("Time for finding flow: {} seconds", (time4 - time3) / 1000.0);
+
+        List<Graph<VertexOfDualGraph>> subpartition;
+        if (FLOW_ALGORITHM == FlowAlgorithm.REIF) {
+            subpartition = partitionGraphReif(flowResult);
+        } else {
+            subpartition = partitionGraph(flowResult);
+        }
+        for (Graph<VertexOfDualGraph> subgraph : subpartition) {
+            if (!subgraph.isConnected()) {
+                logger.warn("Subgraph is not connected");
+                // TODO - странный путь, когда станет понятно почему, пролемы быть не должно
             }
         }
-        long endTime = System.currentTimeMillis();
-        logger.info("Total time in Inertial Flow: {} seconds", (endTime - startTime) / 1000.0);
+        long time5 = System.currentTimeMillis();
+        logger.info("Time for partitioning graph: {} seconds", (time5 - time4) / 1000.0);
+        logger.debug("SUBPARTITION SIZE: {}", subpartition.size());
+        logger.debug("Subgraph 0 vertices: {}, weight: {}", subpartition.get(0).verticesNumber(), subpartition.get(0).verticesWeight());
+        logger.debug("Subgraph 1 vertices: {}, weight: {}", subpartition.get(1).verticesNumber(), subpartition.get(1).verticesWeight());
+        logger.debug("Original graph vertices: {}, weight: {}\n\n", currentGraph.verticesNumber(), currentGraph.verticesWeight());
+
+        return new Cut(line, subpartition, flowResult.flowSize());
     }
 
     public HashSet<VertexOfDualGraph> selectVerticesForSet(
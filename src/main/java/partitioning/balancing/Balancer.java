@@ -14,11 +14,14 @@ import partitioning.algorithms.InertialFlowPartitioning;
 
 public class Balancer {
     private static final Logger logger = LoggerFactory.getLogger(Balancer.class);
+    private static final int SMALLEST_PART = -1;
+    private static final int OTHER_PART = -2;
 
     Graph<PartitionGraphVertex> partitionGraph;
     Graph<VertexOfDualGraph> dualGraph;
     Graph<Vertex> startGraph;
     Map<Vertex, VertexOfDualGraph> comparisonForDualGraph;
+    VertexIndex<VertexOfDualGraph> dualIndex;
     Set<Set<VertexOfDualGraph>> wasMerged = new HashSet<>();
     int maxWeight;
     String pathToResultDirectory;
@@ -33,6 +36,7 @@ public class Balancer {
     ) {
         this.partitionGraph = partitionGraph;
         this.dualGraph = dualGraph;
+        this.dualIndex = new VertexIndex<>(dualGraph.verticesArray());
         this.startGraph = startGraph.makeUndirectedGraph();
         this.maxWeight = maxWeight;
         this.comparisonForDualGraph = comparisonForDualGraph;
@@ -247,6 +251,17 @@ public class Balancer {
 
             List<VertexOfDualGraph> verticesToRedistribute = new ArrayList<>(smallestVertex.vertices);
             Set<VertexOfDualGraph> wasRedistributed = new HashSet<>();
+            // номер соседа, которому принадлежит вершина dual графа, SMALLEST_PART для разбираемого региона
+            int[] owner = new int[dualIndex.size()];
+            Arrays.fill(owner, OTHER_PART);
+            for (VertexOfDualGraph vertex : smallestVertex.vertices) {
+                owner[dualIndex.id(vertex)] = SMALLEST_PART;
+            }
+            for (int i = 0; i < neighbors.size(); i++) {
+                for (VertexOfDualGraph vertex : neighbors.get(i).vertices) {
+                    owner[dualIndex.id(vertex)] = i;
+                }
+            }
             Map<VertexOfDualGraph, VertexOfDualGraph> vertexToBestNeighbor = new HashMap<>();
 
             PriorityQueue<Comp> priorityQueue = new PriorityQueue<>(
@@ -255,8 +270,8 @@ public class Balancer {
 
             // TODO - не добавлять пары, которые не смежны
             for (VertexOfDualGraph vertex : verticesToRedistribute) {
-                for (PartitionGraphVertex neighbor : neighbors) {
-                    priorityQueue.add(new Comp(vertex, smallestVertex, neighbor));
+                for (int i = 0; i < neighbors.size(); i++) {
+                    priorityQueue.add(new Comp(vertex, neighbors.get(i), i, owner));
                 }
             }
 
@@ -276,11 +291,12 @@ public class Balancer {
                 if (newWeight <= maxWeight) {
                     neighbor.addVertex(vertex);
                     smallestVertex.removeVertex(vertex);
+                    owner[dualIndex.id(vertex)] = comp.neighborIndex;
                     wasRedistributed.add(vertex);
                     vertexToBestNeighbor.put(vertex, bestNeighborVertex);
                     for (VertexOfDualGraph dualVertex : verticesToRedistribute) {
                         if (!wasRedistributed.contains(dualVertex) && dualGraph.getEdges().get(vertex).containsKey(dualVertex)) {
-                            priorityQueue.add(new Comp(dualVertex, smallestVertex, neighbor));
+                            priorityQueue.add(new Comp(dualVertex, neighbor, comp.neighborIndex, owner));
                         }
                     }
                 }
@@ -321,24 +337,27 @@ public class Balancer {
     class Comp {
         VertexOfDualGraph vertex;
         PartitionGraphVertex neighbor;
+        int neighborIndex;
         VertexOfDualGraph bestNeighborVertex;
         double ratio;
 
-        public Comp(VertexOfDualGraph vertex, PartitionGraphVertex part, PartitionGraphVertex neighbor) {
+        public Comp(VertexOfDualGraph vertex, PartitionGraphVertex neighbor, int neighborIndex, int[] owner) {
             this.vertex = vertex;
             this.neighbor = neighbor;
+            this.neighborIndex = neighborIndex;
             double countInnerEdges = 0;
             double countOuterEdges = 0;
             double bestEdgeLength = 0;
             for (VertexOfDualGraph neighborVertex : dualGraph.getEdges().get(vertex).keySet()) {
                 Edge edge = dualGraph.getEdges().get(vertex).get(neighborVertex);
-                if (new HashSet<>(neighbor.vertices).contains(neighborVertex)) {
+                int neighborOwner = owner[dualIndex.id(neighborVertex)];
+                if (neighborOwner == neighborIndex) {
                     countOuterEdges += edge.length;
                     if (edge.length > bestEdgeLength) {
                         bestEdgeLength = edge.length;
                         bestNeighborVertex = neighborVertex;
                     }
-                } else if (new HashSet<>(part.vertices).contains(neighborVertex)) {
+                } else if (neighborOwner == SMALLEST_PART) {
                     countInnerEdges += edge.length;
                 }
             }
@@ -0,0 +1,212 @@
+package partitioning.balancing;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import addingPoints.FaceIndex;
+import addingPoints.WeightedPoints;
+import graph.Graph;
+import graph.PartitionGraphVertex;
+import graph.Vertex;
+import graph.VertexOfDualGraph;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import partitioning.BalancedPartitioning;
+
+/**
+ * Обновление разбиения при изменении зданий без повторного чтения и подготовки графа.
+ * Здания локализуются индексом граней, меняются веса только затронутых граней,
+ * затем перегруженные регионы делятся заново, а затронутые регионы вместе с соседями
+ * перебалансируются {@link Balancer} на подграфе двойственного графа.
+ * Полное разбиение запускается, если суммарное изменение весов больше imbalanceThreshold от веса графа.
+ * Измененное здание передается как удаленное старое и добавленное новое
+ */
+public class IncrementalBalancer {
+    private static final Logger logger = LoggerFactory.getLogger(IncrementalBalancer.class);
+
+    private final BalancedPartitioning partitioning;
+    private final Graph<Vertex> startGraph;
+    private final HashMap<Vertex, VertexOfDualGraph> comparisonForDualGraph;
+    private final Graph<VertexOfDualGraph> dualGraph;
+    private final FaceIndex faceIndex;
+    private final int maxWeight;
+    private final double imbalanceThreshold;
+    /**
+     * Сумма весов зданий в грани до вычитания maxWeight в extractBigVertices
+     */
+    private final Map<VertexOfDualGraph, Double> buildingsWeight = new HashMap<>();
+    private List<Set<VertexOfDualGraph>> partition;
+    private boolean fullRepartition;
+
+    /**
+     * @param buildings здания, по которым посчитаны текущие веса граней
+     * @param partition текущее разбиение двойственного графа
+     */
+    public IncrementalBalancer(BalancedPartitioning partitioning,
+                               Graph<Vertex> startGraph,
+                               HashMap<Vertex, VertexOfDualGraph> comparisonForDualGraph,
+                               Graph<VertexOfDualGraph> dualGraph,
+                               FaceIndex faceIndex,
+                               WeightedPoints buildings,
+                               List<Set<VertexOfDualGraph>> partition,
+                               int maxWeight,
+                               double imbalanceThreshold) {
+        this.partitioning = partitioning;
+        this.startGraph = startGraph;
+        this.comparisonForDualGraph = comparisonForDualGraph;
+        this.dualGraph = dualGraph;
+        this.faceIndex = faceIndex;
+        this.maxWeight = maxWeight;
+        this.imbalanceThreshold = imbalanceThreshold;
+        this.partition = new ArrayList<>(partition);
+        addBuildingsWeight(buildings, 1);
+    }
+
+    public List<Set<VertexOfDualGraph>> getPartition() {
+        return partition;
+    }
+
+    /**
+     * @return было ли последнее обновление полным разбиением
+     */
+    public boolean wasFullRepartition() {
+        return fullRepartition;
+    }
+
+    /**
+     * Применяет изменения зданий к весам граней и чинит разбиение
+     * @return новое разбиение
+     */
+    public List<Set<VertexOfDualGraph>> update(WeightedPoints added, WeightedPoints removed) {
+        Map<VertexOfDualGraph, Double> weightChange = new HashMap<>();
+        mergeChange(weightChange, addBuildingsWeight(added, 1));
+        mergeChange(weightChange, addBuildingsWeight(removed, -1));
+        double changedWeight = 0;
+        for (Map.Entry<VertexOfDualGraph, Double> entry : weightChange.entrySet()) {
+            VertexOfDualGraph face = entry.getKey();
+            face.setWeight(reducedWeight(buildingsWeight.getOrDefault(face, 0.0)));
+            changedWeight += Math.abs(entry.getValue());
+        }
+        double totalWeight = dualGraph.verticesSumWeight();
+        fullRepartition = totalWeight == 0 || changedWeight / totalWeight > imbalanceThreshold;
+        if (fullRepartition) {
+            logger.info("Weight change {} of {}, full repartition", changedWeight, totalWeight);
+            partition = fullPartition();
+            return partition;
+        }
+        if (weightChange.isEmpty()) {
+            return partition;
+        }
+        repairLocally(weightChange.keySet());
+        return partition;
+    }
+
+    /**
+     * Делит заново перегруженные затронутые регионы и перебалансирует их вместе с соседними регионами
+     */
+    private void repairLocally(Set<VertexOfDualGraph> changedFaces) {
+        Map<VertexOfDualGraph, Integer> partNumber = partNumbers(partition);
+        Set<Integer> affectedParts = new HashSet<>();
+        for (VertexOfDualGraph face : changedFaces) {
+            affectedParts.add(partNumber.get(face));
+        }
+
+        Set<Integer> region = new LinkedHashSet<>(affectedParts);
+        for (int part : affectedParts) {
+            for (VertexOfDualGraph face : partition.get(part)) {
+                for (VertexOfDualGraph neighbor : dualGraph.getEdges().get(face).keySet()) {
+                    region.add(partNumber.get(neighbor));
+                }
+            }
+        }
+
+        List<Set<VertexOfDualGraph>> localParts = new ArrayList<>();
+        Set<VertexOfDualGraph> regionFaces = new HashSet<>();
+        for (int part : region) {
+            Set<VertexOfDualGraph> faces = partition.get(part);
+            regionFaces.addAll(faces);
+            if (affectedParts.contains(part) && faces.stream().mapToDouble(Vertex::getWeight).sum() > maxWeight) {
+                localParts.addAll(partitioning.partition(startGraph, comparisonForDualGraph,
+                        dualGraph.createSubgraph(faces), maxWeight));
+            } else {
+                localParts.add(faces);
+            }
+        }
+
+        Graph<VertexOfDualGraph> regionGraph = dualGraph.createSubgraph(regionFaces);
+        Balancer balancer = new Balancer(
+                PartitionGraphVertex.buildPartitionGraph(regionGraph, localParts, partNumbers(localParts)),
+                regionGraph, startGraph, maxWeight, comparisonForDualGraph, null);
+        List<Set<VertexOfDualGraph>> rebalanced = balancer.rebalancing();
+
+        List<Set<VertexOfDualGraph>> newPartition = new ArrayList<>();
+        for (int i = 0; i < partition.size(); i++) {
+            if (!region.contains(i)) {
+                newPartition.add(partition.get(i));
+            }
+        }
+        newPartition.addAll(rebalanced);
+        logger.info("Changed faces: {}, affected parts: {}, rebalanced parts: {} -> {}",
+                changedFaces.size(), affectedParts.size(), region.size(), rebalanced.size());
+        partition = newPartition;
+    }
+
+    private List<Set<VertexOfDualGraph>> fullPartition() {
+        List<Set<VertexOfDualGraph>> newPartition = partitioning.partition(startGraph, comparisonForDualGraph,
+                dualGraph, maxWeight);
+        Balancer balancer = new Balancer(
+                PartitionGraphVertex.buildPartitionGraph(dualGraph, newPartition, partNumbers(newPartition)),
+                dualGraph, startGraph, maxWeight, comparisonForDualGraph, null);
+        return balancer.rebalancing();
+    }
+
+    /**
+     * Добавляет sign * вес зданий к весам их граней, здания вне граней пропускаются
+     * @return изменение веса для каждой затронутой грани
+     */
+    private Map<VertexOfDualGraph, Double> addBuildingsWeight(WeightedPoints buildings, int sign) {
+        Map<VertexOfDualGraph, Double> change = new HashMap<>();
+        VertexOfDualGraph[] faces = faceIndex.findFaces(buildings.toVertices());
+        for (int i = 0; i < faces.length; i++) {
+            if (faces[i] == null) {
+                continue;
+            }
+            double weight = sign * buildings.weights()[i];
+            buildingsWeight.merge(faces[i], weight, Double::sum);
+            change.merge(faces[i], weight, Double::sum);
+        }
+        return change;
+    }
+
+    private static void mergeChange(Map<VertexOfDualGraph, Double> to, Map<VertexOfDualGraph, Double> from) {
+        for (Map.Entry<VertexOfDualGraph, Double> entry : from.entrySet()) {
+            to.merge(entry.getKey(), entry.getValue(), Double::sum);
+        }
+    }
+
+    /**
+     * Вес грани так же, как после extractBigVertices
+     */
+    private double reducedWeight(double weight) {
+        double result = Math.max(weight, 0);
+        while (result >= maxWeight) {
+            result -= maxWeight;
+        }
+        return result;
+    }
+
+    private static Map<VertexOfDualGraph, Integer> partNumbers(List<Set<VertexOfDualGraph>> parts) {
+        Map<VertexOfDualGraph, Integer> partNumber = new HashMap<>();
+        for (int i = 0; i < parts.size(); i++) {
+            for (VertexOfDualGraph face : parts.get(i)) {
+                partNumber.put(face, i);
+            }
+        }
+        return partNumber;
+    }
+}
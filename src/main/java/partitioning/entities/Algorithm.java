@@ -13,9 +13,29 @@ public enum Algorithm {
     public static BalancedPartitioning getBalancedPartitioningByAlgorithmName(
             Algorithm algorithmName,
             double partitionParameter) {
+        return getBalancedPartitioningByAlgorithmName(algorithmName, partitionParameter, FlowAlgorithm.REIF, 1, false);
+    }
+
+    public static BalancedPartitioning getBalancedPartitioningByAlgorithmName(
+            Algorithm algorithmName,
+            double partitionParameter,
+            FlowAlgorithm flowAlgorithm,
+            int parallelism,
+            boolean allLines) {
+        return getBalancedPartitioningByAlgorithmName(algorithmName, partitionParameter, flowAlgorithm, parallelism,
+                allLines, 1);
+    }
+
+    public static BalancedPartitioning getBalancedPartitioningByAlgorithmName(
+            Algorithm algorithmName,
+            double partitionParameter,
+            FlowAlgorithm flowAlgorithm,
+            int parallelism,
+            boolean allLines,
+            int splitBatchSize) {
         return switch (algorithmName) {
             case IF -> new BalancedPartitioning(
-                    new InertialFlowPartitioning(partitionParameter, true));
+                    new InertialFlowPartitioning(partitionParameter, flowAlgorithm, parallelism, allLines, splitBatchSize));
             case BUP -> new BalancedPartitioning(
                     new BubblePartitioning());
             case BUS -> new BalancedPartitioning(
@@ -6,6 +6,9 @@ import java.util.Map;
 import graph.Vertex;
 import graph.VertexOfDualGraph;
 
+/**
+ * @param settledVertices number of vertices polled from the queue by the search
+ */
 public record DijkstraResult(
         List<Vertex> path,
         double distance,
@@ -16,5 +19,6 @@ public record DijkstraResult(
         List<Double> weights,
         List<Double> distances,
         List<Integer> leafIndices,
-        double totalRegionWeight
+        double totalRegionWeight,
+        int settledVertices
 ) { }
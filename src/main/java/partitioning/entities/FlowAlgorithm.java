@@ -0,0 +1,7 @@
+package partitioning.entities;
+
+public enum FlowAlgorithm {
+    REIF,
+    DINIC,
+    PUSH_RELABEL
+}
@@ -1,44 +1,26 @@
 package partitioning.maxflow;
 
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.PriorityQueue;
 
-import graph.Edge;
+import graph.CompactGraph;
 import graph.Graph;
+import graph.IndexedHeap;
 import graph.Vertex;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import partitioning.entities.DijkstraResult;
-import partitioning.entities.VertexDistance;
 
 public class Dijkstra {
     private static final Logger logger = LoggerFactory.getLogger(Dijkstra.class);
 
-    /**
-     * Внутреннее состояние алгоритма Dijkstra
-     */
-    private static class DijkstraState {
-        final Map<Vertex, Double> distances;
-        final Map<Vertex, Vertex> previous;
-        final PriorityQueue<VertexDistance> queue;
-
-        Vertex targetVertex;
-        double minDistance;
-
-        DijkstraState() {
-            this.distances = new HashMap<>();
-            this.previous = new HashMap<>();
-            this.queue = new PriorityQueue<>(Comparator.comparingDouble(VertexDistance::distance));
-            this.targetVertex = null;
-            this.minDistance = Double.MAX_VALUE;
-        }
-    }
-
     /**
      * Находит кратчайший путь от множества источников до целевой границы
      */
@@ -50,19 +32,7 @@ public class Dijkstra {
 
         logDebugInfo(graph, sourceVertices, targetBoundary, cornerConstraints);
 
-        DijkstraState state = new DijkstraState();
-        initializeDistances(state, graph, sourceVertices);
-
-        processGraph(state, graph, targetBoundary, cornerConstraints);
-
-        if (state.targetVertex == null) {
-            logger.debug("  No target vertex found!");
-            return Optional.empty();
-        }
-
-        List<Vertex> path = reconstructPath(state.previous, state.targetVertex);
-
-        return Optional.of(createResult(path, state));
+        return dijkstraMultiSource(new CompactGraph<>(graph), sourceVertices, targetBoundary, cornerConstraints);
     }
 
     /**
@@ -112,170 +82,295 @@ public class Dijkstra {
     }
 
     /**
-     * Инициализирует расстояния для всех вершин
+     * Множество id вершин границы, в которых можно остановиться, вместе с их split-вершинами
+     * (у split-вершин имена name * 1000 + 1 и name * 1000 + 2 и те же координаты).
+     * Строится за O(|boundary|), проверка принадлежности - O(1)
      */
-    private static void initializeDistances(
-            DijkstraState state,
-            Graph<Vertex> graph,
-            List<Vertex> sourceVertices) {
-
-        // Устанавливаем бесконечное расстояние для всех вершин
-        for (Vertex v : graph.verticesArray()) {
-            state.distances.put(v, Double.MAX_VALUE);
+    public static BitSet targetIds(CompactGraph<Vertex> graph, Collection<Vertex> boundary) {
+        BitSet targets = new BitSet(graph.verticesNumber());
+        for (Vertex vertex : boundary) {
+            markTarget(graph, targets, vertex);
+            markTarget(graph, targets, new Vertex(vertex.name * 1000 + 1, vertex.x, vertex.y, 0));
+            markTarget(graph, targets, new Vertex(vertex.name * 1000 + 2, vertex.x, vertex.y, 0));
         }
+        return targets;
+    }
 
-        // Устанавливаем нулевое расстояние для источников
-        for (Vertex sourceVertex : sourceVertices) {
-            state.distances.put(sourceVertex, 0.0);
-            state.queue.add(new VertexDistance(sourceVertex, 0.0));
+    private static void markTarget(CompactGraph<Vertex> graph, BitSet targets, Vertex vertex) {
+        int id = graph.id(vertex);
+        if (id >= 0 && graph.vertex(id).getIsOnBoundary()) {
+            targets.set(id);
         }
     }
 
     /**
-     * Основной алгоритм Dijkstra - обрабатывает граф
+     * Находит кратчайший путь от одного источника до целевой границы
      */
-    private static void processGraph(
-            DijkstraState state,
+    public static Optional<DijkstraResult> dijkstraSingleSource(
             Graph<Vertex> graph,
+            Vertex sourceVertex,
+            List<Vertex> targetBoundary,
+            CornerConstraints cornerConstraints) {
+        return dijkstraMultiSource(graph, List.of(sourceVertex), targetBoundary, cornerConstraints);
+    }
+
+    /**
+     * Находит кратчайший путь от множества источников до целевой границы на CSR представлении графа
+     */
+    public static Optional<DijkstraResult> dijkstraMultiSource(
+            CompactGraph<Vertex> graph,
+            List<Vertex> sourceVertices,
             List<Vertex> targetBoundary,
             CornerConstraints cornerConstraints) {
+        return dijkstraMultiSource(graph, sourceVertices, targetIds(graph, targetBoundary), cornerConstraints);
+    }
+
+    /**
+     * Находит кратчайший путь от множества источников до вершин с id из targets.
+     * Очередь - индексированная куча с уменьшением ключа, каждая вершина в ней не больше одного раза
+     */
+    public static Optional<DijkstraResult> dijkstraMultiSource(
+            CompactGraph<Vertex> graph,
+            List<Vertex> sourceVertices,
+            BitSet targets,
+            CornerConstraints cornerConstraints) {
 
-        while (!state.queue.isEmpty()) {
-            VertexDistance current = state.queue.poll();
+        int n = graph.verticesNumber();
+        double[] distances = new double[n];
+        int[] previous = new int[n];
+        Arrays.fill(distances, Double.MAX_VALUE);
+        Arrays.fill(previous, -1);
+        IndexedHeap queue = new IndexedHeap(n);
 
-            // Пропускаем устаревшие записи в очереди
-            if (isOutdated(current, state.distances)) {
+        for (Vertex sourceVertex : sourceVertices) {
+            int id = graph.id(sourceVertex);
+            if (id < 0) {
+                logger.debug("  Source vertex {} NOT IN GRAPH!", sourceVertex.getName());
                 continue;
             }
+            distances[id] = 0.0;
+            queue.push(id, 0.0);
+        }
 
-            // Проверяем достигли ли целевой границы
-            if (isBoundaryContainsVertex(targetBoundary, current.vertex()) && current.vertex().getIsOnBoundary()) {
-                updateTarget(state, current);
-                // continue;
+        int targetId = -1;
+        double minDistance = Double.MAX_VALUE;
+        int settled = 0;
+        while (!queue.isEmpty()) {
+            int id = queue.poll();
+            settled++;
+            if (targets.get(id) && distances[id] < minDistance) {
+                minDistance = distances[id];
+                targetId = id;
+            }
+            Vertex vertex = graph.vertex(id);
+            // ограничения есть только у угловых вершин, остальные вершины не проверяются для каждой дуги
+            boolean corner = cornerConstraints.isCornerVertex(vertex);
+            for (int arc = graph.begin(id); arc < graph.end(id); arc++) {
+                int neighbor = graph.target(arc);
+                if (corner && !cornerConstraints.isNeighborAllowed(vertex, graph.vertex(neighbor))) {
+                    continue;
+                }
+                double newDistance = distances[id] + graph.length(arc);
+                if (newDistance < distances[neighbor]) {
+                    distances[neighbor] = newDistance;
+                    previous[neighbor] = id;
+                    queue.push(neighbor, newDistance);
+                }
             }
-
-            // Обрабатываем соседей текущей вершины
-            processNeighbors(state, graph, current, cornerConstraints);
         }
-    }
 
-    private static boolean isBoundaryContainsVertex(List<Vertex> boundary, Vertex vertex) {
-        if (boundary.contains(vertex)) {
-            return true;
+        if (targetId == -1) {
+            logger.debug("  No target vertex found!");
+            return Optional.empty();
         }
-        // проверяем что основная вершина для разделенной вершины на границе
-        Vertex vertexMain = new Vertex(vertex.name / 1000, vertex.x, vertex.y);
-        return boundary.contains(vertexMain);
-    }
 
-    /**
-     * Проверяет является ли запись в очереди устаревшей
-     */
-    private static boolean isOutdated(VertexDistance current, Map<Vertex, Double> distances) {
-        return current.distance() > distances.get(current.vertex());
+        List<Vertex> path = new ArrayList<>();
+        for (int id = targetId; id != -1; id = previous[id]) {
+            path.add(graph.vertex(id));
+        }
+        Collections.reverse(path);
+
+        Map<Vertex, Double> distancesMap = new HashMap<>();
+        Map<Vertex, Vertex> previousMap = new HashMap<>();
+        for (int id = 0; id < n; id++) {
+            distancesMap.put(graph.vertex(id), distances[id]);
+            if (previous[id] != -1) {
+                previousMap.put(graph.vertex(id), graph.vertex(previous[id]));
+            }
+        }
+        return Optional.of(new DijkstraResult(
+                path,
+                minDistance,
+                previousMap,
+                distancesMap,
+                List.of(),
+                List.of(),
+                List.of(),
+                List.of(),
+                List.of(),
+                0.0,
+                settled
+        ));
     }
 
     /**
-     * Обновляет целевую вершину если найдена лучшая
+     * Двунаправленный поиск кратчайшего пути от множества источников до вершин с id из targets.
+     * Прямой фронт растет от источников по дугам, обратный - от всех целей по входящим дугам,
+     * каждый раз расширяется меньший фронт. Поиск останавливается, когда сумма минимальных ключей
+     * фронтов не меньше лучшего найденного пути через общую вершину.
+     * Дерево кратчайших путей не строится, previous/distances пустые
      */
-    private static void updateTarget(DijkstraState state, VertexDistance current) {
-        if (current.distance() < state.minDistance) {
-            state.minDistance = current.distance();
-            state.targetVertex = current.vertex();
-            logger.debug("  Found target vertex: {} with distance: {}", 
-                    current.vertex().getName(), current.distance());
-        }
+    public static Optional<DijkstraResult> bidirectionalDijkstra(
+            CompactGraph<Vertex> graph,
+            List<Vertex> sourceVertices,
+            BitSet targets,
+            CornerConstraints cornerConstraints) {
+        return bidirectionalDijkstra(graph, sourceVertices, targets, cornerConstraints, new int[2]);
     }
 
     /**
-     * Обрабатывает всех соседей текущей вершины
+     * То же, settled[0] и settled[1] - число вершин, извлеченных прямым и обратным фронтом
      */
-    private static void processNeighbors(
-            DijkstraState state,
-            Graph<Vertex> graph,
-            VertexDistance current,
-            CornerConstraints cornerConstraints) {
-
-        Map<Vertex, Edge> neighbors = graph.getEdges().get(current.vertex());
-        if (neighbors == null) {
-            return;
-        }
-
-        for (Map.Entry<Vertex, Edge> entry : neighbors.entrySet()) {
-            Vertex neighbor = entry.getKey();
+    static Optional<DijkstraResult> bidirectionalDijkstra(
+            CompactGraph<Vertex> graph,
+            List<Vertex> sourceVertices,
+            BitSet targets,
+            CornerConstraints cornerConstraints,
+            int[] settled) {
+
+        int n = graph.verticesNumber();
+        double[] forwardDistances = new double[n];
+        double[] backwardDistances = new double[n];
+        int[] previous = new int[n];
+        int[] next = new int[n];
+        Arrays.fill(forwardDistances, Double.MAX_VALUE);
+        Arrays.fill(backwardDistances, Double.MAX_VALUE);
+        Arrays.fill(previous, -1);
+        Arrays.fill(next, -1);
+        IndexedHeap forwardQueue = new IndexedHeap(n);
+        IndexedHeap backwardQueue = new IndexedHeap(n);
 
-            if (!cornerConstraints.isNeighborAllowed(current.vertex(), neighbor)) {
+        for (Vertex sourceVertex : sourceVertices) {
+            int id = graph.id(sourceVertex);
+            if (id < 0) {
+                logger.debug("  Source vertex {} NOT IN GRAPH!", sourceVertex.getName());
                 continue;
             }
-            processNeighbor(state, current.vertex(), entry.getKey(), entry.getValue());
+            if (targets.get(id)) {
+                // источник на целевой границе - путь нулевой длины, как у однонаправленного поиска
+                return Optional.of(pathResult(List.of(graph.vertex(id)), 0.0, 0));
+            }
+            forwardDistances[id] = 0.0;
+            forwardQueue.push(id, 0.0);
+        }
+        for (int id = targets.nextSetBit(0); id >= 0; id = targets.nextSetBit(id + 1)) {
+            backwardDistances[id] = 0.0;
+            backwardQueue.push(id, 0.0);
         }
-    }
 
-    /**
-     * Обрабатывает одного соседа текущей вершины
-     */
-    private static void processNeighbor(
-            DijkstraState state,
-            Vertex currentVertex,
-            Vertex neighbor,
-            Edge edge) {
-
-        double currentDistance = state.distances.get(currentVertex);
-        double edgeLength = edge.length;
-        double newDistance = currentDistance + edgeLength;
-
-        if (newDistance < state.distances.get(neighbor)) {
-            state.distances.put(neighbor, newDistance);
-            state.previous.put(neighbor, currentVertex);
-            state.queue.add(new VertexDistance(neighbor, newDistance));
+        double bestDistance = Double.MAX_VALUE;
+        int meeting = -1;
+        while (!forwardQueue.isEmpty() && !backwardQueue.isEmpty()
+                && forwardQueue.minKey() + backwardQueue.minKey() < bestDistance) {
+            if (forwardQueue.size() <= backwardQueue.size()) {
+                int id = forwardQueue.poll();
+                settled[0]++;
+                Vertex vertex = graph.vertex(id);
+                boolean corner = cornerConstraints.isCornerVertex(vertex);
+                for (int arc = graph.begin(id); arc < graph.end(id); arc++) {
+                    int neighbor = graph.target(arc);
+                    if (corner && !cornerConstraints.isNeighborAllowed(vertex, graph.vertex(neighbor))) {
+                        continue;
+                    }
+                    double newDistance = forwardDistances[id] + graph.length(arc);
+                    if (newDistance < forwardDistances[neighbor]) {
+                        forwardDistances[neighbor] = newDistance;
+                        previous[neighbor] = id;
+                        forwardQueue.push(neighbor, newDistance);
+                        if (backwardDistances[neighbor] != Double.MAX_VALUE
+                                && newDistance + backwardDistances[neighbor] < bestDistance) {
+                            bestDistance = newDistance + backwardDistances[neighbor];
+                            meeting = neighbor;
+                        }
+                    }
+                }
+            } else {
+                int id = backwardQueue.poll();
+                settled[1]++;
+                Vertex vertex = graph.vertex(id);
+                for (int position = graph.incomingBegin(id); position < graph.incomingEnd(id); position++) {
+                    int neighbor = graph.incomingSource(position);
+                    if (!cornerConstraints.isNeighborAllowed(graph.vertex(neighbor), vertex)) {
+                        continue;
+                    }
+                    double newDistance = backwardDistances[id] + graph.length(graph.incomingArc(position));
+                    if (newDistance < backwardDistances[neighbor]) {
+                        backwardDistances[neighbor] = newDistance;
+                        next[neighbor] = id;
+                        backwardQueue.push(neighbor, newDistance);
+                        if (forwardDistances[neighbor] != Double.MAX_VALUE
+                                && forwardDistances[neighbor] + newDistance < bestDistance) {
+                            bestDistance = forwardDistances[neighbor] + newDistance;
+                            meeting = neighbor;
+                        }
+                    }
+                }
+            }
         }
-    }
+        logger.debug("  Bidirectional search settled {} + {} of {} vertices", settled[0], settled[1], n);
 
-    /**
-     * Восстанавливает путь от источника до целевой вершины
-     */
-    private static List<Vertex> reconstructPath(
-            Map<Vertex, Vertex> previous,
-            Vertex targetVertex) {
+        if (meeting == -1) {
+            logger.debug("  No target vertex found!");
+            return Optional.empty();
+        }
 
         List<Vertex> path = new ArrayList<>();
-        Vertex current = targetVertex;
-
-        while (current != null) {
-            path.add(0, current);
-            current = previous.get(current);
+        for (int id = meeting; id != -1; id = previous[id]) {
+            path.add(graph.vertex(id));
         }
-
-        return path;
+        Collections.reverse(path);
+        for (int id = next[meeting]; id != -1; id = next[id]) {
+            path.add(graph.vertex(id));
+        }
+        return Optional.of(pathResult(path, bestDistance, settled[0] + settled[1]));
     }
 
-    /**
-     * Создает результат алгоритма Dijkstra
-     */
-    private static DijkstraResult createResult(List<Vertex> path, DijkstraState state) {
+    private static DijkstraResult pathResult(List<Vertex> path, double distance, int settled) {
         return new DijkstraResult(
                 path,
-                state.minDistance,
-                state.previous,
-                state.distances,
+                distance,
+                new HashMap<>(),
+                new HashMap<>(),
                 List.of(),
                 List.of(),
                 List.of(),
                 List.of(),
                 List.of(),
-                0.0
+                0.0,
+                settled
         );
     }
 
     /**
-     * Находит кратчайший путь от одного источника до целевой границы
+     * Находит кратчайший путь от одного источника до целевой границы на CSR представлении графа
      */
     public static Optional<DijkstraResult> dijkstraSingleSource(
-            Graph<Vertex> graph,
+            CompactGraph<Vertex> graph,
             Vertex sourceVertex,
             List<Vertex> targetBoundary,
             CornerConstraints cornerConstraints) {
         return dijkstraMultiSource(graph, List.of(sourceVertex), targetBoundary, cornerConstraints);
     }
 
+    /**
+     * Находит кратчайший путь от одного источника до вершин с id из targets на CSR представлении графа
+     */
+    public static Optional<DijkstraResult> dijkstraSingleSource(
+            CompactGraph<Vertex> graph,
+            Vertex sourceVertex,
+            BitSet targets,
+            CornerConstraints cornerConstraints) {
+        return dijkstraMultiSource(graph, List.of(sourceVertex), targets, cornerConstraints);
+    }
+
 }
\ No newline at end of file
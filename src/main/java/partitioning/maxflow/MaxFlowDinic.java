@@ -1,15 +1,11 @@
 package partitioning.maxflow;
 
+import java.util.Arrays;
 import java.util.Comparator;
-import java.util.HashMap;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Map;
-import java.util.Queue;
+import java.util.stream.IntStream;
 
-import graph.Edge;
+import graph.CompactGraph;
 import graph.Graph;
-import graph.Vertex;
 import graph.VertexOfDualGraph;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -18,25 +14,54 @@ import partitioning.entities.FlowResult;
 public class MaxFlowDinic implements MaxFlow {
     private static final Logger logger = LoggerFactory.getLogger(MaxFlowDinic.class);
     Graph<VertexOfDualGraph> graph;
-    HashMap<VertexOfDualGraph, Integer> lastNeighbourIndex;
+    CompactGraph<VertexOfDualGraph> compactGraph;
     VertexOfDualGraph source;
     VertexOfDualGraph sink;
+    int sourceId;
+    int sinkId;
     double flow;
-    HashMap<VertexOfDualGraph, Integer> level;
-    Queue<VertexOfDualGraph> queue;
+    /*
+     * arcs of every vertex sorted by the name of the neighbour, positions are the same as in compactGraph
+     */
+    int[] sortedArcs;
+    int[] lastNeighbourIndex;
+    int[] level;
+    int[] queue;
+    /*
+     * current augmenting path: arcs and the vertices they start from
+     */
+    int[] pathArcs;
+    int[] pathVertices;
 
 
     public MaxFlowDinic(Graph<VertexOfDualGraph> graph, VertexOfDualGraph source, VertexOfDualGraph sink) {
+        this(new CompactGraph<>(graph), source, sink);
         this.graph = graph;
+    }
+
+
+    public MaxFlowDinic(CompactGraph<VertexOfDualGraph> compactGraph, VertexOfDualGraph source, VertexOfDualGraph sink) {
+        this.compactGraph = compactGraph;
         this.source = source;
         this.sink = sink;
-        this.lastNeighbourIndex = new HashMap<>();
-        for (VertexOfDualGraph vertex : graph.verticesArray()) {
-            lastNeighbourIndex.put(vertex, 0);
-        }
+        this.sourceId = compactGraph.id(source);
+        this.sinkId = compactGraph.id(sink);
         this.flow = 0;
-        this.level = new HashMap<>();
-        this.queue = new LinkedList<>();
+        int n = compactGraph.verticesNumber();
+        this.sortedArcs = new int[compactGraph.edgesNumber()];
+        for (int v = 0; v < n; v++) {
+            int begin = compactGraph.begin(v);
+            int[] arcs = IntStream.range(begin, compactGraph.end(v)).boxed()
+                    .sorted(Comparator.comparing(arc -> compactGraph.vertex(compactGraph.target(arc)).getName()))
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+            System.arraycopy(arcs, 0, sortedArcs, begin, arcs.length);
+        }
+        this.lastNeighbourIndex = new int[n];
+        this.level = new int[n];
+        this.queue = new int[n];
+        this.pathArcs = new int[n];
+        this.pathVertices = new int[n];
     }
 
 
@@ -45,55 +70,82 @@ public class MaxFlowDinic implements MaxFlow {
         int countIterations = 0;
         while (bfs()) {
             countIterations++;
-            lastNeighbourIndex.replaceAll((vertex, integer) -> 0);
+            for (int v = 0; v < lastNeighbourIndex.length; v++) {
+                lastNeighbourIndex[v] = compactGraph.begin(v);
+            }
             double pushed;
-            while ((pushed = dfs(source, Integer.MAX_VALUE)) != 0) {
+            while ((pushed = augment()) != 0) {
                 flow += pushed;
             }
         }
-        logger.info("Number of bfs iterations in dinic: {}, vertices: {}, edges: {}", 
-                countIterations, graph.verticesNumber(), graph.edgesNumber());
+        logger.info("Number of bfs iterations in dinic: {}, vertices: {}, edges: {}",
+                countIterations, compactGraph.verticesNumber(), compactGraph.edgesNumber());
+        if (graph == null) {
+            return new FlowResult(flow, compactGraph.toGraph(), source, sink);
+        }
+        compactGraph.writeFlow(graph);
         return new FlowResult(flow, graph, source, sink);
     }
 
     private boolean bfs() {
-        for (VertexOfDualGraph v : graph.verticesArray()) {
-            level.put(v, Integer.MAX_VALUE);
-        }
-        level.put(source, 0);
-        queue.add(source);
-        while (!queue.isEmpty()) {
-            Vertex u = queue.peek();
-            queue.remove();
-            for (Map.Entry<VertexOfDualGraph, Edge> edge : graph.getEdges().get(u).entrySet()) {
-                if (edge.getValue().flow < edge.getValue().getBandwidth() && level.get(edge.getKey()) == Integer.MAX_VALUE) {
-                    level.put(edge.getKey(), level.get(u) + 1);
-                    queue.add(edge.getKey());
+        Arrays.fill(level, Integer.MAX_VALUE);
+        level[sourceId] = 0;
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = sourceId;
+        while (head < tail) {
+            int u = queue[head++];
+            for (int arc = compactGraph.begin(u); arc < compactGraph.end(u); arc++) {
+                int to = compactGraph.target(arc);
+                if (compactGraph.flow(arc) < compactGraph.bandwidth(arc) && level[to] == Integer.MAX_VALUE) {
+                    level[to] = level[u] + 1;
+                    queue[tail++] = to;
                 }
             }
         }
-        return level.get(sink) != Integer.MAX_VALUE;
+        return level[sinkId] != Integer.MAX_VALUE;
     }
 
-    private double dfs(VertexOfDualGraph vertex, double flow) {
-        if (vertex.equals(sink) || flow == 0) {
-            return flow;
-        }
-        List<Map.Entry<VertexOfDualGraph, Edge>> neighbours = graph.getEdges().get(vertex).entrySet().stream().sorted(Comparator.comparing(v -> v.getKey().getName())).toList();
-        for (; lastNeighbourIndex.get(vertex) < neighbours.size();
-             lastNeighbourIndex.replace(vertex, lastNeighbourIndex.get(vertex), lastNeighbourIndex.get(vertex) + 1)) {
-            Map.Entry<VertexOfDualGraph, Edge> entry = neighbours.get(lastNeighbourIndex.get(vertex));
-            VertexOfDualGraph to = entry.getKey();
-            Edge edge = entry.getValue();
-            if (level.get(to) == level.get(vertex) + 1 && edge.flow < edge.getBandwidth()) {
-                double pushed = dfs(to, Math.min(flow, edge.getBandwidth() - edge.flow));
-                if (pushed > 0) {
-                    edge.flow += pushed;
-                    graph.getEdges().get(to).get(vertex).flow -= pushed;
-                    return pushed;
+    /**
+     * Finds one augmenting path in the level graph with an iterative dfs and pushes flow along it.
+     * Current-arc pointers in lastNeighbourIndex move only past dead ends, as in the recursive version
+     */
+    private double augment() {
+        int depth = 0;
+        int vertex = sourceId;
+        while (vertex != sinkId) {
+            int next = -1;
+            for (; lastNeighbourIndex[vertex] < compactGraph.end(vertex); lastNeighbourIndex[vertex]++) {
+                int arc = sortedArcs[lastNeighbourIndex[vertex]];
+                int to = compactGraph.target(arc);
+                if (level[to] == level[vertex] + 1 && compactGraph.bandwidth(arc) - compactGraph.flow(arc) > 0) {
+                    pathArcs[depth] = arc;
+                    pathVertices[depth] = vertex;
+                    depth++;
+                    next = to;
+                    break;
                 }
             }
+            if (next != -1) {
+                vertex = next;
+                continue;
+            }
+            if (depth == 0) {
+                return 0;
+            }
+            // dead end: step back and skip the arc leading here
+            depth--;
+            vertex = pathVertices[depth];
+            lastNeighbourIndex[vertex]++;
+        }
+        double pushed = Integer.MAX_VALUE;
+        for (int i = 0; i < depth; i++) {
+            pushed = Math.min(pushed, compactGraph.bandwidth(pathArcs[i]) - compactGraph.flow(pathArcs[i]));
+        }
+        for (int i = 0; i < depth; i++) {
+            compactGraph.addFlow(pathArcs[i], pushed);
+            compactGraph.addFlow(compactGraph.reverse(pathArcs[i]), -pushed);
         }
-        return 0;
+        return pushed;
     }
 }
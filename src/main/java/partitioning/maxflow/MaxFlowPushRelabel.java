@@ -0,0 +1,289 @@
+package partitioning.maxflow;
+
+import java.util.Arrays;
+
+import graph.CompactGraph;
+import graph.Graph;
+import graph.VertexOfDualGraph;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import partitioning.entities.FlowResult;
+
+/**
+ * Highest-label push-relabel with gap heuristic and periodic global relabeling.
+ * The first phase finds a maximum preflow, the second one returns the excess which cannot reach the sink
+ * back to the source, so the result is a flow with the same residual graph as for {@link MaxFlowDinic}.
+ * Every arc must have a reverse arc, as in the graphs built by createGraphWithSourceSink.
+ */
+public class MaxFlowPushRelabel implements MaxFlow {
+    private static final Logger logger = LoggerFactory.getLogger(MaxFlowPushRelabel.class);
+    private static final int GLOBAL_RELABEL_FREQUENCY = 6;
+    private static final int RELABEL_WORK = 12;
+    Graph<VertexOfDualGraph> graph;
+    CompactGraph<VertexOfDualGraph> compactGraph;
+    VertexOfDualGraph source;
+    VertexOfDualGraph sink;
+    int sourceId;
+    int sinkId;
+    int n;
+    double[] excess;
+    int[] height;
+    int[] currentArc;
+    /*
+     * active vertices of every height as intrusive stacks
+     */
+    int[] activeHead;
+    int[] activeNext;
+    int maxActiveHeight;
+    /*
+     * all vertices of every height below the limit as intrusive doubly linked lists, for gap heuristic
+     */
+    int[] levelHead;
+    int[] levelNext;
+    int[] levelPrev;
+    int maxLevelHeight;
+    int[] queue;
+    long workSinceGlobalRelabel;
+    int countPushes;
+    int countRelabels;
+    int countGlobalRelabels;
+    int countGaps;
+
+
+    public MaxFlowPushRelabel(Graph<VertexOfDualGraph> graph, VertexOfDualGraph source, VertexOfDualGraph sink) {
+        this(new CompactGraph<>(graph), source, sink);
+        this.graph = graph;
+    }
+
+
+    public MaxFlowPushRelabel(CompactGraph<VertexOfDualGraph> compactGraph, VertexOfDualGraph source, VertexOfDualGraph sink) {
+        for (int arc = 0; arc < compactGraph.edgesNumber(); arc++) {
+            if (compactGraph.reverse(arc) == -1) {
+                throw new IllegalArgumentException("Push-relabel needs reverse arc for every arc");
+            }
+        }
+        this.compactGraph = compactGraph;
+        this.source = source;
+        this.sink = sink;
+        this.sourceId = compactGraph.id(source);
+        this.sinkId = compactGraph.id(sink);
+        this.n = compactGraph.verticesNumber();
+        this.excess = new double[n];
+        this.height = new int[n];
+        this.currentArc = new int[n];
+        this.activeHead = new int[2 * n + 1];
+        this.activeNext = new int[n];
+        this.levelHead = new int[2 * n + 1];
+        this.levelNext = new int[n];
+        this.levelPrev = new int[n];
+        this.queue = new int[n];
+    }
+
+
+    @Override
+    public FlowResult findFlow() {
+        for (int arc = compactGraph.begin(sourceId); arc < compactGraph.end(sourceId); arc++) {
+            double residual = residual(arc);
+            // Graph.addEdge with bandwidth also adds a loop at the end vertex
+            if (residual > 0 && compactGraph.target(arc) != sourceId) {
+                saturate(arc);
+                excess[sourceId] -= residual;
+                excess[compactGraph.target(arc)] += residual;
+            }
+        }
+        // phase 1: maximum preflow, vertices of height n are cut off from the sink
+        globalRelabel(true);
+        dischargeAll(n, true);
+        // phase 2: return the remaining excess to the source
+        globalRelabel(false);
+        dischargeAll(2 * n, false);
+
+        logger.info("Push-relabel pushes: {}, relabels: {}, global relabels: {}, gaps: {}, vertices: {}, edges: {}",
+                countPushes, countRelabels, countGlobalRelabels, countGaps, n, compactGraph.edgesNumber());
+        double flow = excess[sinkId];
+        if (graph == null) {
+            return new FlowResult(flow, compactGraph.toGraph(), source, sink);
+        }
+        compactGraph.writeFlow(graph);
+        return new FlowResult(flow, graph, source, sink);
+    }
+
+    private double residual(int arc) {
+        return compactGraph.bandwidth(arc) - compactGraph.flow(arc);
+    }
+
+    /**
+     * Sets flow of arc equal to its bandwidth without rounding errors
+     */
+    private void saturate(int arc) {
+        compactGraph.setFlow(arc, compactGraph.bandwidth(arc));
+        compactGraph.setFlow(compactGraph.reverse(arc), -compactGraph.bandwidth(arc));
+    }
+
+    /**
+     * Processes active vertices in the order of decreasing height until all of them are below limit
+     */
+    private void dischargeAll(int limit, boolean toSink) {
+        while (true) {
+            while (maxActiveHeight >= 0 && activeHead[maxActiveHeight] == -1) {
+                maxActiveHeight--;
+            }
+            if (maxActiveHeight < 0) {
+                return;
+            }
+            int vertex = activeHead[maxActiveHeight];
+            activeHead[maxActiveHeight] = activeNext[vertex];
+            discharge(vertex, limit, toSink);
+            if (toSink && workSinceGlobalRelabel > (long) GLOBAL_RELABEL_FREQUENCY * n + compactGraph.edgesNumber()) {
+                globalRelabel(true);
+            }
+        }
+    }
+
+    private void discharge(int vertex, int limit, boolean toSink) {
+        while (excess[vertex] > 0) {
+            if (currentArc[vertex] == compactGraph.end(vertex)) {
+                relabel(vertex, limit, toSink);
+                if (height[vertex] >= limit) {
+                    return;
+                }
+                continue;
+            }
+            int arc = currentArc[vertex];
+            int to = compactGraph.target(arc);
+            if (height[vertex] == height[to] + 1 && residual(arc) > 0) {
+                push(vertex, arc, to);
+            } else {
+                currentArc[vertex]++;
+            }
+        }
+    }
+
+    private void push(int vertex, int arc, int to) {
+        countPushes++;
+        double residual = residual(arc);
+        double delta;
+        if (excess[vertex] < residual) {
+            delta = excess[vertex];
+            compactGraph.addFlow(arc, delta);
+            compactGraph.setFlow(compactGraph.reverse(arc), -compactGraph.flow(arc));
+        } else {
+            delta = residual;
+            saturate(arc);
+        }
+        excess[vertex] -= delta;
+        if (to != sourceId && to != sinkId && excess[to] <= 0) {
+            addActive(to);
+        }
+        excess[to] += delta;
+    }
+
+    private void relabel(int vertex, int limit, boolean toSink) {
+        countRelabels++;
+        workSinceGlobalRelabel += RELABEL_WORK + compactGraph.degree(vertex);
+        int oldHeight = height[vertex];
+        int newHeight = limit;
+        for (int arc = compactGraph.begin(vertex); arc < compactGraph.end(vertex); arc++) {
+            if (residual(arc) > 0) {
+                newHeight = Math.min(newHeight, height[compactGraph.target(arc)] + 1);
+            }
+        }
+        removeFromLevel(vertex);
+        if (toSink && levelHead[oldHeight] == -1) {
+            // gap: vertices above oldHeight cannot reach the sink anymore
+            gap(oldHeight, limit);
+            height[vertex] = limit;
+            return;
+        }
+        height[vertex] = newHeight;
+        currentArc[vertex] = compactGraph.begin(vertex);
+        if (newHeight < limit) {
+            addToLevel(vertex);
+        }
+    }
+
+    private void gap(int emptyHeight, int limit) {
+        countGaps++;
+        for (int h = emptyHeight + 1; h <= maxLevelHeight; h++) {
+            for (int v = levelHead[h]; v != -1; v = levelNext[v]) {
+                height[v] = limit;
+            }
+            levelHead[h] = -1;
+        }
+        maxLevelHeight = emptyHeight - 1;
+    }
+
+    /**
+     * Exact heights by bfs in residual graph to the sink (first phase) or to the source (second phase)
+     */
+    private void globalRelabel(boolean toSink) {
+        countGlobalRelabels++;
+        workSinceGlobalRelabel = 0;
+        int limit = toSink ? n : 2 * n;
+        int root = toSink ? sinkId : sourceId;
+        Arrays.fill(height, limit);
+        height[root] = toSink ? 0 : n;
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = root;
+        while (head < tail) {
+            int v = queue[head++];
+            for (int arc = compactGraph.begin(v); arc < compactGraph.end(v); arc++) {
+                int u = compactGraph.target(arc);
+                if (height[u] == limit && u != sourceId && u != sinkId && residual(compactGraph.reverse(arc)) > 0) {
+                    height[u] = height[v] + 1;
+                    queue[tail++] = u;
+                }
+            }
+        }
+        if (toSink) {
+            height[sourceId] = n;
+        } else {
+            height[sinkId] = limit;
+        }
+
+        Arrays.fill(activeHead, -1);
+        Arrays.fill(levelHead, -1);
+        maxActiveHeight = -1;
+        maxLevelHeight = -1;
+        for (int v = 0; v < n; v++) {
+            currentArc[v] = compactGraph.begin(v);
+            if (v == sourceId || v == sinkId || height[v] >= limit) {
+                continue;
+            }
+            addToLevel(v);
+            if (excess[v] > 0) {
+                addActive(v);
+            }
+        }
+    }
+
+    private void addActive(int vertex) {
+        activeNext[vertex] = activeHead[height[vertex]];
+        activeHead[height[vertex]] = vertex;
+        maxActiveHeight = Math.max(maxActiveHeight, height[vertex]);
+    }
+
+    private void addToLevel(int vertex) {
+        int h = height[vertex];
+        levelPrev[vertex] = -1;
+        levelNext[vertex] = levelHead[h];
+        if (levelHead[h] != -1) {
+            levelPrev[levelHead[h]] = vertex;
+        }
+        levelHead[h] = vertex;
+        maxLevelHeight = Math.max(maxLevelHeight, h);
+    }
+
+    private void removeFromLevel(int vertex) {
+        int h = height[vertex];
+        if (levelPrev[vertex] != -1) {
+            levelNext[levelPrev[vertex]] = levelNext[vertex];
+        } else {
+            levelHead[h] = levelNext[vertex];
+        }
+        if (levelNext[vertex] != -1) {
+            levelPrev[levelNext[vertex]] = levelPrev[vertex];
+        }
+    }
+}
@@ -1,14 +1,18 @@
 package partitioning.maxflow;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import graph.*;
-import jakarta.validation.constraints.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import partitioning.entities.SPTResult;
 import partitioning.entities.SPTWithRegionWeights;
+import partitioning.shortestpathtree.RegionTopology;
 import partitioning.shortestpathtree.ShortestPathTreeProcessor;
 import partitioning.shortestpathtree.ShortestPathTreeSearcher;
 import partitioning.entities.FlowResult;
@@ -20,7 +24,6 @@ import readWrite.FlowWriter;
 import static partitioning.maxflow.Dijkstra.dijkstraSingleSource;
 import static partitioning.splitting.VertexSplitter.preprocessNeighborSplits;
 import static partitioning.splitting.VertexSplitter.splitVertex;
-import static partitioning.maxflow.Dijkstra.dijkstraMultiSource;
 
 public class MaxFlowReif implements MaxFlow {
     private static final Logger logger = LoggerFactory.getLogger(MaxFlowReif.class);
@@ -31,6 +34,11 @@ public class MaxFlowReif implements MaxFlow {
     double flow;
     CoordinateConversion conversion;
     Map<Vertex, VertexOfDualGraph> comparisonForDualGraph;
+    /**
+     * Число split-вершин, оцениваемых параллельно за один раунд поиска, 1 - бинарный поиск
+     */
+    private final int splitBatchSize;
+    private final boolean dumpDebugData;
 
     private record PathCandidate(
             Vertex splitVertex1,
@@ -49,6 +57,42 @@ public class MaxFlowReif implements MaxFlow {
                        VertexOfDualGraph sink,
                        Map<Vertex, VertexOfDualGraph> comparisonForDualGraph
     ) {
+        this(initGraph, dualGraph, source, sink, comparisonForDualGraph, 1);
+    }
+
+    /**
+     * @param splitBatchSize число split-вершин, оцениваемых параллельно за раунд (k-ичный поиск),
+     *                       при k > 1 выбранная вершина может отличаться от бинарного поиска,
+     *                       если разность весов регионов немонотонна по индексу
+     */
+    public MaxFlowReif(Graph<Vertex> initGraph,
+                       Graph<VertexOfDualGraph> dualGraph,
+                       VertexOfDualGraph source,
+                       VertexOfDualGraph sink,
+                       Map<Vertex, VertexOfDualGraph> comparisonForDualGraph,
+                       int splitBatchSize
+    ) {
+        this(initGraph, dualGraph, source, sink, comparisonForDualGraph, splitBatchSize, true);
+    }
+
+    /**
+     * @param dumpDebugData писать ли отладочные данные {@link FlowWriter} (только при включенном debug логе);
+     *                      false, если несколько потоков могут искать поток одновременно -
+     *                      их каталоги совпадают при одинаковых размерах границ и потоке
+     */
+    public MaxFlowReif(Graph<Vertex> initGraph,
+                       Graph<VertexOfDualGraph> dualGraph,
+                       VertexOfDualGraph source,
+                       VertexOfDualGraph sink,
+                       Map<Vertex, VertexOfDualGraph> comparisonForDualGraph,
+                       int splitBatchSize,
+                       boolean dumpDebugData
+    ) {
+        if (splitBatchSize < 1) {
+            throw new IllegalArgumentException("Split batch size must be positive");
+        }
+        this.splitBatchSize = splitBatchSize;
+        this.dumpDebugData = dumpDebugData;
         this.initGraph = initGraph;
         this.dualGraph = dualGraph;
         this.source = source;
@@ -82,9 +126,11 @@ public class MaxFlowReif implements MaxFlow {
         long time2 = System.currentTimeMillis();
         logger.info("Time for creating modified graph: {} seconds", (time2 - time1) / 1000.0);
 
-        // Поиск кратчайшего пути
-        Optional<DijkstraResult> shortestPathResultOpt = dijkstraMultiSource(
-                modifiedGraph, boundaries.sourceBoundary(), boundaries.sinkBoundary(), CornerConstraints.empty()
+        // Поиск кратчайшего пути, нужен только сам путь - ищем одновременно от границ источника и стока
+        CompactGraph<Vertex> compactGraph = new CompactGraph<>(modifiedGraph);
+        Optional<DijkstraResult> shortestPathResultOpt = Dijkstra.bidirectionalDijkstra(
+                compactGraph, boundaries.sourceBoundary(), Dijkstra.targetIds(compactGraph, boundaries.sinkBoundary()),
+                CornerConstraints.empty()
         );
         long time3 = System.currentTimeMillis();
         logger.info("Time for finding shortest path between source and sink: {} seconds", (time3 - time2) / 1000.0);
@@ -119,12 +165,14 @@ public class MaxFlowReif implements MaxFlow {
         long time5 = System.currentTimeMillis();
         logger.info("Time for splitting path vertices: {} seconds", (time5 - time4) / 1000.0);
 
-        // Поиск лучшего пути через split-вершины
+        // Поиск лучшего пути через split-вершины, граф больше не меняется
+        CompactGraph<Vertex> compactModifiedGraph = new CompactGraph<>(modifiedGraph);
         IntersectionsData intersections = findAllIntersections(boundaries);
         logger.info("Found {} source intersections and {} sink intersections on external boundary", 
                 intersections.sourceIntersections.size(), intersections.sinkIntersections.size());
+        TargetSegments targetSegments = findTargetSegments(boundaries, intersections, compactModifiedGraph);
         Optional<PathCandidate> bestCandidate = findBestPathThroughSplits(
-                splitData, modifiedGraph, boundaries,
+                splitData, modifiedGraph, compactModifiedGraph, targetSegments, boundaries,
                 intersections, dualGraph, shortestPathResult.path()
         );
         long time6 = System.currentTimeMillis();
@@ -175,6 +223,57 @@ public class MaxFlowReif implements MaxFlow {
             Map<Vertex, Vertex> splitToOriginalMap
     ) {}
 
+    /**
+     * Участки внешней границы, до которых ищутся пути от split-вершин, и id их вершин
+     */
+    private record TargetSegments(
+            List<Vertex> firstSegment,
+            BitSet firstTargets,
+            List<Vertex> secondSegment,
+            BitSet secondTargets
+    ) {}
+
+    /**
+     * Ограничения угловых вершин для путей от split-вершин первой и второй стороны,
+     * не зависят от split-вершины и строятся один раз на поиск
+     */
+    private record SideConstraints(
+            CornerConstraints firstSide,
+            CornerConstraints secondSide
+    ) {}
+
+    /**
+     * Оценки split-вершин одного вызова findFlow по индексу split-вершины (вместе с деревьями
+     * кратчайших путей в DijkstraResult), число попаданий и сэкономленных извлечений из очереди Дейкстры
+     * (сумма {@link DijkstraResult#settledVertices} деревьев кандидатов, взятых из кэша)
+     */
+    private record SplitCandidateCache(
+            Map<Integer, Optional<PathCandidate>> candidates,
+            AtomicInteger hits,
+            AtomicLong savedSettles
+    ) {
+        SplitCandidateCache() {
+            this(new ConcurrentHashMap<>(), new AtomicInteger(), new AtomicLong());
+        }
+    }
+
+    /**
+     * Участки границы одинаковые для всех split-вершин, поэтому строятся один раз
+     */
+    private TargetSegments findTargetSegments(
+            BoundariesData boundaries,
+            IntersectionsData intersections,
+            CompactGraph<Vertex> compactModifiedGraph) {
+        List<Vertex> firstSegment = extractBoundarySegment(boundaries.externalBoundary,
+                intersections.sourceIntersections(), intersections.sinkIntersections(), true);
+        List<Vertex> secondSegment = extractBoundarySegment(boundaries.externalBoundary,
+                intersections.sourceIntersections(), intersections.sinkIntersections(), false);
+        return new TargetSegments(
+                firstSegment, Dijkstra.targetIds(compactModifiedGraph, firstSegment),
+                secondSegment, Dijkstra.targetIds(compactModifiedGraph, secondSegment)
+        );
+    }
+
     /**
      * Вычисляет все границы
      */
@@ -259,14 +358,16 @@ public class MaxFlowReif implements MaxFlow {
         } catch (RuntimeException e) {
             if (e.getMessage() != null && e.getMessage().contains("broken boundary")) {
                 logger.error("Broken boundary detected: {}", e.getMessage());
-                FlowWriter.dumpVisualizationData(
-                        boundaries.externalBoundary(),
-                        boundaries.sourceBoundary(),
-                        boundaries.sinkBoundary(),
-                        path, null,
-                        sourceNeighbors, sinkNeighbors, 0,
-                        modifiedGraph, dualGraph, source, sink, conversion
-                );
+                if (dumpsEnabled()) {
+                    FlowWriter.dumpVisualizationData(
+                            boundaries.externalBoundary(),
+                            boundaries.sourceBoundary(),
+                            boundaries.sinkBoundary(),
+                            path, null,
+                            sourceNeighbors, sinkNeighbors, 0,
+                            modifiedGraph, dualGraph, source, sink, conversion
+                    );
+                }
             }
             throw e;
         }
@@ -299,6 +400,8 @@ public class MaxFlowReif implements MaxFlow {
     private Optional<PathCandidate> findBestPathThroughSplits(
             SplitVerticesData splitData,
             Graph<Vertex> modifiedGraph,
+            CompactGraph<Vertex> compactModifiedGraph,
+            TargetSegments targetSegments,
             BoundariesData boundaries,
             IntersectionsData intersections,
             Graph<VertexOfDualGraph> dualGraph,
@@ -307,30 +410,48 @@ public class MaxFlowReif implements MaxFlow {
         List<Map.Entry<Vertex, Vertex>> splits = splitData.splitVertices();
         if (splits.isEmpty()) return Optional.empty();
 
-        int lo = 0, hi = splits.size() - 1;
+        // граф больше не меняется: углы ребер, грани ребер и ограничения угловых вершин считаются
+        // один раз, дальше оценки только читают их, в том числе параллельно
+        modifiedGraph.resetSortedEdgesCache();
+        modifiedGraph.arrangeByAngle();
+        RegionTopology topology = new RegionTopology(compactModifiedGraph, dualGraph);
+        SideConstraints constraints = new SideConstraints(
+                buildSideConstraints(modifiedGraph, boundaries, intersections, true),
+                buildSideConstraints(modifiedGraph, boundaries, intersections, false)
+        );
 
+        SplitCandidateCache cache = new SplitCandidateCache();
+        int lo = 0, hi = splits.size() - 1;
+        int rounds = 0;
         while (lo < hi) {
-            int mid = (lo + hi) / 2;
-            Optional<PathCandidate> midOpt = evalAt(mid, splits, splitData,
-                    modifiedGraph, boundaries, intersections, dualGraph, path);
-            if (midOpt.isEmpty()) {
-                lo = mid + 1;
-                continue;
-            }
-            double diff = midOpt.get().path1ToBoundary().totalRegionWeight()
-                    - midOpt.get().path2ToBoundary().totalRegionWeight();
-            if (diff < 0) {
-                lo = mid + 1;
-            } else {
-                hi = mid;
+            int[] probes = probeIndices(lo, hi);
+            List<Optional<PathCandidate>> results = evalBatch(probes, cache, constraints, splits, splitData,
+                    topology, targetSegments, intersections, path);
+            rounds++;
+            for (int j = 0; j < probes.length; j++) {
+                Optional<PathCandidate> midOpt = results.get(j);
+                if (midOpt.isEmpty()) {
+                    lo = probes[j] + 1;
+                    continue;
+                }
+                double diff = midOpt.get().path1ToBoundary().totalRegionWeight()
+                        - midOpt.get().path2ToBoundary().totalRegionWeight();
+                if (diff < 0) {
+                    lo = probes[j] + 1;
+                } else {
+                    hi = probes[j];
+                    break;
+                }
             }
         }
-
-        Optional<PathCandidate> atLo = evalAt(lo, splits, splitData,
-                modifiedGraph, boundaries, intersections, dualGraph, path);
-        Optional<PathCandidate> atPrev = lo > 0
-                ? evalAt(lo - 1, splits, splitData, modifiedGraph, boundaries, intersections, dualGraph, path)
-                : Optional.empty();
+        // lo и lo - 1 обычно уже оценены в цикле, тогда они берутся из кэша
+        List<Optional<PathCandidate>> last = evalBatch(lo > 0 ? new int[]{lo, lo - 1} : new int[]{lo}, cache,
+                constraints, splits, splitData, topology, targetSegments, intersections, path);
+        logger.info("Split search: {} split vertices, {} rounds, batch size {}, {} evaluations, "
+                        + "{} cache hits, {} settles saved", splits.size(), rounds, splitBatchSize,
+                cache.candidates().size(), cache.hits().get(), cache.savedSettles().get());
+        Optional<PathCandidate> atLo = last.get(0);
+        Optional<PathCandidate> atPrev = lo > 0 ? last.get(1) : Optional.empty();
 
         if (atLo.isEmpty()) return atPrev;
         if (atPrev.isEmpty()) return atLo;
@@ -338,21 +459,83 @@ public class MaxFlowReif implements MaxFlow {
         return atLo.get().balanceWeight() <= atPrev.get().balanceWeight() ? atLo : atPrev;
     }
 
+    /**
+     * До splitBatchSize индексов, делящих [lo, hi) на равные части, по возрастанию,
+     * при splitBatchSize = 1 - середина, как в бинарном поиске
+     */
+    private int[] probeIndices(int lo, int hi) {
+        int[] probes = new int[splitBatchSize];
+        int size = 0;
+        for (int j = 1; j <= splitBatchSize; j++) {
+            int probe = lo + (int) ((long) (hi - lo) * j / (splitBatchSize + 1));
+            if (probe < hi && (size == 0 || probe > probes[size - 1])) {
+                probes[size++] = probe;
+            }
+        }
+        return Arrays.copyOf(probes, size);
+    }
+
+    /**
+     * Оценивает split-вершины с данными индексами, при splitBatchSize > 1 параллельно
+     * (в текущем ForkJoinPool), результаты в порядке индексов.
+     * Уже оцененные индексы берутся из cache
+     */
+    private List<Optional<PathCandidate>> evalBatch(
+            int[] indices,
+            SplitCandidateCache cache,
+            SideConstraints constraints,
+            List<Map.Entry<Vertex, Vertex>> splits,
+            SplitVerticesData splitData,
+            RegionTopology topology,
+            TargetSegments targetSegments,
+            IntersectionsData intersections,
+            List<Vertex> path
+    ) {
+        IntStream stream = Arrays.stream(indices);
+        if (splitBatchSize > 1) {
+            stream = stream.parallel();
+        }
+        return stream.mapToObj(idx -> {
+            Optional<PathCandidate> cached = cache.candidates().get(idx);
+            if (cached != null) {
+                cache.hits().incrementAndGet();
+                cache.savedSettles().addAndGet(settledVertices(cached));
+                return cached;
+            }
+            Optional<PathCandidate> candidate = evalAt(idx, constraints, splits, splitData, topology,
+                    targetSegments, intersections, path);
+            cache.candidates().put(idx, candidate);
+            return candidate;
+        }).toList();
+    }
+
+    /**
+     * Число вершин, извлеченных из очереди в обоих запусках Дейкстры кандидата.
+     * Кандидат без пути хранится без деревьев, его извлечения не учитываются
+     */
+    private static long settledVertices(Optional<PathCandidate> candidate) {
+        if (candidate.isEmpty()) {
+            return 0;
+        }
+        return candidate.get().path1ToBoundary().settledVertices()
+                + candidate.get().path2ToBoundary().settledVertices();
+    }
+
     private Optional<PathCandidate> evalAt(
             int idx,
+            SideConstraints constraints,
             List<Map.Entry<Vertex, Vertex>> splits,
             SplitVerticesData splitData,
-            Graph<Vertex> modifiedGraph,
-            BoundariesData boundaries,
+            RegionTopology topology,
+            TargetSegments targetSegments,
             IntersectionsData intersections,
-            Graph<VertexOfDualGraph> dualGraph,
             List<Vertex> path
     ) {
         return evaluateSplitVertex(
                 splits.get(idx),
-                modifiedGraph,
-                boundaries,
-                dualGraph,
+                topology,
+                targetSegments,
+                constraints,
                 intersections.sourceIntersections(),
                 intersections.sinkIntersections(),
                 splitData.splitToOriginalMap(),
@@ -364,9 +547,9 @@ public class MaxFlowReif implements MaxFlow {
      */
     private Optional<PathCandidate> evaluateSplitVertex(
             Map.Entry<Vertex, Vertex> splitVertex,
-            Graph<Vertex> modifiedGraph,
-            BoundariesData boundaries,
-            Graph<VertexOfDualGraph> dualGraph,
+            RegionTopology topology,
+            TargetSegments targetSegments,
+            SideConstraints constraints,
             List<Vertex> sourceIntersections,
             List<Vertex> sinkIntersections,
             Map<Vertex, Vertex> splitToOriginalMap,
@@ -375,20 +558,15 @@ public class MaxFlowReif implements MaxFlow {
         Vertex splitVertex1 = splitVertex.getKey();
         Vertex splitVertex2 = splitVertex.getValue();
 
-        List<Vertex> targetSegment1 = extractBoundarySegment(
-                boundaries.externalBoundary, sourceIntersections, sinkIntersections, true);
-        List<Vertex> targetSegment2 = extractBoundarySegment(
-                boundaries.externalBoundary, sourceIntersections, sinkIntersections, false);
-
         long startTime = System.currentTimeMillis();
 
         // Поиск путей от обеих split-вершин к границе
         Optional<DijkstraResult> path1ToBoundaryOpt = dijkstraSingleSourceWithRegionWeights(
-                modifiedGraph,
+                topology,
                 splitVertex1,
-                targetSegment1,
-                boundaries,
-                dualGraph,
+                targetSegments.firstSegment(),
+                targetSegments.firstTargets(),
+                constraints.firstSide(),
                 sourceIntersections,
                 sinkIntersections,
                 true,
@@ -399,11 +577,11 @@ public class MaxFlowReif implements MaxFlow {
         logger.info("Time for build 1st spt: {} seconds", (time1 - startTime) / 1000.0);
 
         Optional<DijkstraResult> path2ToBoundaryOpt = dijkstraSingleSourceWithRegionWeights(
-                modifiedGraph,
+                topology,
                 splitVertex2,
-                targetSegment2,
-                boundaries,
-                dualGraph,
+                targetSegments.secondSegment(),
+                targetSegments.secondTargets(),
+                constraints.secondSide(),
                 sourceIntersections,
                 sinkIntersections,
                 false,
@@ -576,14 +754,16 @@ public class MaxFlowReif implements MaxFlow {
             Graph<Vertex> modifiedGraph) {
 
         logger.error("No shortest path found between source and sink boundaries!");
-        FlowWriter.dumpVisualizationData(
-                boundaries.externalBoundary(),
-                boundaries.sourceBoundary(),
-                boundaries.sinkBoundary(),
-                List.of(), List.of(),
-                sourceNeighbors, sinkNeighbors, 0,
-                modifiedGraph, dualGraph, source, sink, conversion
-        );
+        if (dumpsEnabled()) {
+            FlowWriter.dumpVisualizationData(
+                    boundaries.externalBoundary(),
+                    boundaries.sourceBoundary(),
+                    boundaries.sinkBoundary(),
+                    List.of(), List.of(),
+                    sourceNeighbors, sinkNeighbors, 0,
+                    modifiedGraph, dualGraph, source, sink, conversion
+            );
+        }
 
         return new FlowResult(0, dualGraph, source, sink);
     }
@@ -599,17 +779,23 @@ public class MaxFlowReif implements MaxFlow {
             Graph<Vertex> modifiedGraph) {
 
         logger.error("No best path found to external boundary!");
-        FlowWriter.dumpVisualizationData(
-                boundaries.externalBoundary(),
-                boundaries.sourceBoundary(),
-                boundaries.sinkBoundary(),
-                shortestPath, null,
-                sourceNeighbors, sinkNeighbors, 0,
-                modifiedGraph, dualGraph, source, sink, conversion
-        );
+        if (dumpsEnabled()) {
+            FlowWriter.dumpVisualizationData(
+                    boundaries.externalBoundary(),
+                    boundaries.sourceBoundary(),
+                    boundaries.sinkBoundary(),
+                    shortestPath, null,
+                    sourceNeighbors, sinkNeighbors, 0,
+                    modifiedGraph, dualGraph, source, sink, conversion
+            );
+        }
         return new FlowResult(0, dualGraph, source, sink);
     }
 
+    private boolean dumpsEnabled() {
+        return dumpDebugData && FlowWriter.isEnabled();
+    }
+
     /**
      * Вывод визуализации
      */
@@ -623,6 +809,9 @@ public class MaxFlowReif implements MaxFlow {
             PathCandidate best,
             Map<Vertex, Vertex> splitToOriginalMap) {
 
+        if (!dumpsEnabled()) {
+            return;
+        }
         FlowWriter.dumpVisualizationData(
                 boundaries.externalBoundary(),
                 boundaries.sourceBoundary(),
@@ -644,29 +833,19 @@ public class MaxFlowReif implements MaxFlow {
     }
 
     private Optional<DijkstraResult> dijkstraSingleSourceWithRegionWeights(
-            Graph<Vertex> graph,
+            RegionTopology topology,
             Vertex sourceVertex,
             List<Vertex> targetSegment,
-            BoundariesData boundaries,
-            @NotNull Graph<VertexOfDualGraph> dualGraph,
+            BitSet targets,
+            CornerConstraints cornerConstraints,
             List<Vertex> sourceIntersections,
             List<Vertex> sinkIntersections,
             boolean isFirstSide,
             List<Vertex> path
     ) {
 
-        // Находим две ключевые угловые вершины для этой стороны
-        TwoKeyVertices keyVertices = findTwoKeyVerticesForConstraints(
-                sourceIntersections, sinkIntersections, isFirstSide
-        );
-
-        // Создаем ограничения только для этих двух ключевых вершин
-        CornerConstraints cornerConstraints = buildCornerConstraintsForKeyVertices(
-                graph, keyVertices, boundaries, isFirstSide
-        );
-
         Optional<DijkstraResult> defaultResultOpt = dijkstraSingleSource(
-                graph, sourceVertex, targetSegment, cornerConstraints
+                topology.compactGraph(), sourceVertex, targets, cornerConstraints
         );
 
         if (defaultResultOpt.isEmpty()) {
@@ -676,8 +855,8 @@ public class MaxFlowReif implements MaxFlow {
         DijkstraResult defaultResult = defaultResultOpt.get();
 
         SPTWithRegionWeights spt = ShortestPathTreeSearcher.buildSPTWithRegionWeights(
-                graph, defaultResult.previous(), sourceVertex, targetSegment,
-                dualGraph, sourceIntersections, sinkIntersections, isFirstSide,
+                topology, defaultResult.previous(), sourceVertex, targetSegment,
+                sourceIntersections, sinkIntersections, isFirstSide,
                 cornerConstraints, path
         );
 
@@ -691,7 +870,8 @@ public class MaxFlowReif implements MaxFlow {
                 spt.regionWeights(),
                 spt.distances(),
                 spt.leafIndices(),
-                spt.totalRegionWeight()
+                spt.totalRegionWeight(),
+                defaultResult.settledVertices()
         ));
     }
 
@@ -715,9 +895,18 @@ public class MaxFlowReif implements MaxFlow {
      * Обрабатывает одно ребро dual графа и возвращает поток через него
      */
     private double processDualEdge(Vertex v1, Vertex v2, Graph<VertexOfDualGraph> dualGraph) {
-        Map<Vertex, HashMap<Vertex, VertexOfDualGraph>> map = dualGraph.edgeToDualVertexMap();
-        VertexOfDualGraph face1 = map.get(v1).get(v2);
-        VertexOfDualGraph face2 = map.get(v2).get(v1);
+        VertexOfDualGraph face1;
+        VertexOfDualGraph face2;
+        PlanarTopology topology = initGraph.getTopology();
+        if (topology != null) {
+            // грани исходного графа, не попавшие в dualGraph, отсекаются проверками ниже
+            face1 = topology.faceOfEdge(v1, v2);
+            face2 = topology.faceOfEdge(v2, v1);
+        } else {
+            Map<Vertex, HashMap<Vertex, VertexOfDualGraph>> map = dualGraph.edgeToDualVertexMap();
+            face1 = map.get(v1).get(v2);
+            face2 = map.get(v2).get(v1);
+        }
 
         if (face1 == null || face2 == null || dualGraph.getEdges().get(face1) == null) {
             return 0.0;
@@ -834,9 +1023,10 @@ public class MaxFlowReif implements MaxFlow {
         modifiedGraph.addBoundEdges(sinkBoundary, initGraph);
         modifiedGraph.addBoundEdges(externalBoundary, initGraph);
 
-        // Добавляем внутренние вершины
-        for (Vertex v : initGraph.verticesArray()) {
-            if (shouldAddVertexToModifiedGraph(v, allowedVertices,
+        // Добавляем внутренние вершины - перебираем только вершины граней текущей части, а не весь initGraph
+        for (Vertex v : allowedVertices) {
+            if (initGraph.getEdges().containsKey(v)
+                    && shouldAddVertexToModifiedGraph(v, allowedVertices,
                                                sourceFaceVertices, sinkFaceVertices,
                                                sourceBoundarySet, sinkBoundarySet, externalBoundarySet)) {
                 modifiedGraph.addVertexInSubgraph(v, initGraph);
@@ -878,6 +1068,24 @@ public class MaxFlowReif implements MaxFlow {
                 !externalBoundarySet.contains(v);
     }
 
+    /**
+     * Ограничения для путей от split-вершин одной стороны
+     */
+    private CornerConstraints buildSideConstraints(
+            Graph<Vertex> graph,
+            BoundariesData boundaries,
+            IntersectionsData intersections,
+            boolean isFirstSide) {
+
+        // Находим две ключевые угловые вершины для этой стороны
+        TwoKeyVertices keyVertices = findTwoKeyVerticesForConstraints(
+                intersections.sourceIntersections(), intersections.sinkIntersections(), isFirstSide
+        );
+
+        // Создаем ограничения только для этих двух ключевых вершин
+        return buildCornerConstraintsForKeyVertices(graph, keyVertices, boundaries, isFirstSide);
+    }
+
     /**
      * Создает ограничения только для двух ключевых угловых вершин
      */
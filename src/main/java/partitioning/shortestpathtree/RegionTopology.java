@@ -0,0 +1,190 @@
+package partitioning.shortestpathtree;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import graph.CompactGraph;
+import graph.Edge;
+import graph.Graph;
+import graph.HalfEdgeGraph;
+import graph.Vertex;
+import graph.VertexOfDualGraph;
+
+/**
+ * Неизменяемая топология графа для подсчета весов регионов дерева кратчайших путей:
+ * half-edge структура (дуги каждой вершины отсортированы по углу), грань справа от каждой дуги
+ * и соседи граней в двойственном графе. Строится один раз для графа и дальше только читается,
+ * в том числе параллельно из разных вызовов {@link ShortestPathTreeSearcher#buildSPTWithRegionWeights}
+ */
+public class RegionTopology {
+    private final HalfEdgeGraph<Vertex> halfEdges;
+    private final Graph<VertexOfDualGraph> dualGraph;
+    /**
+     * Номер грани справа от дуги или -1, если грань не найдена
+     */
+    private final int[] rightFace;
+    private final VertexOfDualGraph[] faces;
+    /**
+     * Соседи грани f в порядке обхода dualGraph.getEdges().get(f) -
+     * neighborFaces[neighborOffsets[f], neighborOffsets[f + 1]), hasNeighbors[f] = false, если грани нет в dualGraph
+     */
+    private final int[] neighborOffsets;
+    private final int[] neighborFaces;
+    private final double[] neighborLengths;
+    private final boolean[] hasNeighbors;
+
+    public RegionTopology(CompactGraph<Vertex> graph, Graph<VertexOfDualGraph> dualGraph) {
+        this.halfEdges = new HalfEdgeGraph<>(graph);
+        this.dualGraph = dualGraph;
+
+        HashMap<VertexOfDualGraph, HashMap<VertexOfDualGraph, Edge>> dualEdges = dualGraph.getEdges();
+        HashMap<VertexOfDualGraph, Integer> faceIds = new HashMap<>(2 * dualEdges.size());
+        List<VertexOfDualGraph> faceList = new ArrayList<>(dualEdges.size());
+        for (VertexOfDualGraph face : dualEdges.keySet()) {
+            faceId(face, faceIds, faceList);
+        }
+
+        Map<Vertex, HashMap<Vertex, VertexOfDualGraph>> edgeToLeftFace = dualGraph.edgeToDualVertexMap();
+        this.rightFace = new int[halfEdges.dartsNumber()];
+        for (int dart = 0; dart < rightFace.length; dart++) {
+            VertexOfDualGraph face = findRightFace(graph.vertex(halfEdges.origin(dart)),
+                    graph.vertex(halfEdges.target(dart)), edgeToLeftFace);
+            rightFace[dart] = face == null ? -1 : faceId(face, faceIds, faceList);
+        }
+
+        int faceNumber = faceList.size();
+
+        this.neighborOffsets = new int[faceNumber + 1];
+        this.hasNeighbors = new boolean[faceNumber];
+        int size = 0;
+        for (int f = 0; f < faceNumber; f++) {
+            HashMap<VertexOfDualGraph, Edge> neighbors = dualEdges.get(faceList.get(f));
+            hasNeighbors[f] = neighbors != null;
+            size += neighbors == null ? 0 : neighbors.size();
+        }
+        this.neighborFaces = new int[size];
+        this.neighborLengths = new double[size];
+        int position = 0;
+        for (int f = 0; f < faceNumber; f++) {
+            neighborOffsets[f] = position;
+            HashMap<VertexOfDualGraph, Edge> neighbors = dualEdges.get(faceList.get(f));
+            if (neighbors == null) {
+                continue;
+            }
+            for (Map.Entry<VertexOfDualGraph, Edge> entry : neighbors.entrySet()) {
+                neighborFaces[position] = faceId(entry.getKey(), faceIds, faceList);
+                neighborLengths[position++] = entry.getValue().length;
+            }
+        }
+        neighborOffsets[faceNumber] = position;
+        // соседи, которых нет среди вершин dualGraph, получают номера последними и соседей не имеют
+        this.faces = faceList.toArray(new VertexOfDualGraph[0]);
+    }
+
+    private static int faceId(VertexOfDualGraph face,
+                              HashMap<VertexOfDualGraph, Integer> faceIds,
+                              List<VertexOfDualGraph> faceList) {
+        Integer id = faceIds.get(face);
+        if (id == null) {
+            id = faceList.size();
+            faceIds.put(face, id);
+            faceList.add(face);
+        }
+        return id;
+    }
+
+    /**
+     * Грань справа от current→neighbor: edgeToLeftFace[neighbor][current] = грань слева от neighbor→current.
+     * Для split-вершин (имя = имя исходной вершины * 1000 + номер копии) грань ищется и по исходному имени
+     */
+    private static VertexOfDualGraph findRightFace(
+            Vertex current,
+            Vertex neighbor,
+            Map<Vertex, HashMap<Vertex, VertexOfDualGraph>> edgeToLeftFace) {
+
+        VertexOfDualGraph face = null;
+        if (edgeToLeftFace.containsKey(neighbor)) {
+            face = edgeToLeftFace.get(neighbor).get(current);
+        }
+        if (face != null) {
+            return face;
+        }
+        Vertex newNeighbor = new Vertex(neighbor.name / 1000, neighbor.x, neighbor.y);
+        if (edgeToLeftFace.containsKey(newNeighbor)) {
+            return edgeToLeftFace.get(newNeighbor).get(current);
+        }
+        if (edgeToLeftFace.containsKey(neighbor)) {
+            return edgeToLeftFace.get(neighbor).get(new Vertex(current.name / 1000, current.x, current.y));
+        }
+        return null;
+    }
+
+    public HalfEdgeGraph<Vertex> halfEdges() {
+        return halfEdges;
+    }
+
+    public CompactGraph<Vertex> compactGraph() {
+        return halfEdges.compactGraph();
+    }
+
+    public Graph<VertexOfDualGraph> dualGraph() {
+        return dualGraph;
+    }
+
+    /**
+     * @return номер грани справа от дуги или -1
+     */
+    public int rightFace(int dart) {
+        return rightFace[dart];
+    }
+
+    public VertexOfDualGraph face(int id) {
+        return faces[id];
+    }
+
+    public int facesNumber() {
+        return faces.length;
+    }
+
+    /**
+     * @return есть ли грань среди вершин двойственного графа
+     */
+    public boolean hasNeighbors(int face) {
+        return hasNeighbors[face];
+    }
+
+    public int neighborsBegin(int face) {
+        return neighborOffsets[face];
+    }
+
+    public int neighborsEnd(int face) {
+        return neighborOffsets[face + 1];
+    }
+
+    public int neighborFace(int position) {
+        return neighborFaces[position];
+    }
+
+    public double neighborLength(int position) {
+        return neighborLengths[position];
+    }
+
+    /**
+     * Родители вершин дерева кратчайших путей по id вершин, -1 для корня и вершин вне дерева
+     */
+    public int[] parents(Map<Vertex, Vertex> previous) {
+        CompactGraph<Vertex> graph = compactGraph();
+        int[] parent = new int[graph.verticesNumber()];
+        Arrays.fill(parent, -1);
+        for (Map.Entry<Vertex, Vertex> entry : previous.entrySet()) {
+            int child = graph.id(entry.getKey());
+            if (child != -1 && entry.getValue() != null) {
+                parent[child] = graph.id(entry.getValue());
+            }
+        }
+        return parent;
+    }
+}
@@ -1,7 +1,9 @@
 package partitioning.shortestpathtree;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 
 import org.slf4j.Logger;
@@ -26,25 +28,130 @@ public class ShortestPathTreeProcessor {
             );
         }
 
-        ScoreResult bestScore = new ScoreResult(Double.MAX_VALUE, 0, 0);
-        int bestI1 = 0, bestI2 = 0;
-        for (int i1 = 0; i1 < n1; i1++) {
-            for (int i2 = 0; i2 < n2; i2++) {
+        LeafPair best = bestLeafPair(result1, result2, sourceWeight, sinkWeight);
+
+        List<Vertex> path1 = reconstructPathToLeaf(result1, best.i1());
+        List<Vertex> path2 = reconstructPathToLeaf(result2, best.i2());
+
+        return new SPTResult(best.score().weightBalance(), best.score().length(), combinePaths(path1, path2));
+    }
+
+    /**
+     * Лучшая пара листьев по score за O((n1 + n2) log n2).
+     * При фиксированном i1 score = BETA * (l1 + l2) + (1 - BETA) * |u + w2|, где w2 - вес региона
+     * листа второй стороны, поэтому для листьев с w2 >= -u минимизируется BETA * l2 + (1 - BETA) * w2,
+     * а для остальных BETA * l2 - (1 - BETA) * w2. Листья второй стороны сортируются по w2 (вдоль границы
+     * веса не убывают, так что сортировка почти линейная), минимумы на префиксах и суффиксах считаются
+     * один раз, для каждого i1 порог ищется двоичным поиском. Найденные кандидаты сравниваются
+     * по leafScore, при равенстве выигрывает пара с меньшими номерами, как при полном переборе
+     */
+    LeafPair bestLeafPair(DijkstraResult result1, DijkstraResult result2, double sourceWeight, double sinkWeight) {
+        int n1 = result1.leafIndices().size();
+        int n2 = result2.leafIndices().size();
+
+        int m = 0;
+        Integer[] order = new Integer[n2];
+        for (int i2 = 0; i2 < n2; i2++) {
+            if (result2.leafIndices().get(i2) != -1) {
+                order[m++] = i2;
+            }
+        }
+        order = Arrays.copyOf(order, m);
+        double[] regionWeight2 = new double[n2];
+        double[] length2 = new double[n2];
+        for (int i2 : order) {
+            regionWeight2[i2] = result2.weights().get(result2.leafIndices().get(i2));
+            length2[i2] = result2.distances().get(result2.leafIndices().get(i2));
+        }
+        Arrays.sort(order, Comparator.comparingDouble(i2 -> regionWeight2[i2]));
+        double[] sortedWeights = new double[m];
+        for (int p = 0; p < m; p++) {
+            sortedWeights[p] = regionWeight2[order[p]];
+        }
+
+        // prefixBest[p] - лучший по BETA * l2 - (1 - BETA) * w2 среди order[0..p],
+        // suffixBest[p] - лучший по BETA * l2 + (1 - BETA) * w2 среди order[p..m)
+        int[] prefixBest = new int[m];
+        int[] suffixBest = new int[m];
+        for (int p = 0; p < m; p++) {
+            int i2 = order[p];
+            prefixBest[p] = p == 0 || better(BETA * length2[i2] - (1 - BETA) * regionWeight2[i2], i2,
+                    BETA * length2[prefixBest[p - 1]] - (1 - BETA) * regionWeight2[prefixBest[p - 1]],
+                    prefixBest[p - 1]) ? i2 : prefixBest[p - 1];
+        }
+        for (int p = m - 1; p >= 0; p--) {
+            int i2 = order[p];
+            suffixBest[p] = p == m - 1 || better(BETA * length2[i2] + (1 - BETA) * regionWeight2[i2], i2,
+                    BETA * length2[suffixBest[p + 1]] + (1 - BETA) * regionWeight2[suffixBest[p + 1]],
+                    suffixBest[p + 1]) ? i2 : suffixBest[p + 1];
+        }
+
+        double totalWeight = result1.totalRegionWeight() + result2.totalRegionWeight() + sourceWeight + sinkWeight;
+        LeafPair best = new LeafPair(0, 0, new ScoreResult(Double.MAX_VALUE, 0, 0));
+        for (int i1 = 0; i1 < n1 && m > 0; i1++) {
+            if (result1.leafIndices().get(i1) == -1) {
+                continue;
+            }
+            double u = ALPHA * totalWeight - result1.weights().get(result1.leafIndices().get(i1))
+                    - result2.totalRegionWeight() - sourceWeight;
+            int threshold = firstNotLess(sortedWeights, -u);
+            LeafPair pair = null;
+            if (threshold > 0) {
+                int i2 = prefixBest[threshold - 1];
+                pair = new LeafPair(i1, i2, leafScore(result1, i1, result2, i2, sourceWeight, sinkWeight));
+            }
+            if (threshold < m) {
+                int i2 = suffixBest[threshold];
+                ScoreResult score = leafScore(result1, i1, result2, i2, sourceWeight, sinkWeight);
+                if (pair == null || better(score.score(), i2, pair.score().score(), pair.i2())) {
+                    pair = new LeafPair(i1, i2, score);
+                }
+            }
+            if (pair.score().score() < best.score().score()) {
+                best = pair;
+                logger.debug("New best score: {} at i1 = {}, i2 = {}, weight balance = {}, length = {}",
+                        best.score().score(), i1, pair.i2(), best.score().weightBalance(), best.score().length());
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Полный перебор всех n1 * n2 пар листьев
+     */
+    LeafPair bestLeafPairBruteForce(DijkstraResult result1, DijkstraResult result2,
+                                    double sourceWeight, double sinkWeight) {
+        LeafPair best = new LeafPair(0, 0, new ScoreResult(Double.MAX_VALUE, 0, 0));
+        for (int i1 = 0; i1 < result1.leafIndices().size(); i1++) {
+            for (int i2 = 0; i2 < result2.leafIndices().size(); i2++) {
                 ScoreResult score = leafScore(result1, i1, result2, i2, sourceWeight, sinkWeight);
-                if (score.score < bestScore.score) {
-                    bestScore = score;
-                    bestI1 = i1;
-                    bestI2 = i2;
-                    logger.debug("New best score: {} at i1 = {}, i2 = {}, weight balance = {}, length = {}", 
-                            bestScore.score, i1, i2, bestScore.weightBalance, bestScore.length);
+                if (score.score < best.score().score()) {
+                    best = new LeafPair(i1, i2, score);
                 }
             }
         }
+        return best;
+    }
 
-        List<Vertex> path1 = reconstructPathToLeaf(result1, bestI1);
-        List<Vertex> path2 = reconstructPathToLeaf(result2, bestI2);
+    private static boolean better(double score, int index, double otherScore, int otherIndex) {
+        return score < otherScore || (score == otherScore && index < otherIndex);
+    }
 
-        return new SPTResult(bestScore.weightBalance, bestScore.length, combinePaths(path1, path2));
+    /**
+     * @return первая позиция в отсортированном массиве со значением не меньше value
+     */
+    private static int firstNotLess(double[] sorted, double value) {
+        int lo = 0;
+        int hi = sorted.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sorted[mid] < value) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
     }
 
     private ScoreResult leafScore(DijkstraResult result1, int i1, DijkstraResult result2, int i2, double sourceWeight, double sinkWeight) {
@@ -94,4 +201,11 @@ public class ShortestPathTreeProcessor {
             double weightBalance
     )
     { }
+
+    record LeafPair(
+            int i1,
+            int i2,
+            ScoreResult score
+    )
+    { }
 }
\ No newline at end of file
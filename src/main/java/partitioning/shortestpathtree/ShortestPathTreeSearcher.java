@@ -2,12 +2,11 @@ package partitioning.shortestpathtree;
 
 import java.util.*;
 
-import graph.Edge;
-import graph.EdgeOfGraph;
+import graph.CompactGraph;
 import graph.Graph;
+import graph.HalfEdgeGraph;
 import graph.Vertex;
 import graph.VertexOfDualGraph;
-import org.junit.jupiter.api.Assertions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import partitioning.entities.SPTWithRegionWeights;
@@ -17,6 +16,10 @@ import readWrite.CoordinateConversion;
 public class ShortestPathTreeSearcher {
     private static final Logger logger = LoggerFactory.getLogger(ShortestPathTreeSearcher.class);
 
+    /**
+     * То же, что {@link #buildSPTWithRegionWeights(RegionTopology, Map, Vertex, List, List, List, boolean,
+     * CornerConstraints, List)}, топология graph и dualGraph строится заново на каждый вызов
+     */
     public static SPTWithRegionWeights buildSPTWithRegionWeights(
             Graph<Vertex> graph,
             Map<Vertex, Vertex> previous,
@@ -29,9 +32,31 @@ public class ShortestPathTreeSearcher {
             CornerConstraints cornerConstraints,
             List<Vertex> path
     ) {
+        return buildSPTWithRegionWeights(
+                new RegionTopology(new CompactGraph<>(graph), dualGraph), previous, sourceVertex,
+                externalBoundary, sourceCorners, sinkCorners, isFirstSide, cornerConstraints, path
+        );
+    }
 
+    /**
+     * Топология только читается, поэтому вызовы для одной топологии могут идти параллельно
+     */
+    public static SPTWithRegionWeights buildSPTWithRegionWeights(
+            RegionTopology topology,
+            Map<Vertex, Vertex> previous,
+            Vertex sourceVertex,
+            List<Vertex> externalBoundary,
+            List<Vertex> sourceCorners,
+            List<Vertex> sinkCorners,
+            boolean isFirstSide,
+            CornerConstraints cornerConstraints,
+            List<Vertex> path
+    ) {
+
+        int[] parent = topology.parents(previous);
         Set<Vertex> externalBoundarySet = new HashSet<>(externalBoundary);
-        List<Vertex> boundaryVerticesInSPT = findBoundaryVerticesInSPT(externalBoundarySet, previous);
+        List<Vertex> boundaryVerticesInSPT = findBoundaryVerticesInSPT(
+                externalBoundarySet, topology.compactGraph(), parent);
 
         Map<Long, Integer> boundaryOrderMap = buildBoundaryOrderMap(externalBoundary);
         TwoKeyVertices keyVertices = findTwoKeyVertices(sourceCorners, sinkCorners, isFirstSide);
@@ -43,7 +68,7 @@ public class ShortestPathTreeSearcher {
                                     boundarySegmentStart, externalBoundary.size());
 
         RegionWeightsResult weightsResult = computeRegionWeightsByEulerTour(
-                sourceVertex, previous, boundaryVerticesInSPT, graph, dualGraph, cornerConstraints, path, isFirstSide
+                sourceVertex, parent, boundaryVerticesInSPT, topology, cornerConstraints, path, isFirstSide
         );
 
         if (logger.isDebugEnabled()) {
@@ -74,33 +99,17 @@ public class ShortestPathTreeSearcher {
     ) {}
 
     /**
-     * Each frame holds the ordered edge list and a mutable index tracking
-     * which edge to process next, so non-tree edges are interleaved correctly
-     * with child subtree visits.
-     */
-    private static class EulerTourFrame {
-        final Vertex vertex;
-        final Vertex parent;
-        final List<EdgeOfGraph<Vertex>> edges;
-        int nextEdgeIdx;
-
-        EulerTourFrame(Vertex vertex, Vertex parent, List<EdgeOfGraph<Vertex>> edges) {
-            this.vertex = vertex;
-            this.parent = parent;
-            this.edges = edges;
-            this.nextEdgeIdx = 0;
-        }
-    }
-
-    /**
-     * Контекст для Euler Tour обхода
+     * Контекст для Euler Tour обхода. Вершины, дуги и грани - номера из топологии,
+     * дерево задано массивом родителей
      */
     private static class EulerTourContext {
-        final Map<Vertex, TreeSet<EdgeOfGraph<Vertex>>> sortedEdgesByVertex;
-        final Set<Map.Entry<Vertex, Vertex>> sptEdges;
-        final Set<Vertex> sptVertices;
-        final Set<Vertex> boundaryLeaves;
-        final Map<Vertex, HashMap<Vertex, VertexOfDualGraph>> edgeToLeftFace;
+        final RegionTopology topology;
+        final CompactGraph<Vertex> graph;
+        final HalfEdgeGraph<Vertex> halfEdges;
+        final int[] parent;
+        final boolean[] boundaryLeaves;
+        final boolean[] processedNonTreeEdges;
+        final boolean[] addedRegions;
         final List<VertexOfDualGraph> regions;
         final List<Double> weights;
         final List<Double> distances;
@@ -109,43 +118,31 @@ public class ShortestPathTreeSearcher {
 
         double cumulativeWeight;
         int currentLeafIndex;
-        final Set<Map.Entry<Vertex, Vertex>> processedNonTreeEdges;
-        final Set<VertexOfDualGraph> addedRegions;
-        final Graph<VertexOfDualGraph> dualGraph;
+        int processedNonTreeEdgesNumber;
         double currentBoundaryLength;
-        List<Vertex> path;
-        boolean isFirstSide;
 
         EulerTourContext(
-                Map<Vertex, TreeSet<EdgeOfGraph<Vertex>>> sortedEdgesByVertex,
-                Set<Map.Entry<Vertex, Vertex>> sptEdges,
-                Set<Vertex> sptVertices,
-                Set<Vertex> boundaryLeaves,
-                Map<Vertex, HashMap<Vertex, VertexOfDualGraph>> edgeToLeftFace,
-                Graph<VertexOfDualGraph> dualGraph,
-                CornerConstraints cornerConstraints,
-                List<Vertex> path,
-                boolean isFirstSide
+                RegionTopology topology,
+                int[] parent,
+                boolean[] boundaryLeaves,
+                CornerConstraints cornerConstraints
         ) {
 
-            this.sortedEdgesByVertex = sortedEdgesByVertex;
-            this.sptEdges = sptEdges;
-            this.sptVertices = sptVertices;
+            this.topology = topology;
+            this.graph = topology.compactGraph();
+            this.halfEdges = topology.halfEdges();
+            this.parent = parent;
             this.boundaryLeaves = boundaryLeaves;
-            this.edgeToLeftFace = edgeToLeftFace;
+            this.processedNonTreeEdges = new boolean[halfEdges.dartsNumber()];
+            this.addedRegions = new boolean[topology.facesNumber()];
             this.cornerConstraints = cornerConstraints;
             this.regions = new ArrayList<>();
             this.weights = new ArrayList<>();
             this.distances = new ArrayList<>();
+            this.leafIndices = new ArrayList<>();
             this.cumulativeWeight = 0.0;
             this.currentLeafIndex = 0;
-            this.processedNonTreeEdges = new HashSet<>();
-            this.addedRegions = new HashSet<>();
-            this.dualGraph = dualGraph;
             this.currentBoundaryLength = 0.0;
-            this.leafIndices = new ArrayList<>();
-            this.path = path;
-            this.isFirstSide = isFirstSide;
         }
     }
 
@@ -166,10 +163,9 @@ public class ShortestPathTreeSearcher {
      */
     private static RegionWeightsResult computeRegionWeightsByEulerTour(
             Vertex root,
-            Map<Vertex, Vertex> previous,
+            int[] parent,
             List<Vertex> boundaryLeaves,
-            Graph<Vertex> graph,
-            Graph<VertexOfDualGraph> dualGraph,
+            RegionTopology topology,
             CornerConstraints cornerConstraints,
             List<Vertex> path,
             boolean isFirstSide
@@ -179,12 +175,15 @@ public class ShortestPathTreeSearcher {
             return new RegionWeightsResult(List.of(), List.of(), List.of(), List.of(), 0);
         }
 
-        EulerTourContext context = prepareEulerTourContext(
-                root, previous, boundaryLeaves, graph, dualGraph, cornerConstraints, path, isFirstSide
-        );
+        CompactGraph<Vertex> graph = topology.compactGraph();
+        boolean[] isBoundaryLeaf = new boolean[graph.verticesNumber()];
+        for (Vertex leaf : boundaryLeaves) {
+            isBoundaryLeaf[graph.id(leaf)] = true;
+        }
+        EulerTourContext context = new EulerTourContext(topology, parent, isBoundaryLeaf, cornerConstraints);
 
-        logEulerTourStart(context, dualGraph);
-        eulerTourIterative(root, context);
+        logEulerTourStart(context);
+        eulerTourIterative(root, context, path, isFirstSide);
         logEulerTourEnd(context);
 
         return new RegionWeightsResult(
@@ -195,195 +194,166 @@ public class ShortestPathTreeSearcher {
                 context.cumulativeWeight);
     }
 
-    /**
-     * Подготавливает контекст для Euler tour
-     */
-    private static EulerTourContext prepareEulerTourContext(
-            Vertex root,
-            Map<Vertex, Vertex> previous,
-            List<Vertex> boundaryLeaves,
-            Graph<Vertex> graph,
-            Graph<VertexOfDualGraph> dualGraph,
-            CornerConstraints cornerConstraints,
-            List<Vertex> path,
-            boolean isFirstSide
-    ) {
-
-        Set<Map.Entry<Vertex, Vertex>> sptEdges = buildSPTEdgesSet(previous);
-        Map<Vertex, HashMap<Vertex, VertexOfDualGraph>> edgeToLeftFace = dualGraph.edgeToDualVertexMap();
-        graph.resetSortedEdgesCache();
-        Map<Vertex, TreeSet<EdgeOfGraph<Vertex>>> sortedEdgesByVertex = graph.arrangeByAngle();
-        Set<Vertex> sptVertices = buildSPTVerticesSet(root, previous);
-
-        return new EulerTourContext(
-                sortedEdgesByVertex, sptEdges, sptVertices,
-                new HashSet<>(boundaryLeaves), edgeToLeftFace, dualGraph, cornerConstraints, path, isFirstSide
-        );
-    }
-
     /**
      * ИТЕРАТИВНЫЙ Euler tour обход используя стек.
      *
-     * Each frame keeps a pointer (nextEdgeIdx) into its ordered edge list.
-     * On every iteration we peek the top frame and advance one edge:
+     * Each frame keeps a pointer (done) into the darts of its vertex sorted by angle,
+     * starting right after the dart to the parent (for the root - from the dart along the path).
+     * On every iteration we peek the top frame and advance one dart:
      *   - non-tree edge → process the right face immediately, advance pointer
      *   - tree edge → push child frame (will be processed before we return here)
-     *   - all edges done → pop frame, handle boundary leaf
+     *   - all darts done → pop frame, handle boundary leaf
      *
      * This guarantees that non-tree edges between two tree children are processed
      * in between the two subtree visits, preserving the correct Euler tour order.
+     * Frames are stored in int arrays, every vertex is pushed at most once.
      */
-    private static void eulerTourIterative(Vertex root, EulerTourContext context) {
-        Deque<EulerTourFrame> stack = new ArrayDeque<>();
-
-        TreeSet<EdgeOfGraph<Vertex>> rootEdges = context.sortedEdgesByVertex.get(root);
-        List<EdgeOfGraph<Vertex>> rootOrdered = getOrderedEdges(rootEdges, null, root, context.path, context.isFirstSide);
-        stack.push(new EulerTourFrame(root, null, rootOrdered));
-
-        while (!stack.isEmpty()) {
-            EulerTourFrame frame = stack.peek();
-            if (root.name == 131001) {
-                logger.debug("Processing vertex {}", frame.vertex.getName());
-            }
-
-            if (frame.nextEdgeIdx >= frame.edges.size()) {
+    private static void eulerTourIterative(Vertex root, EulerTourContext context, List<Vertex> path,
+                                           boolean isFirstSide) {
+        CompactGraph<Vertex> graph = context.graph;
+        HalfEdgeGraph<Vertex> halfEdges = context.halfEdges;
+        int n = graph.verticesNumber();
+        int[] stackVertex = new int[n];
+        int[] stackParent = new int[n];
+        int[] stackStart = new int[n];
+        int[] stackDone = new int[n];
+        boolean[] stackCorner = new boolean[n];
+
+        int rootId = graph.id(root);
+        stackVertex[0] = rootId;
+        stackParent[0] = -1;
+        stackStart[0] = rootStart(root, rootId, halfEdges, path, isFirstSide);
+        stackCorner[0] = context.cornerConstraints.isCornerVertex(root);
+        int size = 1;
+
+        while (size > 0) {
+            int top = size - 1;
+            int vertex = stackVertex[top];
+            int degree = halfEdges.sortedDegree(vertex);
+
+            if (stackDone[top] >= degree) {
                 // All edges of this vertex have been processed — leaving vertex
-                stack.pop();
-                handleBoundaryVertex(frame.vertex, context);
+                size--;
+                handleBoundaryVertex(vertex, context);
                 continue;
             }
 
-            EdgeOfGraph<Vertex> edge = frame.edges.get(frame.nextEdgeIdx);
-            frame.nextEdgeIdx++;
-
-            Vertex neighbor = edge.end;
+            int dart = halfEdges.sortedDart(vertex, (stackStart[top] + stackDone[top]++) % degree);
+            int neighbor = halfEdges.target(dart);
+            int parent = stackParent[top];
 
             // Skip parent edge
-            if (frame.parent != null && neighbor.getName() == frame.parent.getName()) {
+            if (parent != -1 && graph.vertex(neighbor).getName() == graph.vertex(parent).getName()) {
                 continue;
             }
 
             // Skip edges that violate corner constraints (edges to source/sink boundaries that are not allowed)
-            if (!context.cornerConstraints.isNeighborAllowed(frame.vertex, neighbor)) {
-                if (root.name == 131001) {
-                    logger.debug("Skipping edge {} -> {} due to corner constraints",
-                            frame.vertex.getName(), neighbor.getName());
-                }
+            if (stackCorner[top] && !context.cornerConstraints.isNeighborAllowed(
+                    graph.vertex(vertex), graph.vertex(neighbor))) {
                 continue;
             }
 
-            boolean isTreeEdge = context.sptEdges.contains(
-                    Map.entry(frame.vertex, neighbor));
-
-            if (isTreeEdge) {
-                if (root.name == 131001) {
-                    logger.debug("Processing tree edge {} -> {}", frame.vertex.getName(), neighbor.getName());
-                }
+            if (context.parent[neighbor] == vertex || context.parent[vertex] == neighbor) {
                 // Descend into child — push new frame (will be processed before
                 // we return to the current frame's next edge)
-                TreeSet<EdgeOfGraph<Vertex>> childEdges =
-                        context.sortedEdgesByVertex.get(neighbor);
-                List<EdgeOfGraph<Vertex>> childOrdered =
-                        getOrderedEdges(childEdges, frame.vertex, null, null, context.isFirstSide);
-                stack.push(new EulerTourFrame(neighbor, frame.vertex, childOrdered));
+                stackVertex[size] = neighbor;
+                stackParent[size] = vertex;
+                stackStart[size] = childStart(neighbor, vertex, graph, halfEdges);
+                stackDone[size] = 0;
+                stackCorner[size] = context.cornerConstraints.isCornerVertex(graph.vertex(neighbor));
+                size++;
             } else {
-                if (root.name == 131001) {
-                    logger.debug("Processing non-tree edge {} -> {}", frame.vertex.getName(), neighbor.getName());
-                }
                 // Non-tree edge — process the right face
-                Map.Entry<Vertex, Vertex> edgeKey1 = Map.entry(frame.vertex, neighbor);
-                Map.Entry<Vertex, Vertex> edgeKey2 = Map.entry(neighbor, frame.vertex);
-
-                if (!context.processedNonTreeEdges.contains(edgeKey1) &&
-                        !context.processedNonTreeEdges.contains(edgeKey2)) {
-                    processRightFace(frame.vertex, neighbor, context);
-                    context.processedNonTreeEdges.add(edgeKey1);
+                int twin = halfEdges.twin(dart);
+                if (!context.processedNonTreeEdges[dart]
+                        && (twin == -1 || !context.processedNonTreeEdges[twin])) {
+                    processRightFace(dart, context);
+                    context.processedNonTreeEdges[dart] = true;
+                    context.processedNonTreeEdgesNumber++;
                 }
             }
         }
     }
 
     /**
-     * Получает упорядоченный список ребер начиная от parent
+     * Позиция первой дуги корня: дуга к следующей (для второй стороны - предыдущей) вершине пути
+     * после корня или его исходной вершины
      */
-    private static List<EdgeOfGraph<Vertex>> getOrderedEdges(
-            TreeSet<EdgeOfGraph<Vertex>> edges,
-            Vertex parent,
-            Vertex start,
-            List<Vertex> path,
-            boolean isFirstSide
-    ) {
-        List<EdgeOfGraph<Vertex>> edgesList = new ArrayList<>(edges);
-        int startIdx = -1;
-        if (parent != null) {
-            startIdx = findParentIndex(edges, parent);
-            startIdx = (startIdx + 1) % edgesList.size();
-        } else {
-            var splittedVertex = new Vertex(start.name / 1000, start);
-            for (int i = 0; i < path.size(); i++) {
-                if (path.get(i).equals(start) || path.get(i).equals(splittedVertex)) {
-                    Vertex nextVertex = isFirstSide ? path.get((i + 1) % path.size()) : path.get((i - 1 + path.size()) % path.size());
-                    startIdx = findParentIndex(edges, nextVertex);
-                }
+    private static int rootStart(Vertex root, int rootId, HalfEdgeGraph<Vertex> halfEdges,
+                                 List<Vertex> path, boolean isFirstSide) {
+        int start = 0;
+        var splittedVertex = new Vertex(root.name / 1000, root);
+        for (int i = 0; i < path.size(); i++) {
+            if (path.get(i).equals(root) || path.get(i).equals(splittedVertex)) {
+                Vertex nextVertex = isFirstSide ? path.get((i + 1) % path.size()) : path.get((i - 1 + path.size()) % path.size());
+                start = findDartPosition(rootId, nextVertex.getName(), halfEdges);
             }
         }
+        return start;
+    }
 
-        List<EdgeOfGraph<Vertex>> result = new ArrayList<>();
-        for (int i = 0; i < edgesList.size(); i++) {
-            result.add(edgesList.get((startIdx + i) % edgesList.size()));
+    /**
+     * Позиция дуги, следующей за дугой к parent
+     */
+    private static int childStart(int vertex, int parent, CompactGraph<Vertex> graph,
+                                  HalfEdgeGraph<Vertex> halfEdges) {
+        int degree = halfEdges.sortedDegree(vertex);
+        if (degree == 0) {
+            return 0;
         }
-        return result;
+        return (findDartPosition(vertex, graph.vertex(parent).getName(), halfEdges) + 1) % degree;
+    }
+
+    /**
+     * Находит позицию дуги к вершине с данным именем в CCW-отсортированных дугах вершины.
+     * Если такой дуги нет, возвращает 0.
+     */
+    private static int findDartPosition(int vertex, long name, HalfEdgeGraph<Vertex> halfEdges) {
+        CompactGraph<Vertex> graph = halfEdges.compactGraph();
+        for (int i = 0; i < halfEdges.sortedDegree(vertex); i++) {
+            if (graph.vertex(halfEdges.target(halfEdges.sortedDart(vertex, i))).getName() == name) {
+                return i;
+            }
+        }
+        return 0;
     }
 
     /**
      * Обрабатывает boundary leaf вершину
      */
-    private static void handleBoundaryVertex(Vertex vertex, EulerTourContext context) {
-        if (context.boundaryLeaves.contains(vertex)) {
+    private static void handleBoundaryVertex(int vertex, EulerTourContext context) {
+        if (context.boundaryLeaves[vertex]) {
             context.leafIndices.add(context.weights.size() - 1);
-            logger.debug("  Leaf {} (vertex {}): cumulative={}", context.currentLeafIndex, vertex.getName(), context.cumulativeWeight);
+            logger.debug("  Leaf {} (vertex {}): cumulative={}", context.currentLeafIndex,
+                    context.graph.vertex(vertex).getName(), context.cumulativeWeight);
             context.currentLeafIndex++;
         }
     }
 
     /**
-     * Обработка правой грани non-tree ребра current→neighbor.
-     * edgeToLeftFace[neighbor][current] = грань слева от neighbor→current
-     *                                   = грань справа от current→neighbor.
+     * Обработка правой грани non-tree дуги current→neighbor ({@link RegionTopology#rightFace}).
+     * Веса регионов - префиксные суммы весов граней в порядке обхода.
      * При CW обходе рёбер это корректная грань.
      */
-    private static void processRightFace(
-            Vertex current,
-            Vertex neighbor,
-            EulerTourContext context) {
-
-        VertexOfDualGraph face = null;
-
-        if (context.edgeToLeftFace.containsKey(neighbor)) {
-            face = context.edgeToLeftFace.get(neighbor).get(current);
-        }
-        Vertex newNeighbor = new Vertex(neighbor.name / 1000, neighbor.x, neighbor.y);
-        Vertex newCurrent = new Vertex(current.name / 1000, current.x, current.y);
-        if (face == null && context.edgeToLeftFace.containsKey(newNeighbor)) {
-            face = context.edgeToLeftFace.get(newNeighbor).get(current);
-        }
-        else if (face == null && context.edgeToLeftFace.containsKey(neighbor)) {
-            face = context.edgeToLeftFace.get(neighbor).get(newCurrent);
-        }
-        else if (face == null && context.edgeToLeftFace.containsKey(newNeighbor)) {
-            face = context.edgeToLeftFace.get(newNeighbor).get(newCurrent);
-        }
-        if (face != null) {
-            context.cumulativeWeight += face.getWeight();
+    private static void processRightFace(int dart, EulerTourContext context) {
+        int face = context.topology.rightFace(dart);
+        if (face != -1) {
+            VertexOfDualGraph region = context.topology.face(face);
+            context.cumulativeWeight += region.getWeight();
             context.weights.add(context.cumulativeWeight);
-            context.regions.add(face);
-            
+            context.regions.add(region);
+
             double boundaryLength = updateBoundaryLength(face, context);
             context.distances.add(boundaryLength);
-            
-            context.addedRegions.add(face);
-            logger.debug("  Non-tree edge {} -> {}: cumulative={}, face={}", current.getName(), neighbor.getName(), context.cumulativeWeight, face.getName());
+
+            context.addedRegions[face] = true;
+            logger.debug("  Non-tree edge {} -> {}: cumulative={}, face={}",
+                    context.graph.vertex(context.halfEdges.origin(dart)).getName(),
+                    context.graph.vertex(context.halfEdges.target(dart)).getName(),
+                    context.cumulativeWeight, region.getName());
         } else {
+            Vertex current = context.graph.vertex(context.halfEdges.origin(dart));
+            Vertex neighbor = context.graph.vertex(context.halfEdges.target(dart));
             CoordinateConversion cc = new CoordinateConversion();
             logger.warn("No face found for non-tree edge {} ({}, {}) -> {}", current.getName(), cc.fromEuclidean(current).x, cc.fromEuclidean(current).y, neighbor.getName());
         }
@@ -394,13 +364,21 @@ public class ShortestPathTreeSearcher {
      */
     private static List<Vertex> findBoundaryVerticesInSPT(
             Set<Vertex> externalBoundarySet,
-            Map<Vertex, Vertex> previous) {
+            CompactGraph<Vertex> graph,
+            int[] parent) {
 
         List<Vertex> result = new ArrayList<>();
-        Set<Vertex> inTree = new HashSet<>(previous.values());
+        boolean[] inTree = new boolean[parent.length];
+        for (int v = 0; v < parent.length; v++) {
+            if (parent[v] != -1) {
+                inTree[v] = true;
+                inTree[parent[v]] = true;
+            }
+        }
 
         for (Vertex v: externalBoundarySet) {
-            if (previous.containsKey(v) || inTree.contains(v)) {
+            int id = graph.id(v);
+            if (id != -1 && inTree[id]) {
                 result.add(v);
             }
         }
@@ -453,28 +431,26 @@ public class ShortestPathTreeSearcher {
         return sourcePos;
     }
 
-    private static void logEulerTourStart(EulerTourContext context, Graph<VertexOfDualGraph> dualGraph) {
-        logger.debug("SPT Region weights computation (Euler tour):");
-        logger.debug("  SPT has {} edges", context.sptEdges.size() / 2);
-        logger.debug("  SPT has {} vertices", context.sptVertices.size());
-        var map = dualGraph.edgeToDualVertexMap();
-        Set<VertexOfDualGraph> faces = new HashSet<>();
-        for (var edge: context.sptEdges) {
-            if (map.containsKey(edge.getKey())) {
-                var m1 = map.get(edge.getKey());
-                if (m1.containsKey(edge.getValue())) {
-                    faces.add(m1.get(edge.getValue()));
-                }
+    private static void logEulerTourStart(EulerTourContext context) {
+        if (!logger.isDebugEnabled()) {
+            return;
+        }
+        int edges = 0;
+        for (int v = 0; v < context.parent.length; v++) {
+            if (context.parent[v] != -1) {
+                edges++;
             }
         }
-        logger.debug("EXPECTED {} faces", faces.size());
+        logger.debug("SPT Region weights computation (Euler tour):");
+        logger.debug("  SPT has {} edges", edges);
+        logger.debug("  SPT has {} vertices", edges + 1);
     }
 
     private static void logEulerTourEnd(EulerTourContext context) {
         logger.debug("  Total region weight: {}", context.cumulativeWeight);
         logger.debug("  Total region number: {}", context.regions.size());
         logger.debug("  Unique regions: {}", new java.util.HashSet<>(context.regions).size());
-        logger.debug("  Processed non-tree edges: {}", context.processedNonTreeEdges.size());
+        logger.debug("  Processed non-tree edges: {}", context.processedNonTreeEdgesNumber);
     }
 
     /**
@@ -513,73 +489,20 @@ public class ShortestPathTreeSearcher {
     }
 
     /**
-     * Строит set всех ребер в SPT (в обе стороны)
-     */
-    private static Set<Map.Entry<Vertex, Vertex>> buildSPTEdgesSet(Map<Vertex, Vertex> previous) {
-        Set<Map.Entry<Vertex, Vertex>> sptEdges = new HashSet<>();
-
-        for (Map.Entry<Vertex, Vertex> entry : previous.entrySet()) {
-            Vertex child = entry.getKey();
-            Vertex parent = entry.getValue();
-
-            if (parent != null) {
-                sptEdges.add(Map.entry(child, parent));
-                sptEdges.add(Map.entry(parent, child));
-            }
-        }
-
-        return sptEdges;
-    }
-
-    /**
-     * Строит set всех вершин в SPT
-     */
-    private static Set<Vertex> buildSPTVerticesSet(Vertex root, Map<Vertex, Vertex> previous) {
-        Set<Vertex> vertices = new HashSet<>(previous.keySet());
-        vertices.add(root);
-        return vertices;
-    }
-
-    /**
-     * Находит индекс ребра к parent в CCW-отсортированном списке.
-     * Если parent == null (корень), возвращает 0.
+     * Длина границы объединения добавленных граней после добавления грани face
      */
-    private static int findParentIndex(
-            TreeSet<EdgeOfGraph<Vertex>> edgesFromCurrent,
-            Vertex parent) {
-
-        if (parent == null) {
-            return 0;
-        }
-
-        List<EdgeOfGraph<Vertex>> edgesList = new ArrayList<>(edgesFromCurrent);
-        for (int i = 0; i < edgesList.size(); i++) {
-            if (edgesList.get(i).end.getName() == parent.getName()) {
-                return i;
-            }
-        }
-
-        return 0;
-    }
-
-    private static double updateBoundaryLength(
-            VertexOfDualGraph newRegion,
-            EulerTourContext context) {
-
-        Map<VertexOfDualGraph, Edge> neighbors = context.dualGraph.getEdges().get(newRegion);
-
-        if (neighbors == null) {
+    private static double updateBoundaryLength(int face, EulerTourContext context) {
+        RegionTopology topology = context.topology;
+        if (!topology.hasNeighbors(face)) {
             return context.currentBoundaryLength;
         }
 
         double delta = 0.0;
 
-        for (Map.Entry<VertexOfDualGraph, Edge> entry : neighbors.entrySet()) {
-            VertexOfDualGraph neighborFace = entry.getKey();
-            Edge edge = entry.getValue();
-            double edgeLength = edge.length;
+        for (int i = topology.neighborsBegin(face); i < topology.neighborsEnd(face); i++) {
+            double edgeLength = topology.neighborLength(i);
 
-            if (context.addedRegions.contains(neighborFace)) {
+            if (context.addedRegions[topology.neighborFace(i)]) {
                 delta -= edgeLength;
             } else {
                 delta += edgeLength;
@@ -589,4 +512,4 @@ public class ShortestPathTreeSearcher {
         context.currentBoundaryLength += delta;
         return context.currentBoundaryLength;
     }
-}
\ No newline at end of file
+}
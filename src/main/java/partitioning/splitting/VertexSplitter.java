@@ -168,7 +168,8 @@ public class VertexSplitter {
             logger.warn("No split found for vertex {}", vertex.getName());
         }
 
-        splitGraph.deleteVertex(vertexInGraph);
+        // в модифицированном графе все ребра двусторонние
+        splitGraph.deleteVertexWithReverseEdges(vertexInGraph);
         return splitVertices;
     }
 
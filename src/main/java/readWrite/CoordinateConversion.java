@@ -48,6 +48,20 @@ public class CoordinateConversion {
     }
 
 
+    /**
+     * Same as toEuclidean for points (x[i], y[i]), in place
+     */
+    public void toEuclidean(double[] x, double[] y) {
+        double scaleX = METERS_IN_DEGREE * Math.cos(referencePoint.y * Math.PI / 180);
+        double referenceX = referencePoint.x;
+        double referenceY = referencePoint.y;
+        for (int i = 0; i < x.length; i++) {
+            x[i] = scaleX * (x[i] - referenceX);
+            y[i] = METERS_IN_DEGREE * (y[i] - referenceY);
+        }
+    }
+
+
     public <T extends Point> T fromEuclidean(T p) {
         T ver = (T) p.copy();
         double x = p.x;
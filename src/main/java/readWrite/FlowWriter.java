@@ -18,6 +18,14 @@ import partitioning.entities.NeighborSplit;
 public class FlowWriter {
     private static final Logger logger = LoggerFactory.getLogger(FlowWriter.class);
 
+    /**
+     * Dumps are written only with debug logging of FlowWriter enabled.
+     * Their directories are named by boundary sizes and flow, so concurrent searches must not write them
+     */
+    public static boolean isEnabled() {
+        return logger.isDebugEnabled();
+    }
+
     public static void dumpVisualizationData(List<Vertex> externalBoundary, List<Vertex> sourceBoundary,
                                                   List<Vertex> sinkBoundary, List<Vertex> stPath, List<Vertex> bestPath,
                                                   HashSet<VertexOfDualGraph> sourceNeighbors,
@@ -1,8 +1,13 @@
 package readWrite;
 
-import java.io.File;
 import java.io.FileNotFoundException;
-import java.util.Scanner;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.NoSuchFileException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 
 import graph.Edge;
 import graph.Graph;
@@ -24,52 +29,71 @@ public class GraphReader {
 		this.coordConver = coordConver;
 	}
 
-	public Vertex readVertex(Graph<Vertex> graph, Scanner sc, boolean geodetic) {
-		long name = sc.nextLong();
-		String xStr = sc.next().replace(',', '.');
-		String yStr = sc.next().replace(',', '.');
-		double x = Double.parseDouble(xStr);
-		double y = Double.parseDouble(yStr);
-		Vertex ans = new Vertex(name, x, y);
-		if (geodetic) {
-			coordConver.toEuclidean(ans);
-		}
-		return graph.addVertex(ans);
-	}
-
 	/**
 	 * file format: n (Vertices number) name x y (of Vertex) n1 (Number of out
 	 * edges) name1 x1 y1 (of out vertex) length1 (edge length) ... long double x2
 	 * long long double x2 double
+	 * The file is read once, every vertex is created on its first mention and shared by all edges.
+	 * Vertices are added to the graph in the file order of their lines and then in the order of mentions,
+	 * so iteration order of the graph is the same as with two passes
 	 */
 	public void readGraphFromFile(Graph<Vertex> graph, String inFilename, boolean geodetic) throws FileNotFoundException {
 		graph.getEdges().clear();
-		Scanner sc = new Scanner(new File(inFilename));
-		int n = sc.nextInt();
-		logger.info("Vertices num: {}", n);
-		for (int i = 0; i < n && sc.hasNext(); i++) {
-			readVertex(graph, sc, geodetic);
-			sc.nextLine();
+		long startTime = System.nanoTime();
+		HashMap<Long, ReadVertex> vertices = new HashMap<>();
+		List<Vertex> mentioned = new ArrayList<>();
+		LinkedHashMap<Vertex, HashMap<Vertex, Edge>> adjacency = new LinkedHashMap<>();
+		long bytes;
+		try (NumberTokenizer tokenizer = new NumberTokenizer(inFilename)) {
+			int n = tokenizer.nextInt();
+			logger.info("Vertices num: {}", n);
+			for (int i = 0; i < n && tokenizer.hasNext(); i++) {
+				Vertex vi = readVertex(vertices, mentioned, tokenizer, geodetic);
+				int ni = tokenizer.nextInt();
+				HashMap<Vertex, Edge> viEdges = adjacency.computeIfAbsent(vi, v -> new HashMap<>());
+				for (int j = 0; j < ni && tokenizer.hasNext(); j++) {
+					Vertex vj = readVertex(vertices, mentioned, tokenizer, geodetic);
+					viEdges.put(vj, new Edge(tokenizer.nextDouble()));
+				}
+			}
+			bytes = tokenizer.bytesRead();
+		} catch (NoSuchFileException e) {
+			throw new FileNotFoundException(inFilename);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
 		}
-		sc.close();
+		graph.getEdges().putAll(adjacency);
+		for (Vertex v : mentioned) {
+			graph.addVertex(v);
+		}
+		double seconds = (System.nanoTime() - startTime) / 1e9;
+		logger.info("Read {} vertices, {} MB in {} seconds ({} MB/s)", graph.verticesNumber(),
+				String.format("%.1f", bytes / 1e6), String.format("%.3f", seconds),
+				String.format("%.1f", bytes / 1e6 / seconds));
+	}
 
-		sc = new Scanner(new File(inFilename));
-		n = sc.nextInt();
-        int ni;
-        double length;
-        Vertex vi, vj;
-		logger.info("Read all vertices");
+	/**
+	 * vertex read from file with its coordinates before conversion
+	 */
+	private record ReadVertex(Vertex vertex, double x, double y) {}
 
-		for (int i = 0; i < n && sc.hasNext(); i++) {
-			vi = readVertex(graph, sc, geodetic);
-			ni = sc.nextInt();
-			for (int j = 0; j < ni && sc.hasNext(); j++) {
-				vj = readVertex(graph, sc, geodetic);
-				String lengthStr = sc.next().replace(',', '.');
-				length = Double.parseDouble(lengthStr);
-				graph.getEdges().get(vi).put(vj, new Edge(length));
-			}
+	private Vertex readVertex(HashMap<Long, ReadVertex> vertices, List<Vertex> mentioned,
+							  NumberTokenizer tokenizer, boolean geodetic) throws IOException {
+		long name = tokenizer.nextLong();
+		double x = tokenizer.nextDouble();
+		double y = tokenizer.nextDouble();
+		ReadVertex known = vertices.get(name);
+		if (known != null && known.x() == x && known.y() == y) {
+			return known.vertex();
+		}
+		Vertex ans = new Vertex(name, x, y);
+		if (geodetic) {
+			coordConver.toEuclidean(ans);
+		}
+		if (known == null) {
+			vertices.put(name, new ReadVertex(ans, x, y));
 		}
-		sc.close();
+		mentioned.add(ans);
+		return ans;
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,318 @@
+package readWrite;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import graph.CompactGraph;
+import graph.Edge;
+import graph.Graph;
+import graph.HalfEdgeGraph;
+import graph.PlanarTopology;
+import graph.Point;
+import graph.Vertex;
+import graph.VertexOfDualGraph;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Prepared graphs in binary form: planar primal graph, dual graph with vertices of faces,
+ * comparisonForDualGraph and the reference point of coordinate conversion.
+ * The header also records the source graph file and the preparation inaccuracy,
+ * so a snapshot of another or changed graph can be detected before it is used.
+ * Written through a FileChannel and read with memory mapping, so repeated runs on the same graph
+ * skip reading text and graph preparation. Vertices and edges are stored in iteration order of the graphs
+ * and every vertex is stored once, edges and faces refer to vertices by index.
+ * Topology of the planar graph is not stored, it is rebuilt on reading.
+ * File must be smaller than 2 GB
+ */
+public record GraphSnapshot(Graph<Vertex> graph,
+                            Graph<VertexOfDualGraph> dualGraph,
+                            HashMap<Vertex, VertexOfDualGraph> comparisonForDualGraph,
+                            CoordinateConversion conversion,
+                            Source source) {
+    private static final Logger logger = LoggerFactory.getLogger(GraphSnapshot.class);
+    private static final int MAGIC = 0x47505348;
+    private static final int VERSION = 2;
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    /**
+     * Graph file the snapshot is prepared from (absolute path, size and modification time)
+     * and the inaccuracy of preparation
+     */
+    public record Source(String graphPath, long size, long lastModified, double inaccuracy) {
+        public static Source of(String graphFile, double inaccuracy) throws IOException {
+            Path path = Path.of(graphFile).toAbsolutePath().normalize();
+            return new Source(path.toString(), Files.size(path), Files.getLastModifiedTime(path).toMillis(),
+                    inaccuracy);
+        }
+    }
+
+    public void write(String fileName) throws IOException {
+        long startTime = System.currentTimeMillis();
+        IdTable<Vertex> vertices = new IdTable<>();
+        for (Vertex v : graph.getEdges().keySet()) {
+            vertices.id(v);
+        }
+        for (HashMap<Vertex, Edge> edges : graph.getEdges().values()) {
+            for (Vertex v : edges.keySet()) {
+                vertices.id(v);
+            }
+        }
+        IdTable<VertexOfDualGraph> faces = new IdTable<>();
+        for (VertexOfDualGraph face : dualGraph.getEdges().keySet()) {
+            faces.id(face);
+        }
+        for (Map.Entry<Vertex, VertexOfDualGraph> entry : comparisonForDualGraph.entrySet()) {
+            if (!(entry.getKey() instanceof VertexOfDualGraph key)) {
+                throw new IllegalArgumentException("Keys of comparisonForDualGraph must be faces");
+            }
+            faces.id(key);
+            faces.id(entry.getValue());
+        }
+        for (VertexOfDualGraph face : faces.list) {
+            for (Vertex v : face.getVerticesOfFace()) {
+                vertices.id(v);
+            }
+        }
+
+        try (FileChannel channel = FileChannel.open(Path.of(fileName), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            Output out = new Output(channel);
+            out.putInt(MAGIC);
+            out.putInt(VERSION);
+            byte[] graphPath = source.graphPath().getBytes(StandardCharsets.UTF_8);
+            out.putInt(graphPath.length);
+            out.putBytes(graphPath);
+            out.putLong(source.size());
+            out.putLong(source.lastModified());
+            out.putDouble(source.inaccuracy());
+            out.putDouble(conversion.referencePoint.x);
+            out.putDouble(conversion.referencePoint.y);
+
+            out.putInt(vertices.list.size());
+            for (Vertex v : vertices.list) {
+                putVertex(out, v);
+            }
+            out.putInt(graph.verticesNumber());
+            for (HashMap<Vertex, Edge> edges : graph.getEdges().values()) {
+                putEdges(out, edges, vertices);
+            }
+
+            out.putInt(faces.list.size());
+            for (VertexOfDualGraph face : faces.list) {
+                putVertex(out, face);
+                out.putDouble(face.area);
+                out.putInt(face.getVerticesOfFace().size());
+                for (Vertex v : face.getVerticesOfFace()) {
+                    out.putInt(vertices.ids.get(v));
+                }
+            }
+            out.putInt(dualGraph.verticesNumber());
+            for (HashMap<VertexOfDualGraph, Edge> edges : dualGraph.getEdges().values()) {
+                putEdges(out, edges, faces);
+            }
+
+            out.putInt(comparisonForDualGraph.size());
+            for (Map.Entry<Vertex, VertexOfDualGraph> entry : comparisonForDualGraph.entrySet()) {
+                out.putInt(faces.ids.get((VertexOfDualGraph) entry.getKey()));
+                out.putInt(faces.ids.get(entry.getValue()));
+            }
+            out.flush();
+            logger.info("Snapshot {} written: {} MB in {} seconds", fileName,
+                    String.format("%.1f", channel.size() / 1e6), (System.currentTimeMillis() - startTime) / 1000.0);
+        }
+    }
+
+    /**
+     * Reads only the header of the snapshot
+     * @return source of the snapshot or null if the snapshot has another version
+     */
+    public static Source readSource(String fileName) throws IOException {
+        MappedByteBuffer in = map(fileName);
+        if (in.getInt() != MAGIC) {
+            throw new IOException("Not a graph snapshot: " + fileName);
+        }
+        return in.getInt() == VERSION ? readSource(in) : null;
+    }
+
+    public static GraphSnapshot read(String fileName) throws IOException {
+        long startTime = System.currentTimeMillis();
+        MappedByteBuffer in = map(fileName);
+        if (in.getInt() != MAGIC) {
+            throw new IOException("Not a graph snapshot: " + fileName);
+        }
+        int version = in.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported snapshot version " + version + ", expected " + VERSION);
+        }
+        Source source = readSource(in);
+        CoordinateConversion conversion = new CoordinateConversion(new Point(in.getDouble(), in.getDouble()));
+
+        Vertex[] vertices = new Vertex[in.getInt()];
+        for (int i = 0; i < vertices.length; i++) {
+            vertices[i] = new Vertex(in.getLong(), in.getDouble(), in.getDouble(), in.getDouble());
+        }
+        Graph<Vertex> graph = new Graph<>();
+        int verticesNumber = in.getInt();
+        for (int i = 0; i < verticesNumber; i++) {
+            graph.getEdges().put(vertices[i], readEdges(in, vertices));
+        }
+
+        VertexOfDualGraph[] faces = new VertexOfDualGraph[in.getInt()];
+        for (int i = 0; i < faces.length; i++) {
+            long name = in.getLong();
+            Point center = new Point(in.getDouble(), in.getDouble());
+            double weight = in.getDouble();
+            double area = in.getDouble();
+            int faceSize = in.getInt();
+            ArrayList<Vertex> verticesOfFace = new ArrayList<>(faceSize);
+            for (int j = 0; j < faceSize; j++) {
+                verticesOfFace.add(vertices[in.getInt()]);
+            }
+            faces[i] = new VertexOfDualGraph(name, center, weight, verticesOfFace);
+            faces[i].area = area;
+        }
+        Graph<VertexOfDualGraph> dualGraph = new Graph<>();
+        int facesNumber = in.getInt();
+        for (int i = 0; i < facesNumber; i++) {
+            dualGraph.getEdges().put(faces[i], readEdges(in, faces));
+        }
+
+        HashMap<Vertex, VertexOfDualGraph> comparisonForDualGraph = new HashMap<>();
+        int comparisonSize = in.getInt();
+        for (int i = 0; i < comparisonSize; i++) {
+            comparisonForDualGraph.put(faces[in.getInt()], faces[in.getInt()]);
+        }
+        // topology is not stored, it is rebuilt in linear time
+        graph.setTopology(new PlanarTopology(new HalfEdgeGraph<>(new CompactGraph<>(graph)),
+                comparisonForDualGraph.values()));
+        logger.info("Snapshot {} read: {} vertices, {} faces in {} seconds", fileName,
+                graph.verticesNumber(), dualGraph.verticesNumber(), (System.currentTimeMillis() - startTime) / 1000.0);
+        return new GraphSnapshot(graph, dualGraph, comparisonForDualGraph, conversion, source);
+    }
+
+    private static MappedByteBuffer map(String fileName) throws IOException {
+        try (FileChannel channel = FileChannel.open(Path.of(fileName), StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    private static Source readSource(ByteBuffer in) {
+        byte[] graphPath = new byte[in.getInt()];
+        in.get(graphPath);
+        return new Source(new String(graphPath, StandardCharsets.UTF_8), in.getLong(), in.getLong(), in.getDouble());
+    }
+
+    private static void putVertex(Output out, Vertex v) throws IOException {
+        out.putLong(v.getName());
+        out.putDouble(v.x);
+        out.putDouble(v.y);
+        out.putDouble(v.getWeight());
+    }
+
+    private static <T extends Vertex> void putEdges(Output out, HashMap<T, Edge> edges, IdTable<T> ids)
+            throws IOException {
+        out.putInt(edges.size());
+        for (Map.Entry<T, Edge> entry : edges.entrySet()) {
+            Edge edge = entry.getValue();
+            out.putInt(ids.ids.get(entry.getKey()));
+            out.putDouble(edge.length);
+            out.putDouble(edge.getBandwidth());
+            out.putDouble(edge.flow);
+            out.putByte(edge.isRoad() ? 1 : 0);
+        }
+    }
+
+    private static <T extends Vertex> HashMap<T, Edge> readEdges(ByteBuffer in, T[] vertices) {
+        int degree = in.getInt();
+        HashMap<T, Edge> edges = new HashMap<>();
+        for (int i = 0; i < degree; i++) {
+            T end = vertices[in.getInt()];
+            double length = in.getDouble();
+            double bandwidth = in.getDouble();
+            double flow = in.getDouble();
+            edges.put(end, new Edge(length, flow, bandwidth, in.get() == 1));
+        }
+        return edges;
+    }
+
+    /**
+     * Numbers distinct vertices in the order of the first call
+     */
+    private static class IdTable<T extends Vertex> {
+        private final HashMap<T, Integer> ids = new HashMap<>();
+        private final List<T> list = new ArrayList<>();
+
+        private void id(T v) {
+            if (!ids.containsKey(v)) {
+                ids.put(v, list.size());
+                list.add(v);
+            }
+        }
+    }
+
+    /**
+     * Buffered writing of primitives to a channel
+     */
+    private static class Output {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+        private Output(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        private void putByte(int value) throws IOException {
+            ensure(Byte.BYTES);
+            buffer.put((byte) value);
+        }
+
+        private void putBytes(byte[] value) throws IOException {
+            for (int offset = 0; offset < value.length; ) {
+                ensure(1);
+                int length = Math.min(buffer.remaining(), value.length - offset);
+                buffer.put(value, offset, length);
+                offset += length;
+            }
+        }
+
+        private void putInt(int value) throws IOException {
+            ensure(Integer.BYTES);
+            buffer.putInt(value);
+        }
+
+        private void putLong(long value) throws IOException {
+            ensure(Long.BYTES);
+            buffer.putLong(value);
+        }
+
+        private void putDouble(double value) throws IOException {
+            ensure(Double.BYTES);
+            buffer.putDouble(value);
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package readWrite;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads whitespace separated numbers from a file through a FileChannel, or from a part of a mapped file,
+ * in one pass without creating strings.
+ * Both '.' and ',' are accepted as decimal separator.
+ * Doubles with at most 2^53 mantissa and 22 fractional digits are computed as mantissa / 10^k,
+ * which is correctly rounded and equal to {@link Double#parseDouble}, other tokens fall back to it.
+ */
+public class NumberTokenizer implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    private final FileChannel channel;
+    private final ByteBuffer source;
+    private final ByteBuffer buffer;
+    private final byte[] bytes;
+    private int position;
+    private int limit;
+    private long bytesRead;
+    private byte[] token = new byte[64];
+    private int tokenLength;
+
+    public NumberTokenizer(String fileName) throws IOException {
+        this.channel = FileChannel.open(Path.of(fileName), StandardOpenOption.READ);
+        this.source = null;
+        this.bytes = new byte[BUFFER_SIZE];
+        this.buffer = ByteBuffer.wrap(bytes);
+    }
+
+    /**
+     * Reads remaining bytes of source, for example a newline-aligned chunk of a mapped file
+     */
+    public NumberTokenizer(ByteBuffer source) {
+        this.channel = null;
+        this.source = source;
+        this.bytes = new byte[BUFFER_SIZE];
+        this.buffer = ByteBuffer.wrap(bytes);
+    }
+
+    /**
+     * @return number of bytes read from the file so far
+     */
+    public long bytesRead() {
+        return bytesRead;
+    }
+
+    public boolean hasNext() throws IOException {
+        while (true) {
+            if (position == limit && !fill()) {
+                return false;
+            }
+            if (!isWhitespace(bytes[position])) {
+                return true;
+            }
+            position++;
+        }
+    }
+
+    public int nextInt() throws IOException {
+        long value = nextLong();
+        if (value != (int) value) {
+            throw new NumberFormatException("Int expected: " + value);
+        }
+        return (int) value;
+    }
+
+    public long nextLong() throws IOException {
+        readToken();
+        int i = 0;
+        boolean negative = token[0] == '-';
+        if (negative || token[0] == '+') {
+            i++;
+        }
+        // 18 digits always fit into long
+        if (i == tokenLength || tokenLength - i > 18) {
+            return Long.parseLong(tokenString());
+        }
+        long value = 0;
+        for (; i < tokenLength; i++) {
+            int digit = token[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return Long.parseLong(tokenString());
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    public double nextDouble() throws IOException {
+        readToken();
+        int i = 0;
+        boolean negative = token[0] == '-';
+        if (negative || token[0] == '+') {
+            i++;
+        }
+        long mantissa = 0;
+        int significantDigits = 0;
+        int fractionalDigits = -1;
+        boolean hasDigits = false;
+        for (; i < tokenLength; i++) {
+            byte b = token[i];
+            if (b == '.' || b == ',') {
+                if (fractionalDigits >= 0) {
+                    return parseFallback();
+                }
+                fractionalDigits = 0;
+                continue;
+            }
+            int digit = b - '0';
+            // 18 significant digits always fit into long
+            if (digit < 0 || digit > 9 || significantDigits == 18) {
+                return parseFallback();
+            }
+            hasDigits = true;
+            mantissa = mantissa * 10 + digit;
+            if (mantissa != 0) {
+                significantDigits++;
+            }
+            if (fractionalDigits >= 0) {
+                fractionalDigits++;
+            }
+        }
+        fractionalDigits = Math.max(fractionalDigits, 0);
+        if (!hasDigits || mantissa > MAX_EXACT_MANTISSA || fractionalDigits >= POWERS_OF_TEN.length) {
+            return parseFallback();
+        }
+        double value = mantissa / POWERS_OF_TEN[fractionalDigits];
+        return negative ? -value : value;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    private double parseFallback() {
+        return Double.parseDouble(tokenString().replace(',', '.'));
+    }
+
+    private String tokenString() {
+        return new String(token, 0, tokenLength, StandardCharsets.US_ASCII);
+    }
+
+    private void readToken() throws IOException {
+        if (!hasNext()) {
+            throw new NoSuchElementException("Unexpected end of file");
+        }
+        tokenLength = 0;
+        while (true) {
+            if (position == limit && !fill()) {
+                return;
+            }
+            byte b = bytes[position];
+            if (isWhitespace(b)) {
+                return;
+            }
+            if (tokenLength == token.length) {
+                byte[] grown = new byte[token.length * 2];
+                System.arraycopy(token, 0, grown, 0, tokenLength);
+                token = grown;
+            }
+            token[tokenLength++] = b;
+            position++;
+        }
+    }
+
+    private boolean fill() throws IOException {
+        int read;
+        if (channel != null) {
+            buffer.clear();
+            read = channel.read(buffer);
+        } else {
+            read = Math.min(bytes.length, source.remaining());
+            source.get(bytes, 0, read);
+        }
+        if (read <= 0) {
+            position = 0;
+            limit = 0;
+            return false;
+        }
+        bytesRead += read;
+        position = 0;
+        limit = read;
+        return true;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t' || b == '\f';
+    }
+}
@@ -1,11 +1,19 @@
 package readWrite;
 
-import java.io.File;
-import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Scanner;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
 
+import addingPoints.WeightedPoints;
 import graph.Vertex;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -13,40 +21,174 @@ import org.slf4j.LoggerFactory;
 public class PointsReader {
 
     private static final Logger logger = LoggerFactory.getLogger(PointsReader.class);
+    private static final long MAX_CHUNK_SIZE = 1 << 24;
+    private static final long MIN_CHUNK_SIZE = 1 << 20;
+    private static final int SEARCH_WINDOW = 1 << 12;
     public CoordinateConversion coordinateConversion;
-	
+
 	public PointsReader(CoordinateConversion coordinateConversion) {
 		this.coordinateConversion = coordinateConversion;
 	}
 
-	// TODO - fix order x - y
-	public Vertex readVertex(Scanner sc, boolean geodetic) {
-		long name = sc.nextLong();
-		String xStr = sc.next().replace(',', '.');
-		String yStr = sc.next().replace(',', '.');
-		double y = Double.parseDouble(xStr);
-		double x = Double.parseDouble(yStr);
-		int length = sc.nextInt();
-		int width = sc.nextInt();
-		double vertexWeight = length * width / 10.0;
-		Vertex ans = new Vertex(name, x, y, vertexWeight);
+	public List<Vertex> readWeightedPoints(String inFilename, boolean geodetic) {
+		return readPoints(inFilename, geodetic).toVertices();
+	}
+
+	/**
+	 * file format: n (points number), then line for every point: name y x (TODO - fix order x - y) length width,
+	 * weight of point is length * width / 10.
+	 * File is mapped and split into newline-aligned chunks which are parsed in parallel
+	 */
+	public WeightedPoints readPoints(String inFilename, boolean geodetic) {
+		return readPoints(inFilename, geodetic, MAX_CHUNK_SIZE);
+	}
+
+	WeightedPoints readPoints(String inFilename, boolean geodetic, long maxChunkSize) {
+		long startTime = System.nanoTime();
+		WeightedPoints points;
+		long size;
+		try (FileChannel channel = FileChannel.open(Path.of(inFilename), StandardOpenOption.READ)) {
+			size = channel.size();
+			ByteBuffer header = ByteBuffer.allocate((int) Math.min(size, SEARCH_WINDOW));
+			channel.read(header, 0);
+			header.flip();
+			int n = new NumberTokenizer(header.duplicate()).nextInt();
+			long dataStart = tokenEnd(header);
+
+			List<Long> bounds = chunkBounds(channel, dataStart, size, maxChunkSize);
+			List<PointsChunk> chunks = IntStream.range(0, bounds.size() - 1).parallel()
+					.mapToObj(i -> parseChunk(channel, bounds.get(i), bounds.get(i + 1)))
+					.toList();
+			points = merge(chunks, n);
+		} catch (NoSuchFileException e) {
+			logger.error("File for weighted points not found: {}", inFilename);
+			throw new RuntimeException(e);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
 		if (geodetic) {
-            coordinateConversion.toEuclidean(ans);
+			coordinateConversion.toEuclidean(points.x(), points.y());
 		}
-		return ans;
+		double seconds = (System.nanoTime() - startTime) / 1e9;
+		logger.info("Read {} points, {} MB in {} seconds ({} MB/s)", points.size(),
+				String.format("%.1f", size / 1e6), String.format("%.3f", seconds),
+				String.format("%.1f", size / 1e6 / seconds));
+		return points;
 	}
 
-	public List<Vertex> readWeightedPoints(String inFilename, boolean geodetic) {
-		List<Vertex> vertices = new ArrayList<>();
-        try (Scanner sc = new Scanner(new File(inFilename))) {
-            int n = sc.nextInt();
-            for (int i = 0; i < n && sc.hasNext(); i++) {
-                vertices.add(readVertex(sc, geodetic));
-            }
-        } catch (FileNotFoundException e) {
-            logger.error("File for weighted points not found: {}", inFilename);
-            throw new RuntimeException(e);
-        }
-		return vertices;
+	/**
+	 * Position after the first token of buffer
+	 */
+	private static int tokenEnd(ByteBuffer buffer) {
+		int i = 0;
+		while (i < buffer.limit() && Character.isWhitespace(buffer.get(i))) {
+			i++;
+		}
+		while (i < buffer.limit() && !Character.isWhitespace(buffer.get(i))) {
+			i++;
+		}
+		return i;
+	}
+
+	/**
+	 * Splits [dataStart, size) into chunks, every chunk except the first one starts at the beginning of a line
+	 */
+	private static List<Long> chunkBounds(FileChannel channel, long dataStart, long size, long maxChunkSize)
+			throws IOException {
+		long dataSize = size - dataStart;
+		int parallelism = ForkJoinPool.getCommonPoolParallelism();
+		long chunksNumber = Math.max((dataSize + maxChunkSize - 1) / maxChunkSize,
+				Math.min(parallelism, dataSize / MIN_CHUNK_SIZE));
+		List<Long> bounds = new ArrayList<>();
+		bounds.add(dataStart);
+		for (long i = 1; i < chunksNumber; i++) {
+			long bound = nextLineStart(channel, Math.max(dataStart + dataSize * i / chunksNumber,
+					bounds.get(bounds.size() - 1)), size);
+			if (bound > bounds.get(bounds.size() - 1) && bound < size) {
+				bounds.add(bound);
+			}
+		}
+		bounds.add(size);
+		return bounds;
+	}
+
+	private static long nextLineStart(FileChannel channel, long from, long size) throws IOException {
+		ByteBuffer window = ByteBuffer.allocate(SEARCH_WINDOW);
+		for (long position = from; position < size; position += SEARCH_WINDOW) {
+			window.clear();
+			channel.read(window, position);
+			for (int i = 0; i < window.position(); i++) {
+				if (window.get(i) == '\n') {
+					return position + i + 1;
+				}
+			}
+		}
+		return size;
+	}
+
+	private static PointsChunk parseChunk(FileChannel channel, long begin, long end) {
+		PointsChunk chunk = new PointsChunk((int) ((end - begin) / 32) + 1);
+		try {
+			NumberTokenizer tokenizer = new NumberTokenizer(channel.map(FileChannel.MapMode.READ_ONLY, begin, end - begin));
+			while (tokenizer.hasNext()) {
+				long name = tokenizer.nextLong();
+				double y = tokenizer.nextDouble();
+				double x = tokenizer.nextDouble();
+				int length = tokenizer.nextInt();
+				int width = tokenizer.nextInt();
+				chunk.add(name, x, y, length * width / 10.0);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return chunk;
+	}
+
+	private static WeightedPoints merge(List<PointsChunk> chunks, int n) {
+		int total = Math.min(n, chunks.stream().mapToInt(chunk -> chunk.size).sum());
+		WeightedPoints points = new WeightedPoints(new long[total], new double[total], new double[total], new double[total]);
+		int offset = 0;
+		for (PointsChunk chunk : chunks) {
+			int count = Math.min(chunk.size, total - offset);
+			System.arraycopy(chunk.ids, 0, points.ids(), offset, count);
+			System.arraycopy(chunk.x, 0, points.x(), offset, count);
+			System.arraycopy(chunk.y, 0, points.y(), offset, count);
+			System.arraycopy(chunk.weights, 0, points.weights(), offset, count);
+			offset += count;
+		}
+		return points;
+	}
+
+	/**
+	 * Growable arrays of points of one chunk
+	 */
+	private static class PointsChunk {
+		private long[] ids;
+		private double[] x;
+		private double[] y;
+		private double[] weights;
+		private int size;
+
+		private PointsChunk(int capacity) {
+			ids = new long[capacity];
+			x = new double[capacity];
+			y = new double[capacity];
+			weights = new double[capacity];
+		}
+
+		private void add(long name, double pointX, double pointY, double weight) {
+			if (size == ids.length) {
+				int capacity = ids.length * 2;
+				ids = Arrays.copyOf(ids, capacity);
+				x = Arrays.copyOf(x, capacity);
+				y = Arrays.copyOf(y, capacity);
+				weights = Arrays.copyOf(weights, capacity);
+			}
+			ids[size] = name;
+			x[size] = pointX;
+			y[size] = pointY;
+			weights[size] = weight;
+			size++;
+		}
 	}
 }
@@ -0,0 +1,110 @@
+package addingPoints;
+
+import graph.EdgeOfGraph;
+import graph.Point;
+import graph.Vertex;
+import graph.VertexOfDualGraph;
+import graphPreparation.SweepLine;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FaceIndexTest {
+
+    @Test
+    void testSameFacesAsBruteForce() {
+        Random random = new Random(3);
+        List<VertexOfDualGraph> faces = jitteredGrid(random, 40);
+        FaceIndex index = new FaceIndex(faces);
+        List<Vertex> points = randomPoints(random, 20000, 42);
+        // vertices of the grid lie on borders of several faces
+        for (VertexOfDualGraph face : faces) {
+            points.add(face.getVerticesOfFace().get(0));
+        }
+        VertexOfDualGraph[] actual = index.findFaces(points);
+        for (int i = 0; i < points.size(); i++) {
+            assertEquals(bruteForce(faces, points.get(i)), actual[i]);
+        }
+    }
+
+    @Test
+    void testSameFacesAsSweepLine() {
+        Random random = new Random(5);
+        List<VertexOfDualGraph> faces = jitteredGrid(random, 30);
+        List<Vertex> points = randomPoints(random, 10000, 32);
+        ArrayList<EdgeOfGraph<Vertex>> diagonals = new ArrayList<>();
+        HashMap<EdgeOfGraph<Vertex>, VertexOfDualGraph> diagonalToFace = new HashMap<>();
+        for (VertexOfDualGraph face : faces) {
+            CoordinateConstraintsForFace constraints = new CoordinateConstraintsForFace(face.getVerticesOfFace());
+            EdgeOfGraph<Vertex> diagonal = new EdgeOfGraph<>(
+                    new Vertex(0, constraints.getMinX(), constraints.getMinY(), 0),
+                    new Vertex(0, constraints.getMaxX(), constraints.getMaxY(), 0), 0);
+            diagonals.add(diagonal);
+            diagonalToFace.put(diagonal, face);
+        }
+        HashMap<Vertex, VertexOfDualGraph> expected =
+                new SweepLine().findFacesOfVertices(diagonals, diagonalToFace, points);
+
+        VertexOfDualGraph[] actual = new FaceIndex(faces).findFaces(points);
+        for (int i = 0; i < points.size(); i++) {
+            assertEquals(expected.get(points.get(i)), actual[i]);
+        }
+    }
+
+    @Test
+    void testEmptyIndex() {
+        FaceIndex index = new FaceIndex(List.of());
+        assertEquals(0, index.size());
+        assertNull(index.findFace(new Point(1, 1)));
+    }
+
+    /**
+     * Faces of size x size grid with moved inner nodes
+     */
+    private static List<VertexOfDualGraph> jitteredGrid(Random random, int size) {
+        Vertex[][] nodes = new Vertex[size + 1][size + 1];
+        long name = 1;
+        for (int i = 0; i <= size; i++) {
+            for (int j = 0; j <= size; j++) {
+                boolean border = i == 0 || j == 0 || i == size || j == size;
+                double dx = border ? 0 : random.nextDouble() * 0.6 - 0.3;
+                double dy = border ? 0 : random.nextDouble() * 0.6 - 0.3;
+                nodes[i][j] = new Vertex(name++, i + dx, j + dy, 0);
+            }
+        }
+        List<VertexOfDualGraph> faces = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                ArrayList<Vertex> verticesOfFace = new ArrayList<>(List.of(
+                        nodes[i][j], nodes[i + 1][j], nodes[i + 1][j + 1], nodes[i][j + 1]));
+                faces.add(new VertexOfDualGraph(name++, new Point(i + 0.5, j + 0.5), 0, verticesOfFace));
+            }
+        }
+        return faces;
+    }
+
+    private static List<Vertex> randomPoints(Random random, int n, double range) {
+        List<Vertex> points = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            points.add(new Vertex(i, random.nextDouble() * range - 1, random.nextDouble() * range - 1, 1));
+        }
+        return points;
+    }
+
+    private static VertexOfDualGraph bruteForce(List<VertexOfDualGraph> faces, Vertex point) {
+        for (VertexOfDualGraph face : faces) {
+            CoordinateConstraintsForFace constraints = new CoordinateConstraintsForFace(face.getVerticesOfFace());
+            if (constraints.getMinX() < point.x && point.x < constraints.getMaxX()
+                    && constraints.getMinY() <= point.y && point.y <= constraints.getMaxY()
+                    && point.inFaceGeom(face.getVerticesOfFace())) {
+                return face;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,133 @@
+package graph;
+
+import graphPreparation.MakingDualGraph;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+class CompactGraphTest {
+
+    private Graph<Vertex> graph;
+    private List<Vertex> vs;
+
+    @BeforeEach
+    void setUp() {
+        graph = new Graph<>();
+        vs = List.of(new Vertex(0, new Point(0, 0)),
+                new Vertex(1, new Point(5, -1)),
+                new Vertex(2, new Point(4, -10)),
+                new Vertex(3, new Point(10, 3)),
+                new Vertex(4, new Point(10, 0)),
+                new Vertex(5, new Point(-10, 10)),
+                new Vertex(6, new Point(10, 10)),
+                new Vertex(7, new Point(10, -10)),
+                new Vertex(8, new Point(-10, -10)));
+        int[][] edges = {{0, 1}, {1, 2}, {1, 3}, {1, 4}, {2, 7}, {3, 6}, {4, 3}, {5, 8}, {6, 5}, {7, 4}, {8, 2}};
+        for (int[] e : edges) {
+            graph.addEdge(vs.get(e[0]), vs.get(e[1]), e[0] + e[1]);
+        }
+    }
+
+    @Test
+    void testStructure() {
+        CompactGraph<Vertex> compactGraph = new CompactGraph<>(graph);
+        assertEquals(graph.verticesNumber(), compactGraph.verticesNumber());
+        assertEquals(graph.edgesNumber(), compactGraph.edgesNumber());
+        for (int v = 0; v < compactGraph.verticesNumber(); v++) {
+            Vertex vertex = compactGraph.vertex(v);
+            assertEquals(v, compactGraph.id(vertex));
+            // порядок ребер совпадает с порядком в исходном графе
+            List<Vertex> neighbours = new ArrayList<>();
+            for (int arc = compactGraph.begin(v); arc < compactGraph.end(v); arc++) {
+                Vertex to = compactGraph.vertex(compactGraph.target(arc));
+                neighbours.add(to);
+                assertEquals(graph.getEdges().get(vertex).get(to).length, compactGraph.length(arc));
+                int back = compactGraph.reverse(arc);
+                assertEquals(v, compactGraph.target(back));
+                assertEquals(arc, compactGraph.reverse(back));
+            }
+            assertEquals(new ArrayList<>(graph.getEdges().get(vertex).keySet()), neighbours);
+        }
+        assertEquals(-1, compactGraph.id(new Vertex(100, 1, 1)));
+    }
+
+    @Test
+    void testIncomingArcs() {
+        assertSameIncomingArcs(new CompactGraph<>(graph));
+        // one-way arc, incoming arcs are taken from the transpose
+        graph.getEdges().get(vs.get(1)).remove(vs.get(0));
+        CompactGraph<Vertex> compactGraph = new CompactGraph<>(graph);
+        int v = compactGraph.id(vs.get(0));
+        assertEquals(-1, compactGraph.reverse(compactGraph.begin(v)));
+        assertSameIncomingArcs(compactGraph);
+    }
+
+    private void assertSameIncomingArcs(CompactGraph<Vertex> compactGraph) {
+        for (int v = 0; v < compactGraph.verticesNumber(); v++) {
+            Set<Integer> expected = new HashSet<>();
+            for (int u = 0; u < compactGraph.verticesNumber(); u++) {
+                for (int arc = compactGraph.begin(u); arc < compactGraph.end(u); arc++) {
+                    if (compactGraph.target(arc) == v) {
+                        expected.add(arc);
+                    }
+                }
+            }
+            Set<Integer> actual = new HashSet<>();
+            for (int position = compactGraph.incomingBegin(v); position < compactGraph.incomingEnd(v); position++) {
+                int arc = compactGraph.incomingArc(position);
+                int source = compactGraph.incomingSource(position);
+                assertTrue(compactGraph.begin(source) <= arc && arc < compactGraph.end(source));
+                actual.add(arc);
+            }
+            assertEquals(expected, actual);
+        }
+    }
+
+    @Test
+    void testConnectivity() {
+        assertEquals(1, new CompactGraph<>(graph).splitForConnectedComponents().size());
+        graph.deleteVertex(vs.get(1));
+        List<Set<Vertex>> components = new CompactGraph<>(graph).splitForConnectedComponents();
+        assertEquals(2, components.size());
+        assertEquals(Set.of(vs.get(0)), components.stream().filter(c -> c.size() == 1).findFirst().orElseThrow());
+    }
+
+    @Test
+    void testFlow() {
+        CompactGraph<Vertex> compactGraph = new CompactGraph<>(graph);
+        int v = compactGraph.id(vs.get(1));
+        int arc = compactGraph.begin(v);
+        compactGraph.addFlow(arc, 2);
+        compactGraph.addFlow(compactGraph.reverse(arc), -2);
+        compactGraph.writeFlow(graph);
+        Vertex to = compactGraph.vertex(compactGraph.target(arc));
+        assertEquals(2, graph.getEdges().get(vs.get(1)).get(to).flow);
+        assertEquals(-2, graph.getEdges().get(to).get(vs.get(1)).flow);
+        assertEquals(2, compactGraph.toGraph().getEdges().get(vs.get(1)).get(to).flow);
+    }
+
+    @Test
+    void testDualGraph() {
+        Graph<VertexOfDualGraph> expected = new MakingDualGraph().buildDualGraph(graph);
+        Graph<VertexOfDualGraph> actual = new MakingDualGraph().buildDualGraph(new CompactGraph<>(graph));
+        assertEquals(expected.verticesNumber(), actual.verticesNumber());
+        for (VertexOfDualGraph face : expected.verticesArray()) {
+            VertexOfDualGraph other = actual.verticesArray().stream()
+                    .filter(v -> v.getName() == face.getName())
+                    .findFirst()
+                    .orElseThrow();
+            assertEquals(face.getVerticesOfFace(), other.getVerticesOfFace());
+            assertEquals(face.getWeight(), other.getWeight(), 1e-9);
+            assertEquals(expected.getEdges().get(face).keySet(), actual.getEdges().get(other).keySet());
+            for (VertexOfDualGraph neighbour : expected.getEdges().get(face).keySet()) {
+                assertEquals(expected.getEdges().get(face).get(neighbour).length,
+                        actual.getEdges().get(other).get(neighbour).length, 1e-9);
+            }
+        }
+    }
+}
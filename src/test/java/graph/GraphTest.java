@@ -87,6 +87,20 @@ class GraphTest {
     }
 
 
+    @Test
+    void testDeleteVertexWithReverseEdges() {
+        Graph<Vertex> expected = graph.clone();
+        expected.deleteVertex(vs.get(1));
+        graph.deleteVertexWithReverseEdges(vs.get(1));
+        assertEquals(expected.verticesNumber(), graph.verticesNumber());
+        assertEquals(expected.edgesNumber(), graph.edgesNumber());
+        assertEquals((edges.size() - 4) * 2, graph.edgesNumber());
+        // удаленная вершина не должна удаляться еще раз
+        graph.deleteVertexWithReverseEdges(vs.get(1));
+        assertEquals(vs.size() - 1, graph.verticesNumber());
+    }
+
+
     @Test
     void testSumVerticesWeight() {
         for (Vertex v : graph.verticesArray()) {
@@ -0,0 +1,54 @@
+package graph;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+class HalfEdgeGraphTest {
+
+    @Test
+    void testGridTopology() {
+        int size = 6;
+        HalfEdgeGraph<Vertex> halfEdges = new HalfEdgeGraph<>(new CompactGraph<>(TestGraphs.grid(size, 1, 1)));
+        int edges = halfEdges.dartsNumber() / 2;
+        // Euler formula, inner cells and the outer face
+        assertEquals(edges - halfEdges.verticesNumber() + 2, halfEdges.facesNumber());
+        assertEquals((size - 1) * (size - 1) + 1, halfEdges.facesNumber());
+        int[] seen = new int[halfEdges.dartsNumber()];
+        for (int f = 0; f < halfEdges.facesNumber(); f++) {
+            for (int i = halfEdges.faceBegin(f); i < halfEdges.faceEnd(f); i++) {
+                int dart = halfEdges.faceDart(i);
+                seen[dart]++;
+                assertEquals(f, halfEdges.faceOfDart(dart));
+                int following = i + 1 == halfEdges.faceEnd(f) ? halfEdges.faceBegin(f) : i + 1;
+                assertEquals(halfEdges.faceDart(following), halfEdges.next(dart));
+            }
+            int length = halfEdges.faceEnd(f) - halfEdges.faceBegin(f);
+            assertTrue(length == 4 || length == 4 * (size - 1));
+        }
+        for (int dart = 0; dart < halfEdges.dartsNumber(); dart++) {
+            assertEquals(1, seen[dart]);
+            assertEquals(dart, halfEdges.twin(halfEdges.twin(dart)));
+            assertEquals(halfEdges.target(dart), halfEdges.origin(halfEdges.next(dart)));
+            assertEquals(halfEdges.origin(dart), halfEdges.origin(halfEdges.nextAroundVertex(dart)));
+            assertTrue(halfEdges.faceOfDart(dart) != halfEdges.faceOfDart(halfEdges.twin(dart)));
+        }
+    }
+
+    @Test
+    void testOrderAroundVertex() {
+        HalfEdgeGraph<Vertex> halfEdges = new HalfEdgeGraph<>(new CompactGraph<>(TestGraphs.grid(3, 1, 1)));
+        int center = halfEdges.compactGraph().id(new Vertex(5, 1, 1, 1));
+        assertEquals(4, halfEdges.sortedDegree(center));
+        int dart = halfEdges.sortedDart(center, 0);
+        for (int i = 1; i <= 4; i++) {
+            int following = halfEdges.nextAroundVertex(dart);
+            assertEquals(halfEdges.sortedDart(center, i % 4), following);
+            if (i < 4) {
+                assertTrue(halfEdges.angle(following) > halfEdges.angle(dart));
+            }
+            dart = following;
+        }
+    }
+}
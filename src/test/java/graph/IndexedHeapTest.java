@@ -0,0 +1,57 @@
+package graph;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+class IndexedHeapTest {
+
+    @Test
+    void testPollInKeyOrder() {
+        Random random = new Random(1);
+        int n = 1000;
+        IndexedHeap heap = new IndexedHeap(n);
+        double[] expected = new double[n];
+        Arrays.fill(expected, Double.MAX_VALUE);
+        for (int i = 0; i < 5000; i++) {
+            int id = random.nextInt(n);
+            double key = random.nextInt(10000);
+            heap.push(id, key);
+            expected[id] = Math.min(expected[id], key);
+        }
+        int count = 0;
+        double last = -1;
+        while (!heap.isEmpty()) {
+            double key = heap.minKey();
+            int id = heap.poll();
+            assertFalse(heap.contains(id));
+            assertEquals(expected[id], key);
+            assertTrue(key >= last);
+            last = key;
+            count++;
+        }
+        assertEquals(Arrays.stream(expected).filter(k -> k != Double.MAX_VALUE).count(), count);
+    }
+
+    @Test
+    void testDecreaseKeyAndTies() {
+        IndexedHeap heap = new IndexedHeap(4);
+        heap.push(2, 0);
+        heap.push(0, 0);
+        heap.push(1, 5);
+        heap.push(3, 7);
+        assertFalse(heap.push(1, 6));
+        assertTrue(heap.push(3, 0));
+        assertEquals(4, heap.size());
+        // equal keys are polled in the order of the last push
+        assertEquals(2, heap.poll());
+        assertEquals(0, heap.poll());
+        assertEquals(3, heap.poll());
+        assertEquals(5, heap.minKey());
+        assertEquals(1, heap.poll());
+        assertTrue(heap.isEmpty());
+    }
+}
@@ -0,0 +1,106 @@
+package graph;
+
+import graphPreparation.GraphPreparation;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+class PlanarTopologyTest {
+    private static final int SIZE = 12;
+
+    /**
+     * Grid with diagonals in some cells, vertices with explicit weights
+     */
+    private static Graph<Vertex> grid() {
+        Vertex[][] vertices = TestGraphs.gridVertices(SIZE, 10, 1);
+        Graph<Vertex> graph = TestGraphs.grid(vertices, (i, j) -> 10, (i, j) -> 10);
+        for (int i = 0; i + 1 < SIZE; i++) {
+            for (int j = 0; j + 1 < SIZE; j++) {
+                if ((i * 7 + j * 3) % 5 == 0) {
+                    graph.addEdge(vertices[i][j], vertices[i + 1][j + 1], 14);
+                }
+            }
+        }
+        return graph;
+    }
+
+    @Test
+    void testBoundSameAsWithoutTopology() throws IOException {
+        Graph<Vertex> graph = grid();
+        GraphPreparation preparation = new GraphPreparation(true, false);
+        Graph<VertexOfDualGraph> dualGraph = preparation.prepareGraph(graph, 1);
+        PlanarTopology topology = graph.getTopology();
+        assertNotNull(topology);
+        assertSame(preparation.getTopology(), topology);
+
+        Random random = new Random(3);
+        List<VertexOfDualGraph> faces = dualGraph.verticesArray();
+        for (int test = 0; test < 200; test++) {
+            Set<VertexOfDualGraph> part = grow(dualGraph, faces.get(random.nextInt(faces.size())),
+                    1 + random.nextInt(40), random);
+            graph.setTopology(topology);
+            List<Vertex> withTopology = BoundSearcher.findBound(graph, part, preparation.getComparisonForDualGraph());
+            graph.setTopology(null);
+            List<Vertex> expected = BoundSearcher.findBound(graph, part, preparation.getComparisonForDualGraph());
+            assertEquals(expected, withTopology);
+        }
+    }
+
+    @Test
+    void testFaceOfEdgeSameAsEdgeToDualVertexMap() throws IOException {
+        Graph<Vertex> graph = grid();
+        Graph<VertexOfDualGraph> dualGraph = new GraphPreparation(true, false).prepareGraph(graph, 1);
+        PlanarTopology topology = graph.getTopology();
+        Map<Vertex, HashMap<Vertex, VertexOfDualGraph>> map = dualGraph.edgeToDualVertexMap();
+        for (Vertex begin : graph.getEdges().keySet()) {
+            for (Vertex end : graph.getEdges().get(begin).keySet()) {
+                VertexOfDualGraph expected = map.containsKey(begin) ? map.get(begin).get(end) : null;
+                VertexOfDualGraph face = topology.faceOfEdge(begin, end);
+                if (expected == null) {
+                    // external face is removed from the dual graph
+                    assertFalse(dualGraph.getEdges().containsKey(face));
+                } else {
+                    assertEquals(expected, face);
+                }
+            }
+        }
+        assertEquals(-1, topology.dart(new Vertex(1000, -5, -5), graph.verticesArray().get(0)));
+    }
+
+    @Test
+    void testTopologyDroppedOnChange() throws IOException {
+        Graph<Vertex> graph = grid();
+        new GraphPreparation(true, false).prepareGraph(graph, 1);
+        assertNotNull(graph.getTopology());
+        graph.addEdge(new Vertex(1000, -10, -10, 1), graph.verticesArray().get(0), 1);
+        assertNull(graph.getTopology());
+    }
+
+    /**
+     * Random connected set of faces of the given size
+     */
+    private static Set<VertexOfDualGraph> grow(Graph<VertexOfDualGraph> dualGraph, VertexOfDualGraph start,
+                                               int size, Random random) {
+        Set<VertexOfDualGraph> part = new HashSet<>();
+        List<VertexOfDualGraph> frontier = new ArrayList<>();
+        part.add(start);
+        frontier.add(start);
+        while (part.size() < size && !frontier.isEmpty()) {
+            VertexOfDualGraph face = frontier.get(random.nextInt(frontier.size()));
+            List<VertexOfDualGraph> neighbors = new ArrayList<>(dualGraph.getEdges().get(face).keySet());
+            neighbors.removeAll(part);
+            if (neighbors.isEmpty()) {
+                frontier.remove(face);
+                continue;
+            }
+            VertexOfDualGraph next = neighbors.get(random.nextInt(neighbors.size()));
+            part.add(next);
+            frontier.add(next);
+        }
+        return part;
+    }
+}
@@ -0,0 +1,56 @@
+package graph;
+
+/**
+ * Graphs shared by tests
+ */
+public final class TestGraphs {
+
+    private TestGraphs() {
+    }
+
+    /**
+     * Length of the edge from grid vertex (i, j) to its next neighbor
+     */
+    public interface GridLength {
+        double length(int i, int j);
+    }
+
+    /**
+     * Vertices of size x size grid, vertex (i, j) has name i * size + j + 1 and coordinates (i * step, j * step)
+     */
+    public static Vertex[][] gridVertices(int size, double step, double weight) {
+        Vertex[][] vertices = new Vertex[size][size];
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                vertices[i][j] = new Vertex(i * size + j + 1, i * step, j * step, weight);
+            }
+        }
+        return vertices;
+    }
+
+    /**
+     * Grid on the given vertices: edges from (i, j) to (i + 1, j) and to (i, j + 1)
+     */
+    public static Graph<Vertex> grid(Vertex[][] vertices, GridLength toNextRow, GridLength toNextColumn) {
+        Graph<Vertex> graph = new Graph<>();
+        int size = vertices.length;
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                if (i + 1 < size) {
+                    graph.addEdge(vertices[i][j], vertices[i + 1][j], toNextRow.length(i, j));
+                }
+                if (j + 1 < size) {
+                    graph.addEdge(vertices[i][j], vertices[i][j + 1], toNextColumn.length(i, j));
+                }
+            }
+        }
+        return graph;
+    }
+
+    /**
+     * Grid of size x size vertices with step and length of every edge equal to step
+     */
+    public static Graph<Vertex> grid(int size, double step, double weight) {
+        return grid(gridVertices(size, step, weight), (i, j) -> step, (i, j) -> step);
+    }
+}
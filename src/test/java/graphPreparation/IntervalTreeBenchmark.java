@@ -0,0 +1,58 @@
+package graphPreparation;
+
+import graph.EdgeOfGraph;
+import graph.Graph;
+import graph.Vertex;
+import readWrite.CoordinateConversion;
+import readWrite.GraphReader;
+
+import java.io.File;
+import java.util.ArrayList;
+
+/**
+ * Measures IntervalTree inside the intersection sweep of SweepLine on a graph from resources
+ * and on intervals inserted in sorted order, which degenerates an unbalanced tree.
+ * Not a unit test, run it with
+ * {@code java -cp <classpath> graphPreparation.IntervalTreeBenchmark <graph from resources> [repeats]}
+ */
+class IntervalTreeBenchmark {
+    private static final String RESOURCES_DIRECTORY = "src" + File.separatorChar + "main" + File.separatorChar
+            + "resources" + File.separatorChar;
+
+    public static void main(String[] args) throws Exception {
+        String pathToFile = args.length > 0 ? args[0]
+                : "dataExample/spb/simple/graph_59.93893094417527_30.32268115454809_1500.txt";
+        int repeats = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        Graph<Vertex> geodeticGraph = new Graph<>();
+        new GraphReader().readGraphFromFile(geodeticGraph, RESOURCES_DIRECTORY + pathToFile, false);
+        CoordinateConversion cc = new CoordinateConversion(geodeticGraph.getEdges().keySet());
+        Graph<Vertex> graph = new Graph<>();
+        new GraphReader(cc).readGraphFromFile(graph, RESOURCES_DIRECTORY + pathToFile, true);
+        ArrayList<EdgeOfGraph<Vertex>> edges = graph.undirEdgesArray();
+        System.out.printf("graph: %d edges%n", edges.size());
+
+        SweepLine sweepLine = new SweepLine(1);
+        measure("sweep", repeats, () -> sweepLine.findPointsOfIntersection(edges, 1));
+        int n = 1 << 20;
+        measure("sorted insert", repeats, () -> {
+            IntervalTree tree = new IntervalTree();
+            for (int i = 0; i < n; i++) {
+                tree.insert(i, i + 10, i);
+            }
+            for (int i = 0; i < n; i++) {
+                tree.delete(i, i);
+            }
+        });
+    }
+
+    private static void measure(String name, int repeats, Runnable run) {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < repeats; i++) {
+            long start = System.nanoTime();
+            run.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.printf("%-13s best of %d: %.1f ms%n", name, repeats, best / 1e6);
+    }
+}
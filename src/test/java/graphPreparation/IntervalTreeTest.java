@@ -0,0 +1,63 @@
+package graphPreparation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntervalTreeTest {
+
+    @Test
+    void testSameAsBruteForce() {
+        Random random = new Random(8);
+        IntervalTree tree = new IntervalTree();
+        Map<Integer, double[]> intervals = new HashMap<>();
+        for (int step = 0; step < 20000; step++) {
+            int edge = random.nextInt(500);
+            if (intervals.containsKey(edge)) {
+                tree.delete(intervals.remove(edge)[0], edge);
+            } else {
+                // few distinct ends, so many intervals have equal lo
+                double lo = random.nextInt(100);
+                double[] interval = {lo, lo + random.nextInt(20)};
+                intervals.put(edge, interval);
+                tree.insert(interval[0], interval[1], edge);
+            }
+            assertEquals(intervals.size(), tree.size());
+            double lo = random.nextInt(120) - 10;
+            double hi = lo + random.nextInt(15);
+            int found = tree.queryOverlapping(lo, hi);
+            int[] actual = Arrays.copyOf(tree.getResult(), found);
+            Arrays.sort(actual);
+            int[] expected = intervals.entrySet().stream()
+                    .filter(e -> e.getValue()[0] <= hi && e.getValue()[1] >= lo)
+                    .mapToInt(Map.Entry::getKey).sorted().toArray();
+            assertArrayEquals(expected, actual);
+        }
+    }
+
+    @Test
+    void testSortedInsertAndDeleteMissing() {
+        IntervalTree tree = new IntervalTree();
+        int n = 100000;
+        for (int i = 0; i < n; i++) {
+            tree.insert(i, i + 2, i);
+        }
+        tree.delete(5, n + 1);
+        assertEquals(n, tree.size());
+        int found = tree.queryOverlapping(10, 10);
+        int[] actual = Arrays.copyOf(tree.getResult(), found);
+        Arrays.sort(actual);
+        assertArrayEquals(new int[]{8, 9, 10}, actual);
+        for (int i = 0; i < n; i += 2) {
+            tree.delete(i, i);
+        }
+        assertEquals(n / 2, tree.size());
+        assertEquals(1, tree.queryOverlapping(n - 0.5, n + 5));
+        assertEquals(n - 1, tree.getResult()[0]);
+    }
+}
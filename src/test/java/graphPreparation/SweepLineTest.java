@@ -0,0 +1,108 @@
+package graphPreparation;
+
+import graph.Edge;
+import graph.EdgeOfGraph;
+import graph.Graph;
+import graph.Vertex;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SweepLineTest {
+
+    @Test
+    void testStripsGiveSameIntersectionsAsOneSweep() {
+        Random random = new Random(7);
+        ArrayList<EdgeOfGraph<Vertex>> edges = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            double x = random.nextDouble() * 1000;
+            double y = random.nextDouble() * 1000;
+            // mostly short edges and some long ones crossing many strips
+            double length = random.nextInt(10) == 0 ? 300 : 20;
+            Vertex begin = new Vertex(2L * i + 1, x, y, 0);
+            Vertex end = new Vertex(2L * i + 2, x + (random.nextDouble() - 0.5) * length,
+                    y + (random.nextDouble() - 0.5) * length, 0);
+            edges.add(new EdgeOfGraph<>(begin, end, begin.getLength(end)));
+        }
+        SweepLine sweepLine = new SweepLine();
+        ArrayList<ArrayList<Vertex>> expected = sweepLine.findPointsOfIntersection(edges, 1);
+        assertTrue(expected.stream().mapToInt(ArrayList::size).sum() > 0);
+        for (int strips : new int[]{2, 5, 16}) {
+            assertEquals(expected, sweepLine.findPointsOfIntersection(edges, strips));
+        }
+    }
+
+    @Test
+    void testEmptyEdges() {
+        assertTrue(new SweepLine().findPointsOfIntersection(new ArrayList<>(), 4).isEmpty());
+    }
+
+    @Test
+    void testMergeCloseVerticesSameAsPairwiseScan() {
+        double inaccuracy = 0.01;
+        Graph<Vertex> graph = collinearClusters(inaccuracy);
+        Graph<Vertex> expected = collinearClusters(inaccuracy);
+        new SweepLine(inaccuracy).mergeCloseZeroWeightVertices(graph);
+        pairwiseMerge(expected, inaccuracy);
+        assertTrue(graph.getEdges().size() < collinearClusters(inaccuracy).getEdges().size());
+        assertEquals(expected.getEdges().keySet(), graph.getEdges().keySet());
+        for (Vertex v : expected.getEdges().keySet()) {
+            assertEquals(expected.getEdges().get(v).keySet(), graph.getEdges().get(v).keySet());
+        }
+    }
+
+    /**
+     * Path along a line of clusters of close intersection points, clusters overlap in x
+     */
+    private static Graph<Vertex> collinearClusters(double inaccuracy) {
+        Random random = new Random(11);
+        Graph<Vertex> graph = new Graph<>();
+        Vertex previous = new Vertex(1, -1, -1, 1);
+        for (int i = 0; i < 2000; i++) {
+            double x = i * inaccuracy * 0.7;
+            double y = (random.nextInt(3) - 1) * inaccuracy * 0.9;
+            Vertex current = new Vertex(i + 2, x + random.nextDouble() * inaccuracy * 0.1, y, 0);
+            graph.addEdge(previous, current, previous.getLength(current));
+            previous = current;
+        }
+        return graph;
+    }
+
+    /**
+     * Merging as it was done before spatial hashing: scan of all vertices close in x
+     */
+    private static void pairwiseMerge(Graph<Vertex> graph, double inaccuracy) {
+        HashSet<Vertex> toDelete = new HashSet<>();
+        ArrayList<Vertex> zeroWeightVertices = new ArrayList<>();
+        for (Vertex v : graph.getEdges().keySet()) {
+            if (v.getWeight() == 0) {
+                zeroWeightVertices.add(v);
+            }
+        }
+        zeroWeightVertices.sort(Comparator.comparingDouble(v -> v.x));
+        for (int i = 0; i < zeroWeightVertices.size(); i++) {
+            Vertex v1 = zeroWeightVertices.get(i);
+            if (toDelete.contains(v1)) continue;
+            for (int j = i + 1; j < zeroWeightVertices.size(); j++) {
+                Vertex v2 = zeroWeightVertices.get(j);
+                if (v2.x - v1.x > inaccuracy) break;
+                if (!toDelete.contains(v2) && v1.getLength(v2) <= inaccuracy) {
+                    HashMap<Vertex, Edge> tmp = graph.getEdges().get(v2);
+                    for (Vertex v : tmp.keySet()) {
+                        graph.addEdge(v1, v, tmp.get(v).length);
+                    }
+                    toDelete.add(v2);
+                }
+            }
+        }
+        for (Vertex v : toDelete) {
+            graph.deleteVertex(v);
+        }
+    }
+}
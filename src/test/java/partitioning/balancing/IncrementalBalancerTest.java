@@ -0,0 +1,120 @@
+package partitioning.balancing;
+
+import addingPoints.FaceIndex;
+import addingPoints.WeightedPoints;
+import graph.Graph;
+import graph.PartitionGraphVertex;
+import graph.TestGraphs;
+import graph.Vertex;
+import graph.VertexOfDualGraph;
+import graphPreparation.GraphPreparation;
+import org.junit.jupiter.api.Test;
+import partitioning.BalancedPartitioning;
+import partitioning.algorithms.InertialFlowPartitioning;
+
+import java.io.IOException;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IncrementalBalancerTest {
+    private static final int SIZE = 16;
+    private static final int MAX_WEIGHT = 600;
+
+    @Test
+    void testLocalUpdate() throws IOException {
+        Setup setup = new Setup(0.5);
+        Random random = new Random(2);
+        WeightedPoints added = randomBuildings(random, 30, 5000);
+        WeightedPoints removed = new WeightedPoints(
+                Arrays.copyOf(setup.buildings.ids(), 20), Arrays.copyOf(setup.buildings.x(), 20),
+                Arrays.copyOf(setup.buildings.y(), 20), Arrays.copyOf(setup.buildings.weights(), 20));
+
+        List<Set<VertexOfDualGraph>> partition = setup.balancer.update(added, removed);
+
+        assertFalse(setup.balancer.wasFullRepartition());
+        assertValidPartition(setup.dualGraph, partition);
+        Map<VertexOfDualGraph, Double> expected = faceWeights(setup.faceIndex, setup.buildings, added, removed);
+        for (VertexOfDualGraph face : setup.dualGraph.verticesArray()) {
+            assertEquals(expected.getOrDefault(face, 0.0), face.getWeight(), 1e-6);
+        }
+    }
+
+    @Test
+    void testFullRepartitionOverThreshold() throws IOException {
+        Setup setup = new Setup(0.01);
+        WeightedPoints added = randomBuildings(new Random(4), 200, 7000);
+
+        List<Set<VertexOfDualGraph>> partition = setup.balancer.update(added, randomBuildings(new Random(5), 0, 0));
+
+        assertTrue(setup.balancer.wasFullRepartition());
+        assertValidPartition(setup.dualGraph, partition);
+    }
+
+    private static class Setup {
+        final Graph<VertexOfDualGraph> dualGraph;
+        final FaceIndex faceIndex;
+        final WeightedPoints buildings;
+        final IncrementalBalancer balancer;
+
+        Setup(double threshold) throws IOException {
+            Graph<Vertex> graph = TestGraphs.grid(SIZE, 10, 0);
+            GraphPreparation preparation = new GraphPreparation(true, false);
+            dualGraph = preparation.prepareGraph(graph, 1);
+            HashMap<Vertex, VertexOfDualGraph> comparison = preparation.getComparisonForDualGraph();
+            faceIndex = new FaceIndex(dualGraph.verticesArray());
+            buildings = randomBuildings(new Random(1), 300, 1000);
+            Map<VertexOfDualGraph, Double> weights = faceWeights(faceIndex, buildings, null, null);
+            for (VertexOfDualGraph face : dualGraph.verticesArray()) {
+                face.setWeight(weights.getOrDefault(face, 0.0));
+            }
+            BalancedPartitioning partitioning = new BalancedPartitioning(new InertialFlowPartitioning());
+            List<Set<VertexOfDualGraph>> partition = partitioning.partition(graph, comparison, dualGraph, MAX_WEIGHT);
+            partition = new Balancer(PartitionGraphVertex.buildPartitionGraph(dualGraph, partition,
+                    partitioning.dualVertexToPartNumber()), dualGraph, graph, MAX_WEIGHT, comparison, null).rebalancing();
+            balancer = new IncrementalBalancer(partitioning, graph, comparison, dualGraph, faceIndex, buildings,
+                    partition, MAX_WEIGHT, threshold);
+        }
+    }
+
+    private static void assertValidPartition(Graph<VertexOfDualGraph> dualGraph, List<Set<VertexOfDualGraph>> partition) {
+        Set<VertexOfDualGraph> covered = new HashSet<>();
+        for (Set<VertexOfDualGraph> part : partition) {
+            assertTrue(part.stream().mapToDouble(Vertex::getWeight).sum() <= MAX_WEIGHT);
+            for (VertexOfDualGraph face : part) {
+                assertTrue(covered.add(face));
+            }
+        }
+        assertEquals(new HashSet<>(dualGraph.verticesArray()), covered);
+    }
+
+    private static Map<VertexOfDualGraph, Double> faceWeights(FaceIndex faceIndex, WeightedPoints buildings,
+                                                              WeightedPoints added, WeightedPoints removed) {
+        Map<VertexOfDualGraph, Double> weights = new HashMap<>();
+        for (WeightedPoints points : new WeightedPoints[]{buildings, added, removed}) {
+            if (points == null) {
+                continue;
+            }
+            double sign = points == removed ? -1 : 1;
+            for (int i = 0; i < points.size(); i++) {
+                VertexOfDualGraph face = faceIndex.findFace(points.vertex(i));
+                if (face != null) {
+                    weights.merge(face, sign * points.weights()[i], Double::sum);
+                }
+            }
+        }
+        weights.replaceAll((face, weight) -> weight % MAX_WEIGHT);
+        return weights;
+    }
+
+    private static WeightedPoints randomBuildings(Random random, int n, long firstName) {
+        WeightedPoints points = new WeightedPoints(new long[n], new double[n], new double[n], new double[n]);
+        for (int i = 0; i < n; i++) {
+            points.ids()[i] = firstName + i;
+            points.x()[i] = random.nextDouble() * (SIZE - 1) * 10;
+            points.y()[i] = random.nextDouble() * (SIZE - 1) * 10;
+            points.weights()[i] = 1 + random.nextInt(30);
+        }
+        return points;
+    }
+}
@@ -0,0 +1,123 @@
+package partitioning.maxflow;
+
+import graph.*;
+import org.junit.jupiter.api.Test;
+import partitioning.entities.DijkstraResult;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DijkstraTest {
+
+    @Test
+    void testBidirectionalSameDistanceAsMultiSource() {
+        Random random = new Random(3);
+        int size = 20;
+        for (int test = 0; test < 20; test++) {
+            Graph<Vertex> graph = new Graph<>();
+            Vertex[][] grid = new Vertex[size][size];
+            for (int i = 0; i < size; i++) {
+                for (int j = 0; j < size; j++) {
+                    grid[i][j] = new Vertex(i * size + j, j, i, 0);
+                }
+            }
+            for (int i = 0; i < size; i++) {
+                for (int j = 0; j < size; j++) {
+                    if (j + 1 < size && random.nextInt(10) > 0) {
+                        graph.addEdge(grid[i][j], grid[i][j + 1], 1 + random.nextInt(10));
+                    }
+                    if (i + 1 < size && random.nextInt(10) > 0) {
+                        graph.addEdge(grid[i][j], grid[i + 1][j], 1 + random.nextInt(10));
+                    }
+                }
+            }
+            // some corners may go only to the right
+            Set<Long> corners = new HashSet<>();
+            Map<Long, List<EdgeOfGraph<Vertex>>> allowed = new HashMap<>();
+            for (int k = 0; k < 10; k++) {
+                int i = random.nextInt(size);
+                int j = random.nextInt(size - 1);
+                corners.add(grid[i][j].getName());
+                allowed.put(grid[i][j].getName(), List.of(new EdgeOfGraph<>(grid[i][j], grid[i][j + 1], 1)));
+            }
+            CornerConstraints cornerConstraints = new CornerConstraints(corners, allowed);
+
+            CompactGraph<Vertex> compactGraph = new CompactGraph<>(graph);
+            List<Vertex> sources = new ArrayList<>();
+            BitSet targets = new BitSet(compactGraph.verticesNumber());
+            for (int i = 0; i < size; i++) {
+                if (compactGraph.id(grid[i][0]) >= 0) {
+                    sources.add(grid[i][0]);
+                }
+                if (compactGraph.id(grid[i][size - 1]) >= 0) {
+                    targets.set(compactGraph.id(grid[i][size - 1]));
+                }
+            }
+
+            Optional<DijkstraResult> expected = Dijkstra.dijkstraMultiSource(
+                    compactGraph, sources, targets, cornerConstraints);
+            Optional<DijkstraResult> actual = Dijkstra.bidirectionalDijkstra(
+                    compactGraph, sources, targets, cornerConstraints);
+            assertEquals(expected.isPresent(), actual.isPresent());
+            if (expected.isEmpty()) {
+                continue;
+            }
+            assertEquals(expected.get().distance(), actual.get().distance(), 1e-9);
+
+            List<Vertex> path = actual.get().path();
+            assertTrue(sources.contains(path.get(0)));
+            assertTrue(targets.get(compactGraph.id(path.get(path.size() - 1))));
+            double length = 0;
+            for (int k = 0; k + 1 < path.size(); k++) {
+                assertTrue(cornerConstraints.isNeighborAllowed(path.get(k), path.get(k + 1)));
+                length += graph.getEdges().get(path.get(k)).get(path.get(k + 1)).length;
+            }
+            assertEquals(expected.get().distance(), length, 1e-9);
+        }
+    }
+
+    @Test
+    void testBidirectionalSettlesFewVerticesForCloseTarget() {
+        int size = 60;
+        Vertex[][] grid = TestGraphs.gridVertices(size, 1, 0);
+        Graph<Vertex> graph = TestGraphs.grid(grid, (i, j) -> 1, (i, j) -> 1);
+        CompactGraph<Vertex> compactGraph = new CompactGraph<>(graph);
+        List<Vertex> sources = List.of(grid[size / 2][size / 2]);
+        BitSet targets = new BitSet(compactGraph.verticesNumber());
+        targets.set(compactGraph.id(grid[size / 2 + 2][size / 2 + 2]));
+
+        int[] settled = new int[2];
+        Optional<DijkstraResult> actual = Dijkstra.bidirectionalDijkstra(
+                compactGraph, sources, targets, CornerConstraints.empty(), settled);
+        Optional<DijkstraResult> expected = Dijkstra.dijkstraMultiSource(
+                compactGraph, sources, targets, CornerConstraints.empty());
+        assertTrue(actual.isPresent());
+        assertEquals(4, actual.get().distance(), 1e-9);
+        assertEquals(expected.get().distance(), actual.get().distance(), 1e-9);
+        assertEquals(5, actual.get().path().size());
+        // a one-directional search settles every vertex of the graph
+        assertEquals(compactGraph.verticesNumber(), expected.get().settledVertices());
+        assertEquals(settled[0] + settled[1], actual.get().settledVertices());
+        assertTrue(settled[0] + settled[1] < compactGraph.verticesNumber() / 20,
+                "settled " + settled[0] + " + " + settled[1]);
+    }
+
+    @Test
+    void testSharedCornersGiveFirstSourceTarget() {
+        Vertex[][] grid = TestGraphs.gridVertices(4, 1, 0);
+        CompactGraph<Vertex> compactGraph = new CompactGraph<>(TestGraphs.grid(grid, (i, j) -> 1, (i, j) -> 1));
+        // sources and targets share (0, 1), (0, 2) and the corner (0, 3), all of them are at distance 0
+        List<Vertex> sources = List.of(grid[0][0], grid[0][1], grid[0][2], grid[0][3]);
+        BitSet targets = new BitSet(compactGraph.verticesNumber());
+        for (Vertex target : List.of(grid[0][3], grid[1][3], grid[2][3], grid[3][3], grid[0][2], grid[0][1])) {
+            targets.set(compactGraph.id(target));
+        }
+
+        DijkstraResult result = Dijkstra.dijkstraMultiSource(
+                compactGraph, sources, targets, CornerConstraints.empty()).orElseThrow();
+        assertEquals(0, result.distance());
+        // ties are polled in push order, so the target is the first source that is a target
+        assertEquals(List.of(grid[0][1]), result.path());
+    }
+}
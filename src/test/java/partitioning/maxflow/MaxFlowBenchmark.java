@@ -0,0 +1,74 @@
+package partitioning.maxflow;
+
+import graph.*;
+import graphPreparation.GraphPreparation;
+import partitioning.algorithms.InertialFlowPartitioning;
+import readWrite.CoordinateConversion;
+import readWrite.GraphReader;
+
+import java.io.File;
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Compares running time of MaxFlowDinic, MaxFlowPushRelabel and MaxFlowReif on a dual graph
+ * where source and sink are contracted from the left and the right quarters of faces, as in inertial flow.
+ * Not a unit test, run it with
+ * {@code java -cp <classpath> partitioning.maxflow.MaxFlowBenchmark <graph from resources> [repeats]}
+ */
+class MaxFlowBenchmark {
+    private static final String RESOURCES_DIRECTORY = "src" + File.separatorChar + "main" + File.separatorChar
+            + "resources" + File.separatorChar;
+
+    public static void main(String[] args) throws Exception {
+        String pathToFile = args.length > 0 ? args[0]
+                : "dataExample/spb/simple/graph_59.93893094417527_30.32268115454809_500.txt";
+        int repeats = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        Graph<Vertex> geodeticGraph = new Graph<>();
+        new GraphReader().readGraphFromFile(geodeticGraph, RESOURCES_DIRECTORY + pathToFile, false);
+        CoordinateConversion cc = new CoordinateConversion(geodeticGraph.getEdges().keySet());
+        Graph<Vertex> graph = new Graph<>();
+        new GraphReader(cc).readGraphFromFile(graph, RESOURCES_DIRECTORY + pathToFile, true);
+        graph = graph.getLargestConnectedComponent();
+
+        GraphPreparation preparation = new GraphPreparation(false, false);
+        Graph<VertexOfDualGraph> dualGraph = preparation.prepareGraph(graph, 1).getLargestConnectedComponent();
+        HashMap<Vertex, VertexOfDualGraph> comparisonForDualGraph = preparation.getComparisonForDualGraph();
+
+        List<VertexOfDualGraph> vertices = new ArrayList<>(dualGraph.verticesArray());
+        vertices.sort(Comparator.comparingDouble(v -> v.x));
+        int quarter = vertices.size() / 4;
+        Set<VertexOfDualGraph> sourceSet = new HashSet<>(vertices.subList(0, quarter));
+        Set<VertexOfDualGraph> sinkSet = new HashSet<>(vertices.subList(vertices.size() - quarter, vertices.size()));
+        long maxIndex = vertices.stream().mapToLong(Vertex::getName).max().orElseThrow();
+        VertexOfDualGraph source = new VertexOfDualGraph(maxIndex + 1, 0, 0, 0);
+        VertexOfDualGraph sink = new VertexOfDualGraph(maxIndex + 2, 0, 0, 0);
+        Supplier<Graph<VertexOfDualGraph>> withSourceSink = () ->
+                InertialFlowPartitioning.createGraphWithSourceSink(dualGraph, sourceSet, source, sinkSet, sink);
+
+        System.out.printf("dual graph: %d vertices, %d edges, source set %d, sink set %d%n",
+                dualGraph.verticesNumber(), dualGraph.edgesNumber(), sourceSet.size(), sinkSet.size());
+        Graph<Vertex> primalGraph = graph;
+        measure("dinic", repeats, () -> new MaxFlowDinic(withSourceSink.get(), source, sink));
+        measure("push-relabel", repeats, () -> new MaxFlowPushRelabel(withSourceSink.get(), source, sink));
+        measure("reif", repeats, () -> new MaxFlowReif(primalGraph, withSourceSink.get(), source, sink, comparisonForDualGraph));
+    }
+
+    private static void measure(String name, int repeats, Supplier<MaxFlow> maxFlowSupplier) {
+        long best = Long.MAX_VALUE;
+        double flow = 0;
+        for (int i = 0; i < repeats; i++) {
+            MaxFlow maxFlow = maxFlowSupplier.get();
+            long start = System.nanoTime();
+            try {
+                flow = maxFlow.findFlow().flowSize();
+            } catch (RuntimeException e) {
+                System.out.printf("%-13s failed: %s%n", name, e.getMessage());
+                return;
+            }
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.printf("%-13s flow %.3f, best of %d: %.1f ms%n", name, flow, repeats, best / 1e6);
+    }
+}
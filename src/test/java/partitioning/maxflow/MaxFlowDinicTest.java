@@ -0,0 +1,72 @@
+package partitioning.maxflow;
+
+import graph.*;
+import org.junit.jupiter.api.Test;
+import partitioning.entities.FlowResult;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MaxFlowDinicTest {
+
+    private static void addUndirectedEdge(Graph<VertexOfDualGraph> graph, VertexOfDualGraph v1, VertexOfDualGraph v2, double bandwidth) {
+        graph.addEdge(v1, v2, 1, bandwidth);
+        graph.addEdge(v2, v1, 1, bandwidth);
+    }
+
+    /**
+     * s --3-- a --2-- t
+     * |       |       |
+     * 2       1       3
+     * |       |       |
+     * b ------4------ c
+     */
+    @Test
+    void testSmallGraph() {
+        Graph<VertexOfDualGraph> graph = new Graph<>();
+        List<VertexOfDualGraph> vs = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            vs.add(new VertexOfDualGraph(i, i, 0, 1));
+        }
+        VertexOfDualGraph s = vs.get(0), a = vs.get(1), t = vs.get(2), b = vs.get(3), c = vs.get(4);
+        addUndirectedEdge(graph, s, a, 3);
+        addUndirectedEdge(graph, a, t, 2);
+        addUndirectedEdge(graph, s, b, 2);
+        addUndirectedEdge(graph, a, b, 1);
+        addUndirectedEdge(graph, b, c, 4);
+        addUndirectedEdge(graph, c, t, 3);
+
+        FlowResult result = new MaxFlowDinic(graph, s, t).findFlow();
+        assertEquals(5, result.flowSize(), 1e-9);
+
+        for (VertexOfDualGraph v : vs) {
+            double balance = 0;
+            for (Map.Entry<VertexOfDualGraph, Edge> entry : graph.getEdges().get(v).entrySet()) {
+                Edge edge = entry.getValue();
+                assertTrue(edge.flow <= edge.getBandwidth() + 1e-9);
+                assertEquals(-edge.flow, graph.getEdges().get(entry.getKey()).get(v).flow, 1e-9);
+                balance += edge.flow;
+            }
+            if (v != s && v != t) {
+                assertEquals(0, balance, 1e-9);
+            }
+        }
+    }
+
+    @Test
+    void testLongPathDoesNotOverflowStack() {
+        Graph<VertexOfDualGraph> graph = new Graph<>();
+        int n = 200_000;
+        VertexOfDualGraph prev = new VertexOfDualGraph(0, 0, 0, 1);
+        VertexOfDualGraph first = prev;
+        for (int i = 1; i < n; i++) {
+            VertexOfDualGraph next = new VertexOfDualGraph(i, i, 0, 1);
+            addUndirectedEdge(graph, prev, next, i == n / 2 ? 1 : 7);
+            prev = next;
+        }
+
+        FlowResult result = new MaxFlowDinic(new CompactGraph<>(graph), first, prev).findFlow();
+        assertEquals(1, result.flowSize(), 1e-9);
+    }
+}
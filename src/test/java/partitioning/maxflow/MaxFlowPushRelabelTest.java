@@ -0,0 +1,94 @@
+package partitioning.maxflow;
+
+import graph.*;
+import org.junit.jupiter.api.Test;
+import partitioning.algorithms.InertialFlowPartitioning;
+import partitioning.entities.FlowResult;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MaxFlowPushRelabelTest {
+
+    /**
+     * Grid with random bandwidths, left column is contracted to source and right column to sink
+     */
+    private Graph<VertexOfDualGraph> createGridWithSourceSink(int size, Random random,
+                                                              VertexOfDualGraph source, VertexOfDualGraph sink) {
+        Graph<VertexOfDualGraph> graph = new Graph<>();
+        VertexOfDualGraph[][] grid = new VertexOfDualGraph[size][size];
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                grid[i][j] = new VertexOfDualGraph(i * size + j, j, i, 1);
+                graph.addVertex(grid[i][j]);
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                if (j + 1 < size) {
+                    double bandwidth = 1 + random.nextInt(20) + random.nextDouble();
+                    graph.addEdge(grid[i][j], grid[i][j + 1], 1, bandwidth);
+                    graph.addEdge(grid[i][j + 1], grid[i][j], 1, bandwidth);
+                }
+                if (i + 1 < size) {
+                    double bandwidth = 1 + random.nextInt(20) + random.nextDouble();
+                    graph.addEdge(grid[i][j], grid[i + 1][j], 1, bandwidth);
+                    graph.addEdge(grid[i + 1][j], grid[i][j], 1, bandwidth);
+                }
+            }
+        }
+        Set<VertexOfDualGraph> sourceSet = new HashSet<>();
+        Set<VertexOfDualGraph> sinkSet = new HashSet<>();
+        for (int i = 0; i < size; i++) {
+            sourceSet.add(grid[i][0]);
+            sinkSet.add(grid[i][size - 1]);
+        }
+        return InertialFlowPartitioning.createGraphWithSourceSink(graph, sourceSet, source, sinkSet, sink);
+    }
+
+    @Test
+    void testSameFlowAsDinic() {
+        Random random = new Random(7);
+        for (int size : new int[]{2, 5, 10, 30}) {
+            VertexOfDualGraph source = new VertexOfDualGraph(-1, -1, 0, 0);
+            VertexOfDualGraph sink = new VertexOfDualGraph(-2, size, 0, 0);
+            Graph<VertexOfDualGraph> graph = createGridWithSourceSink(size, random, source, sink);
+
+            double expected = new MaxFlowDinic(graph.clone(), source, sink).findFlow().flowSize();
+            FlowResult result = new MaxFlowPushRelabel(graph, source, sink).findFlow();
+            assertEquals(expected, result.flowSize(), 1e-6);
+
+            // the result is a flow: it is conserved everywhere except source and sink
+            for (VertexOfDualGraph v : graph.verticesArray()) {
+                double balance = 0;
+                for (Map.Entry<VertexOfDualGraph, Edge> entry : graph.getEdges().get(v).entrySet()) {
+                    Edge edge = entry.getValue();
+                    assertTrue(edge.flow <= edge.getBandwidth() + 1e-6);
+                    assertEquals(-edge.flow, graph.getEdges().get(entry.getKey()).get(v).flow, 1e-6);
+                    balance += edge.flow;
+                }
+                if (v.equals(source)) {
+                    assertEquals(result.flowSize(), balance, 1e-6);
+                } else if (!v.equals(sink)) {
+                    assertEquals(0, balance, 1e-6);
+                }
+            }
+        }
+    }
+
+    @Test
+    void testDisconnectedSink() {
+        Graph<VertexOfDualGraph> graph = new Graph<>();
+        VertexOfDualGraph source = new VertexOfDualGraph(0, 0, 0, 0);
+        VertexOfDualGraph a = new VertexOfDualGraph(1, 1, 0, 0);
+        VertexOfDualGraph sink = new VertexOfDualGraph(2, 2, 0, 0);
+        graph.addEdge(source, a, 1, 5);
+        graph.addEdge(a, source, 1, 5);
+        graph.addVertex(sink);
+
+        FlowResult result = new MaxFlowPushRelabel(graph, source, sink).findFlow();
+        assertEquals(0, result.flowSize());
+        assertEquals(0, graph.getEdges().get(source).get(a).flow, 1e-9);
+    }
+}
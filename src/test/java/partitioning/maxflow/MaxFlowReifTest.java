@@ -231,6 +231,28 @@ class MaxFlowReifTest {
         }
     }
 
+    @Test
+    void testBatchedSplitSearchSameFlow() {
+        double[] flows = new double[2];
+        int[] batchSizes = {1, 3};
+        for (int i = 0; i < batchSizes.length; i++) {
+            Graph<Vertex> primalGraph = createGridGraph3x3();
+            Graph<VertexOfDualGraph> dualGraph = createDualGraphFor3x3Grid(primalGraph);
+            VertexOfDualGraph source = null;
+            VertexOfDualGraph sink = null;
+            for (VertexOfDualGraph v : dualGraph.verticesArray()) {
+                if (v.getName() == -1) source = v;
+                if (v.getName() == -2) sink = v;
+            }
+            flows[i] = new MaxFlowReif(primalGraph, dualGraph, source, sink, createComparisonMap(dualGraph),
+                    batchSizes[i]).findFlow().flowSize();
+        }
+        assertTrue(flows[0] > 0);
+        assertEquals(flows[0], flows[1], 1e-9);
+        assertThrows(IllegalArgumentException.class,
+                () -> new MaxFlowReif(new Graph<>(), new Graph<>(), null, null, new HashMap<>(), 0));
+    }
+
     @Test
     void testGridGraphVerticesCount() {
         Graph<Vertex> grid = createGridGraph3x3();
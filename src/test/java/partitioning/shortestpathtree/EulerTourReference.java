@@ -0,0 +1,203 @@
+package partitioning.shortestpathtree;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import graph.Edge;
+import graph.EdgeOfGraph;
+import graph.Graph;
+import graph.Vertex;
+import graph.VertexOfDualGraph;
+import partitioning.maxflow.CornerConstraints;
+
+/**
+ * Region weights by the Euler tour over the angle-sorted edges of {@link Graph#arrangeByAngle}
+ * and faces of {@link Graph#edgeToDualVertexMap}, as they were computed before {@link RegionTopology}.
+ * Used only to check {@link ShortestPathTreeSearcher}
+ */
+class EulerTourReference {
+
+    record Result(List<VertexOfDualGraph> regions,
+                  List<Double> weights,
+                  List<Double> distances,
+                  List<Integer> leafIndices,
+                  double totalRegionWeight) {}
+
+    private static class Frame {
+        final Vertex vertex;
+        final Vertex parent;
+        final List<EdgeOfGraph<Vertex>> edges;
+        int nextEdgeIdx;
+
+        Frame(Vertex vertex, Vertex parent, List<EdgeOfGraph<Vertex>> edges) {
+            this.vertex = vertex;
+            this.parent = parent;
+            this.edges = edges;
+        }
+    }
+
+    private final Map<Vertex, TreeSet<EdgeOfGraph<Vertex>>> sortedEdgesByVertex;
+    private final Map<Vertex, HashMap<Vertex, VertexOfDualGraph>> edgeToLeftFace;
+    private final Graph<VertexOfDualGraph> dualGraph;
+    private final Set<Map.Entry<Vertex, Vertex>> sptEdges = new HashSet<>();
+    private final Set<Vertex> boundaryLeaves;
+    private final CornerConstraints cornerConstraints;
+    private final Set<Map.Entry<Vertex, Vertex>> processedNonTreeEdges = new HashSet<>();
+    private final Set<VertexOfDualGraph> addedRegions = new HashSet<>();
+    private final List<VertexOfDualGraph> regions = new ArrayList<>();
+    private final List<Double> weights = new ArrayList<>();
+    private final List<Double> distances = new ArrayList<>();
+    private final List<Integer> leafIndices = new ArrayList<>();
+    private double cumulativeWeight;
+    private double currentBoundaryLength;
+
+    private EulerTourReference(Graph<Vertex> graph,
+                               Graph<VertexOfDualGraph> dualGraph,
+                               Map<Vertex, Vertex> previous,
+                               List<Vertex> boundaryLeaves,
+                               CornerConstraints cornerConstraints) {
+        this.sortedEdgesByVertex = graph.arrangeByAngle();
+        this.edgeToLeftFace = dualGraph.edgeToDualVertexMap();
+        this.dualGraph = dualGraph;
+        for (Map.Entry<Vertex, Vertex> entry : previous.entrySet()) {
+            if (entry.getValue() != null) {
+                sptEdges.add(Map.entry(entry.getKey(), entry.getValue()));
+                sptEdges.add(Map.entry(entry.getValue(), entry.getKey()));
+            }
+        }
+        this.boundaryLeaves = new HashSet<>(boundaryLeaves);
+        this.cornerConstraints = cornerConstraints;
+    }
+
+    /**
+     * @param boundaryLeaves leaves of the tree on the boundary in the order of the tour
+     */
+    static Result regionWeights(Graph<Vertex> graph,
+                                Graph<VertexOfDualGraph> dualGraph,
+                                Map<Vertex, Vertex> previous,
+                                Vertex root,
+                                List<Vertex> boundaryLeaves,
+                                CornerConstraints cornerConstraints,
+                                List<Vertex> path,
+                                boolean isFirstSide) {
+        if (boundaryLeaves.isEmpty()) {
+            return new Result(List.of(), List.of(), List.of(), List.of(), 0);
+        }
+        EulerTourReference tour = new EulerTourReference(graph, dualGraph, previous, boundaryLeaves,
+                cornerConstraints);
+        tour.run(root, path, isFirstSide);
+        return new Result(tour.regions, tour.weights, tour.distances, tour.leafIndices, tour.cumulativeWeight);
+    }
+
+    private void run(Vertex root, List<Vertex> path, boolean isFirstSide) {
+        Deque<Frame> stack = new ArrayDeque<>();
+        stack.push(new Frame(root, null,
+                orderedEdges(sortedEdgesByVertex.get(root), null, root, path, isFirstSide)));
+
+        while (!stack.isEmpty()) {
+            Frame frame = stack.peek();
+            if (frame.nextEdgeIdx >= frame.edges.size()) {
+                stack.pop();
+                if (boundaryLeaves.contains(frame.vertex)) {
+                    leafIndices.add(weights.size() - 1);
+                }
+                continue;
+            }
+
+            Vertex neighbor = frame.edges.get(frame.nextEdgeIdx++).end;
+            if (frame.parent != null && neighbor.getName() == frame.parent.getName()) {
+                continue;
+            }
+            if (!cornerConstraints.isNeighborAllowed(frame.vertex, neighbor)) {
+                continue;
+            }
+
+            if (sptEdges.contains(Map.entry(frame.vertex, neighbor))) {
+                stack.push(new Frame(neighbor, frame.vertex,
+                        orderedEdges(sortedEdgesByVertex.get(neighbor), frame.vertex, null, null, isFirstSide)));
+            } else if (!processedNonTreeEdges.contains(Map.entry(frame.vertex, neighbor))
+                    && !processedNonTreeEdges.contains(Map.entry(neighbor, frame.vertex))) {
+                processRightFace(frame.vertex, neighbor);
+                processedNonTreeEdges.add(Map.entry(frame.vertex, neighbor));
+            }
+        }
+    }
+
+    /**
+     * Edges in angle order starting after the edge to parent, for the root - from the next vertex of the path
+     */
+    private static List<EdgeOfGraph<Vertex>> orderedEdges(TreeSet<EdgeOfGraph<Vertex>> edges,
+                                                          Vertex parent,
+                                                          Vertex start,
+                                                          List<Vertex> path,
+                                                          boolean isFirstSide) {
+        List<EdgeOfGraph<Vertex>> edgesList = new ArrayList<>(edges);
+        int startIdx = -1;
+        if (parent != null) {
+            startIdx = (indexOf(edgesList, parent) + 1) % edgesList.size();
+        } else {
+            Vertex splittedVertex = new Vertex(start.name / 1000, start);
+            for (int i = 0; i < path.size(); i++) {
+                if (path.get(i).equals(start) || path.get(i).equals(splittedVertex)) {
+                    Vertex nextVertex = isFirstSide
+                            ? path.get((i + 1) % path.size())
+                            : path.get((i - 1 + path.size()) % path.size());
+                    startIdx = indexOf(edgesList, nextVertex);
+                }
+            }
+        }
+
+        List<EdgeOfGraph<Vertex>> result = new ArrayList<>();
+        for (int i = 0; i < edgesList.size(); i++) {
+            result.add(edgesList.get((startIdx + i) % edgesList.size()));
+        }
+        return result;
+    }
+
+    private static int indexOf(List<EdgeOfGraph<Vertex>> edges, Vertex end) {
+        for (int i = 0; i < edges.size(); i++) {
+            if (edges.get(i).end.getName() == end.getName()) {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    private void processRightFace(Vertex current, Vertex neighbor) {
+        VertexOfDualGraph face = null;
+        if (edgeToLeftFace.containsKey(neighbor)) {
+            face = edgeToLeftFace.get(neighbor).get(current);
+        }
+        Vertex newNeighbor = new Vertex(neighbor.name / 1000, neighbor.x, neighbor.y);
+        Vertex newCurrent = new Vertex(current.name / 1000, current.x, current.y);
+        if (face == null && edgeToLeftFace.containsKey(newNeighbor)) {
+            face = edgeToLeftFace.get(newNeighbor).get(current);
+        } else if (face == null && edgeToLeftFace.containsKey(neighbor)) {
+            face = edgeToLeftFace.get(neighbor).get(newCurrent);
+        }
+        if (face == null) {
+            return;
+        }
+        cumulativeWeight += face.getWeight();
+        weights.add(cumulativeWeight);
+        regions.add(face);
+
+        Map<VertexOfDualGraph, Edge> neighbors = dualGraph.getEdges().get(face);
+        if (neighbors != null) {
+            double delta = 0.0;
+            for (Map.Entry<VertexOfDualGraph, Edge> entry : neighbors.entrySet()) {
+                delta += addedRegions.contains(entry.getKey()) ? -entry.getValue().length : entry.getValue().length;
+            }
+            currentBoundaryLength += delta;
+        }
+        distances.add(currentBoundaryLength);
+        addedRegions.add(face);
+    }
+}
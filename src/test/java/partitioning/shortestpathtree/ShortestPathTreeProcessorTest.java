@@ -0,0 +1,68 @@
+package partitioning.shortestpathtree;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import partitioning.entities.DijkstraResult;
+
+class ShortestPathTreeProcessorTest {
+
+    /**
+     * Random side of the cut: cumulative region weights, boundary lengths and leaf indices
+     * (repeated indices and leading -1 as for leaves met before the first region)
+     */
+    private static DijkstraResult randomSide(Random random, boolean monotone) {
+        int regions = 1 + random.nextInt(60);
+        List<Double> weights = new ArrayList<>();
+        List<Double> distances = new ArrayList<>();
+        double weight = 0;
+        for (int i = 0; i < regions; i++) {
+            weight += monotone ? random.nextInt(20) : random.nextInt(20) - 8;
+            weights.add(weight);
+            distances.add((double) random.nextInt(100));
+        }
+        int leaves = 1 + random.nextInt(40);
+        List<Integer> leafIndices = new ArrayList<>();
+        int index = random.nextInt(3) - 1;
+        for (int i = 0; i < leaves; i++) {
+            leafIndices.add(Math.min(index, regions - 1));
+            index += random.nextInt(3);
+        }
+        return new DijkstraResult(List.of(), 0, Map.of(), Map.of(), List.of(), List.of(),
+                weights, distances, leafIndices, weight, 0);
+    }
+
+    @Test
+    void testBestLeafPairSameAsBruteForce() {
+        ShortestPathTreeProcessor processor = new ShortestPathTreeProcessor();
+        Random random = new Random(11);
+        for (int test = 0; test < 2000; test++) {
+            boolean monotone = test % 2 == 0;
+            DijkstraResult result1 = randomSide(random, monotone);
+            DijkstraResult result2 = randomSide(random, monotone);
+            double sourceWeight = random.nextInt(50);
+            double sinkWeight = random.nextInt(50);
+
+            ShortestPathTreeProcessor.LeafPair expected =
+                    processor.bestLeafPairBruteForce(result1, result2, sourceWeight, sinkWeight);
+            ShortestPathTreeProcessor.LeafPair actual =
+                    processor.bestLeafPair(result1, result2, sourceWeight, sinkWeight);
+            Assertions.assertEquals(expected, actual);
+        }
+    }
+
+    @Test
+    void testNoValidLeaves() {
+        DijkstraResult side = new DijkstraResult(List.of(), 0, Map.of(), Map.of(), List.of(), List.of(),
+                List.of(), List.of(), List.of(-1, -1), 0, 0);
+        ShortestPathTreeProcessor processor = new ShortestPathTreeProcessor();
+        ShortestPathTreeProcessor.LeafPair pair = processor.bestLeafPair(side, side, 1, 1);
+        Assertions.assertEquals(processor.bestLeafPairBruteForce(side, side, 1, 1), pair);
+        Assertions.assertEquals(0, pair.i1());
+        Assertions.assertEquals(Double.MAX_VALUE, pair.score().score());
+    }
+}
@@ -1,11 +1,15 @@
 package partitioning.shortestpathtree;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
+import graph.CompactGraph;
 import graph.EdgeOfGraph;
 import graph.Graph;
+import graph.TestGraphs;
 import graph.Vertex;
 import graph.VertexOfDualGraph;
 import graphPreparation.GraphPreparation;
@@ -86,4 +90,127 @@ public class ShortestPathTreeSearcherTest {
         System.out.println(spt.regionWeights());
         System.out.println(spt.distances());
     }
+
+    private static final int SIZE = 8;
+    private static final TestGraphs.GridLength TO_NEXT_ROW = (i, j) -> 10 + (i * 3 + j) % 4;
+    private static final TestGraphs.GridLength TO_NEXT_COLUMN = (i, j) -> 10 + (i + j * 5) % 3;
+
+    @Test
+    void testGridSameAsReferenceEulerTour() throws IOException {
+        Vertex[][] vertices = TestGraphs.gridVertices(SIZE, 10, 1);
+        Graph<Vertex> graph = TestGraphs.grid(vertices, TO_NEXT_ROW, TO_NEXT_COLUMN);
+        Graph<VertexOfDualGraph> dualGraph = new GraphPreparation(true, false).prepareGraph(graph, 1);
+        RegionTopology topology = new RegionTopology(new CompactGraph<>(graph), dualGraph);
+        List<Vertex> boundary = ring(vertices);
+
+        for (int i = 1; i < SIZE - 1; i += 2) {
+            for (int j = 1; j < SIZE - 1; j += 3) {
+                assertSameAsReference(graph, dualGraph, topology, vertices[i][j], boundary,
+                        List.of(vertices[0][0]), List.of(vertices[SIZE - 1][SIZE - 1]),
+                        i % 3 == 1, List.of(vertices[i][j], vertices[i + 1][j]));
+            }
+        }
+    }
+
+    /**
+     * The grid is cut along row r as by a path of max flow: vertices of the row are split into copies
+     * name * 1000 + 1 connected to rows above and name * 1000 + 2 connected to rows below,
+     * faces of the dual graph keep the original vertices
+     */
+    @Test
+    void testSplitGraphSameAsReferenceEulerTour() throws IOException {
+        int r = 3;
+        Vertex[][] vertices = TestGraphs.gridVertices(SIZE, 10, 1);
+        Graph<VertexOfDualGraph> dualGraph = new GraphPreparation(true, false)
+                .prepareGraph(TestGraphs.grid(vertices, TO_NEXT_ROW, TO_NEXT_COLUMN), 1);
+
+        Vertex[][] split = new Vertex[SIZE + 1][];
+        for (int i = 0; i <= SIZE; i++) {
+            int row = i <= r ? i : i - 1;
+            split[i] = vertices[row].clone();
+            if (row == r) {
+                for (int j = 0; j < SIZE; j++) {
+                    Vertex v = vertices[r][j];
+                    split[i][j] = new Vertex(v.getName() * 1000 + (i == r ? 1 : 2), v.x, v.y, v.getWeight());
+                }
+            }
+        }
+        Graph<Vertex> graph = new Graph<>();
+        for (int i = 0; i <= SIZE; i++) {
+            int row = i <= r ? i : i - 1;
+            for (int j = 0; j < SIZE; j++) {
+                if (i + 1 <= SIZE && i != r) {
+                    graph.addEdge(split[i][j], split[i + 1][j], TO_NEXT_ROW.length(row, j));
+                }
+                if (j + 1 < SIZE) {
+                    graph.addEdge(split[i][j], split[i][j + 1], TO_NEXT_COLUMN.length(row, j));
+                }
+            }
+        }
+        RegionTopology topology = new RegionTopology(new CompactGraph<>(graph), dualGraph);
+        List<Vertex> path = List.of(vertices[r]);
+        Vertex[][] above = Arrays.copyOfRange(split, 0, r + 1);
+        Vertex[][] below = Arrays.copyOfRange(split, r + 1, SIZE + 1);
+
+        for (int j = 1; j < SIZE - 1; j += 2) {
+            for (boolean isFirstSide : new boolean[] {true, false}) {
+                assertSameAsReference(graph, dualGraph, topology, split[r][j], ring(above),
+                        List.of(split[r][0]), List.of(split[r][SIZE - 1]), isFirstSide, path);
+                assertSameAsReference(graph, dualGraph, topology, split[r + 1][j], ring(below),
+                        List.of(split[r + 1][SIZE - 1]), List.of(split[r + 1][0]), isFirstSide, path);
+            }
+        }
+    }
+
+    /**
+     * Outer ring of the rectangular grid counterclockwise
+     */
+    private static List<Vertex> ring(Vertex[][] vertices) {
+        int rows = vertices.length;
+        int columns = vertices[0].length;
+        List<Vertex> boundary = new ArrayList<>();
+        for (int i = 0; i < rows - 1; i++) {
+            boundary.add(vertices[i][0]);
+        }
+        for (int j = 0; j < columns - 1; j++) {
+            boundary.add(vertices[rows - 1][j]);
+        }
+        for (int i = rows - 1; i > 0; i--) {
+            boundary.add(vertices[i][columns - 1]);
+        }
+        for (int j = columns - 1; j > 0; j--) {
+            boundary.add(vertices[0][j]);
+        }
+        return boundary;
+    }
+
+    private static void assertSameAsReference(Graph<Vertex> graph,
+                                              Graph<VertexOfDualGraph> dualGraph,
+                                              RegionTopology topology,
+                                              Vertex source,
+                                              List<Vertex> boundary,
+                                              List<Vertex> sourceCorners,
+                                              List<Vertex> sinkCorners,
+                                              boolean isFirstSide,
+                                              List<Vertex> path) {
+        DijkstraResult dijkstraResult = Dijkstra.dijkstraSingleSource(
+                graph, source, boundary, CornerConstraints.empty()).orElseThrow();
+        SPTWithRegionWeights spt = ShortestPathTreeSearcher.buildSPTWithRegionWeights(
+                topology, dijkstraResult.previous(), source, boundary, sourceCorners, sinkCorners,
+                isFirstSide, CornerConstraints.empty(), path
+        );
+        EulerTourReference.Result expected = EulerTourReference.regionWeights(
+                graph, dualGraph, dijkstraResult.previous(), source, spt.boundaryLeaves(),
+                CornerConstraints.empty(), path, isFirstSide
+        );
+
+        // every boundary vertex is a leaf
+        Assertions.assertEquals(boundary.size(), spt.boundaryLeaves().size());
+        Assertions.assertFalse(expected.regions().isEmpty());
+        Assertions.assertEquals(expected.regions(), spt.faces());
+        Assertions.assertEquals(expected.weights(), spt.regionWeights());
+        Assertions.assertEquals(expected.distances(), spt.distances());
+        Assertions.assertEquals(expected.leafIndices(), spt.leafIndices());
+        Assertions.assertEquals(expected.totalRegionWeight(), spt.totalRegionWeight());
+    }
 }
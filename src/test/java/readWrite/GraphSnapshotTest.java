@@ -0,0 +1,74 @@
+package readWrite;
+
+import graph.*;
+import graphPreparation.GraphPreparation;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GraphSnapshotTest {
+
+    @Test
+    void testWriteAndRead() throws IOException {
+        Graph<Vertex> graph = new Graph<>();
+        String graphFile = "src/main/resources/testGraphs/test_graph_1.txt".replace('/', File.separatorChar);
+        new GraphReader().readGraphFromFile(graph, graphFile, false);
+        GraphPreparation preparation = new GraphPreparation();
+        Graph<VertexOfDualGraph> dualGraph = preparation.prepareGraph(graph, 1e-9);
+        GraphSnapshot expected = new GraphSnapshot(graph, dualGraph, preparation.getComparisonForDualGraph(),
+                new CoordinateConversion(new Point(30, 60)), GraphSnapshot.Source.of(graphFile, 1e-9));
+
+        Path file = Files.createTempFile("snapshot", ".bin");
+        file.toFile().deleteOnExit();
+        expected.write(file.toString());
+        GraphSnapshot actual = GraphSnapshot.read(file.toString());
+
+        assertEquals(expected.source(), actual.source());
+        assertEquals(expected.source(), GraphSnapshot.readSource(file.toString()));
+        assertEquals(30, actual.conversion().referencePoint.x);
+        assertEquals(60, actual.conversion().referencePoint.y);
+        assertSameGraph(expected.graph(), actual.graph());
+        assertSameGraph(expected.dualGraph(), actual.dualGraph());
+        for (VertexOfDualGraph face : expected.dualGraph().verticesArray()) {
+            VertexOfDualGraph loaded = actual.comparisonForDualGraph().get(face);
+            assertEquals(expected.comparisonForDualGraph().get(face), loaded);
+            assertEquals(face.getWeight(), loaded.getWeight());
+            assertEquals(face.area, loaded.area);
+            assertEquals(face.getVerticesOfFace(), loaded.getVerticesOfFace());
+        }
+        assertEquals(expected.comparisonForDualGraph().size(), actual.comparisonForDualGraph().size());
+    }
+
+    @Test
+    void testSourceChangesWithGraphFile() throws IOException {
+        Path graphFile = Files.createTempFile("graph", ".txt");
+        graphFile.toFile().deleteOnExit();
+        Files.writeString(graphFile, "1\n");
+        GraphSnapshot.Source source = GraphSnapshot.Source.of(graphFile.toString(), 1);
+
+        assertEquals(source, GraphSnapshot.Source.of(graphFile.toString(), 1));
+        assertNotEquals(source, GraphSnapshot.Source.of(graphFile.toString(), 1e-9));
+        Files.writeString(graphFile, "12\n");
+        assertNotEquals(source, GraphSnapshot.Source.of(graphFile.toString(), 1));
+    }
+
+    private <T extends Vertex> void assertSameGraph(Graph<T> expected, Graph<T> actual) {
+        // the same iteration order, so partitioning of the loaded graphs is the same
+        assertEquals(expected.verticesArray(), actual.verticesArray());
+        for (T v : expected.verticesArray()) {
+            Map<T, Edge> expectedEdges = expected.getEdges().get(v);
+            Map<T, Edge> actualEdges = actual.getEdges().get(v);
+            assertEquals(new ArrayList<>(expectedEdges.keySet()), new ArrayList<>(actualEdges.keySet()));
+            for (T u : expectedEdges.keySet()) {
+                assertEquals(expectedEdges.get(u).length, actualEdges.get(u).length);
+                assertEquals(expectedEdges.get(u).getBandwidth(), actualEdges.get(u).getBandwidth());
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package readWrite;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NumberTokenizerTest {
+
+    private Path createFile(String text) throws IOException {
+        Path file = Files.createTempFile("numbers", ".txt");
+        file.toFile().deleteOnExit();
+        Files.writeString(file, text);
+        return file;
+    }
+
+    @Test
+    void testSameValuesAsParseDouble() throws IOException {
+        Random random = new Random(5);
+        List<String> tokens = new ArrayList<>(List.of("0", "-0", "0,5", "-12.25", "59.93893094417527",
+                "30,32268115454809", "1e-3", "123456789012345678901234567890.5", "0.1234567890123456789", "+7."));
+        for (int i = 0; i < 10000; i++) {
+            double value = (random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(12));
+            String token = Double.toString(value);
+            tokens.add(random.nextBoolean() ? token : token.replace('.', ','));
+        }
+        // separators and line breaks also at buffer borders
+        StringBuilder text = new StringBuilder();
+        for (String token : tokens) {
+            text.append(token).append(random.nextBoolean() ? " " : "\r\n\t");
+        }
+        Path file = createFile(text.toString());
+
+        try (NumberTokenizer tokenizer = new NumberTokenizer(file.toString())) {
+            for (String token : tokens) {
+                assertTrue(tokenizer.hasNext());
+                assertEquals(Double.parseDouble(token.replace(',', '.')), tokenizer.nextDouble(), 0, token);
+            }
+            assertFalse(tokenizer.hasNext());
+            assertEquals(Files.size(file), tokenizer.bytesRead());
+        }
+    }
+
+    @Test
+    void testLongs() throws IOException {
+        Path file = createFile("3 -42 10838075003\n" + Long.MAX_VALUE + " " + Long.MIN_VALUE);
+        try (NumberTokenizer tokenizer = new NumberTokenizer(file.toString())) {
+            assertEquals(3, tokenizer.nextInt());
+            assertEquals(-42, tokenizer.nextInt());
+            assertEquals(10838075003L, tokenizer.nextLong());
+            assertEquals(Long.MAX_VALUE, tokenizer.nextLong());
+            assertEquals(Long.MIN_VALUE, tokenizer.nextLong());
+            assertThrows(NoSuchElementException.class, tokenizer::nextLong);
+        }
+    }
+}
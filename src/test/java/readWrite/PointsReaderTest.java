@@ -0,0 +1,70 @@
+package readWrite;
+
+import addingPoints.WeightedPoints;
+import graph.Point;
+import graph.Vertex;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PointsReaderTest {
+
+    @Test
+    void testChunksGiveSamePointsAsOneChunk() throws IOException {
+        Random random = new Random(11);
+        int n = 5000;
+        StringBuilder text = new StringBuilder(n + "\n");
+        for (int i = 0; i < n; i++) {
+            String lat = String.format(Locale.US, "%.6f", 59 + random.nextDouble());
+            String lon = String.format(Locale.US, "%.6f", 30 + random.nextDouble());
+            text.append(i).append(' ').append(random.nextBoolean() ? lat : lat.replace('.', ','))
+                    .append(' ').append(lon).append(' ')
+                    .append(random.nextInt(300)).append(' ').append(random.nextInt(300)).append('\n');
+        }
+        // lines after n points are ignored
+        text.append("1 59.0 30.0 1 1\n");
+        Path file = Files.createTempFile("points", ".txt");
+        file.toFile().deleteOnExit();
+        Files.writeString(file, text);
+
+        PointsReader reader = new PointsReader(new CoordinateConversion(new Point(30.5, 59.5)));
+        WeightedPoints expected = reader.readPoints(file.toString(), true, Long.MAX_VALUE);
+        assertEquals(n, expected.size());
+        for (long chunkSize : new long[]{1, 100, 4096}) {
+            WeightedPoints actual = reader.readPoints(file.toString(), true, chunkSize);
+            assertArrayEquals(expected.ids(), actual.ids());
+            assertArrayEquals(expected.x(), actual.x());
+            assertArrayEquals(expected.y(), actual.y());
+            assertArrayEquals(expected.weights(), actual.weights());
+        }
+
+        // the same as conversion of every vertex
+        List<Vertex> vertices = new PointsReader(null).readWeightedPoints(file.toString(), false);
+        for (int i = 0; i < n; i++) {
+            Vertex v = vertices.get(i);
+            reader.coordinateConversion.toEuclidean(v);
+            assertEquals(i, v.getName());
+            assertEquals(v.x, expected.x()[i]);
+            assertEquals(v.y, expected.y()[i]);
+            assertEquals(v.getWeight(), expected.weights()[i]);
+        }
+    }
+
+    @Test
+    void testBuildingsFile() {
+        List<Vertex> vertices = new PointsReader(null).readWeightedPoints(
+                "src/main/resources/buildings_spb_1000.txt".replace('/', File.separatorChar), false);
+        assertEquals(894, vertices.size());
+        // 54363 59.938500 30.330570 97 83
+        assertEquals(54363, vertices.get(0).getName());
+        assertEquals(30.330570, vertices.get(0).x);
+        assertEquals(59.938500, vertices.get(0).y);
+        assertEquals(97 * 83 / 10.0, vertices.get(0).getWeight());
+    }
+}